@@ -25,6 +25,7 @@ import androidx.lifecycle.lifecycleScope
 import androidx.navigation.compose.NavHost
 import androidx.navigation.compose.composable
 import androidx.navigation.compose.rememberNavController
+import com.tomsphone.core.config.SettingsFields
 import com.tomsphone.core.config.SettingsRepository
 import com.tomsphone.core.telecom.CallDirection
 import com.tomsphone.core.telecom.CallManager
@@ -391,8 +392,8 @@ fun WandasPhoneApp(
                             kotlinx.coroutines.MainScope().launch {
                                 val currentSettings = settingsRepository.getSettings().first()
                                 if (currentSettings.rejectUnknownCalls) {
-                                    settingsRepository.updateSettings(
-                                        currentSettings.copy(rejectUnknownCalls = false)
+                                    settingsRepository.updateField(
+                                        SettingsFields.REJECT_UNKNOWN_CALLS, false
                                     )
                                     Log.d("WandasPhoneApp", "Disabled reject unknown calls for emergency")
                                 }
@@ -418,7 +419,8 @@ fun WandasPhoneApp(
                         },
                         onCancel = {
                             navController.popBackStack("home", inclusive = false)
-                        }
+                        },
+                        userPhotoUri = settings?.userPhotoUri
                     )
                 }
             }
@@ -1,13 +1,72 @@
 package com.tomsphone
 
 import android.app.Application
+import com.tomsphone.core.config.SettingsRepository
+import com.tomsphone.core.data.local.CallLogRetention
+import com.tomsphone.core.data.local.RetentionPolicy
+import com.tomsphone.core.data.lookup.HomeCountryTracker
+import com.tomsphone.core.data.lookup.CallerIdResolver
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import com.tomsphone.core.telecom.RingAnnouncementComposer
+import com.tomsphone.core.telecom.RingtonePlayer
+import com.tomsphone.core.telecom.ScreeningPolicyProvider
+import com.tomsphone.core.tts.WandasTTS
 import dagger.hilt.android.HiltAndroidApp
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import javax.inject.Inject
 
 @HiltAndroidApp
 class TomsPhoneApplication : Application() {
+
+    // Injected so settings are decoded once, up front, rather than by the first screen to ask
+    @Inject
+    lateinit var settingsRepository: SettingsRepository
+    
+    // Injected so the caller ID index and screening policy are warm before the first incoming call
+    @Inject
+    lateinit var callerIdResolver: CallerIdResolver
+    
+    @Inject
+    lateinit var screeningPolicyProvider: ScreeningPolicyProvider
+    
+    // Injected so stored number keys are redone straight away after a SIM from another country
+    @Inject
+    lateinit var homeCountryTracker: HomeCountryTracker
+    
+    // Injected so ringtones and nag cues are decoded before they are first needed
+    @Inject
+    lateinit var ringtonePlayer: RingtonePlayer
+    
+    // Injected so ring cycles are composed in the background before the first incoming call
+    @Inject
+    lateinit var ringAnnouncementComposer: RingAnnouncementComposer
+    
+    @Inject
+    lateinit var tts: WandasTTS
+    
+    private val appScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
     override fun onCreate() {
+        // Before injection - the caller ID index and screening policy key numbers by country
+        PhoneNumberUtils.initHomeCountry(this)
+        
         super.onCreate()
-        // Application initialization will go here
+        // Start the speech engine now, so announcements after boot or a
+        // process restart aren't waiting on (or lost to) its start-up
+        tts.warmUp()
+        
+        // Prune and compact the call log daily, while charging and idle,
+        // keeping as much history as the carer has set
+        appScope.launch {
+            settingsRepository.getSettings()
+                .map { RetentionPolicy(maxAgeDays = it.callHistoryMaxAgeDays, maxRows = it.callHistoryMaxRows) }
+                .distinctUntilChanged()
+                .collect { CallLogRetention.schedule(this@TomsPhoneApplication, it) }
+        }
     }
 }
-
@@ -37,6 +37,7 @@ dependencies {
     
     // DataStore
     implementation(libs.datastore.preferences)
+    implementation(libs.datastore)
     
     // Coroutines
     implementation(libs.kotlinx.coroutines.android)
@@ -44,9 +45,13 @@ dependencies {
     
     // Serialization
     implementation(libs.kotlinx.serialization.json)
+    implementation(libs.kotlinx.serialization.protobuf)
     
     // Hilt
     implementation(libs.hilt.android)
     ksp(libs.hilt.compiler)
+    
+    // Testing
+    testImplementation(libs.junit)
 }
 
@@ -1,6 +1,8 @@
 package com.tomsphone.core.config
 
+import kotlinx.serialization.ExperimentalSerializationApi
 import kotlinx.serialization.Serializable
+import kotlinx.serialization.protobuf.ProtoNumber
 
 /**
  * All carer-configurable settings
@@ -21,111 +23,121 @@ import kotlinx.serialization.Serializable
  * - UI appearance
  * - Safety & security
  * - Audio & TTS
+ * 
+ * Proto numbers (see ProtoSettingsRepository) are the on-disk identity of
+ * each field: give new fields the next unused number, never reuse one.
+ * Enums are stored by ordinal, so only ever append enum constants.
  */
+@OptIn(ExperimentalSerializationApi::class)
 @Serializable
 data class CarerSettings(
     // ========== USER IDENTITY ==========
     // Default: Generic name, carer should personalize
-    val userName: String = "User",
+    @ProtoNumber(1) val userName: String = "User",
     // Default: Minimal features for safety
-    val featureLevel: FeatureLevel = FeatureLevel.MINIMAL,
+    @ProtoNumber(2) val featureLevel: FeatureLevel = FeatureLevel.MINIMAL,
     
     // ========== CONTACTS ==========
     // Default: No primary contact (carer must set up)
-    val primaryContactId: Long? = null,
+    @ProtoNumber(3) val primaryContactId: Long? = null,
     
     // ========== HOME SCREEN LAYOUT ==========
     // Each setting is discrete for individual remote sync and paywall gating
-    val homeMaxButtons: Int = 4,                    // 1-6 contact buttons on home screen
-    val homeShowEmergencyButton: Boolean = true,    // SAFE: Emergency always visible
-    val homeShowMissedCallsButton: Boolean = false, // Level 2+: Show missed calls list button
-    val homeShowContactsListButton: Boolean = false,// Level 2+: Show contacts list button
-    val homeMissedCallsButtonColor: Long? = null,   // ARGB, null = theme default
-    val homeContactsListButtonColor: Long? = null,  // ARGB, null = theme default
+    @ProtoNumber(4) val homeMaxButtons: Int = 4,                    // 1-6 contact buttons on home screen
+    @ProtoNumber(5) val homeShowEmergencyButton: Boolean = true,    // SAFE: Emergency always visible
+    @ProtoNumber(6) val homeShowMissedCallsButton: Boolean = false, // Level 2+: Show missed calls list button
+    @ProtoNumber(7) val homeShowContactsListButton: Boolean = false,// Level 2+: Show contacts list button
+    @ProtoNumber(8) val homeMissedCallsButtonColor: Long? = null,   // ARGB, null = theme default
+    @ProtoNumber(9) val homeContactsListButtonColor: Long? = null,  // ARGB, null = theme default
     
     // ========== CALL HANDLING ==========
     // SECURITY CRITICAL: Auto-answer MUST default to false
     // If enabled, anyone could listen without user consent
-    val autoAnswerEnabled: Boolean = false,
+    @ProtoNumber(10) val autoAnswerEnabled: Boolean = false,
     // Default: No contacts have auto-answer (even if enabled globally)
-    val autoAnswerContacts: Set<Long> = emptySet(),
-    val autoAnswerDelaySeconds: Int = 3,  // 1-10 seconds before auto-answer
+    @ProtoNumber(11) val autoAnswerContacts: Set<Long> = emptySet(),
+    @ProtoNumber(12) val autoAnswerDelaySeconds: Int = 3,  // 1-10 seconds before auto-answer
     // ACCESSIBILITY: Speakerphone on by default for ease of use
-    val speakerphoneAlwaysOn: Boolean = true,
-    val speakerVolume: Int = 80,  // 0-100 percent
+    @ProtoNumber(13) val speakerphoneAlwaysOn: Boolean = true,
+    @ProtoNumber(14) val speakerVolume: Int = 80,  // 0-100 percent
     // SAFETY: Reject unknown calls by default (scam protection)
-    val rejectUnknownCalls: Boolean = true,
+    @ProtoNumber(15) val rejectUnknownCalls: Boolean = true,
     
     // ========== MISSED CALL NAGGING ==========
     // SAFE: Reminders on - helps user return important calls
-    val missedCallNagEnabled: Boolean = true,
-    val missedCallNagInterval: MissedCallNagInterval = MissedCallNagInterval.IMMEDIATE_THEN_MINUTE,
-    val missedCallNagOnlyCarers: Boolean = true,  // Only nag for carer contacts
-    val missedCallNagSound: NagSound = NagSound.TANNOY_BINGBONG,
+    @ProtoNumber(16) val missedCallNagEnabled: Boolean = true,
+    @ProtoNumber(17) val missedCallNagInterval: MissedCallNagInterval = MissedCallNagInterval.IMMEDIATE_THEN_MINUTE,
+    @ProtoNumber(18) val missedCallNagOnlyCarers: Boolean = true,  // Only nag for carer contacts
+    @ProtoNumber(19) val missedCallNagSound: NagSound = NagSound.TANNOY_BINGBONG,
     
     // ========== INTERACTION CONFIG ==========
     // Default: Safe interaction settings (see InteractionConfig for details)
-    val interaction: InteractionConfig = InteractionConfig(),
+    @ProtoNumber(20) val interaction: InteractionConfig = InteractionConfig(),
     
     // ========== UI APPEARANCE ==========
     // Default: High contrast for accessibility
-    val ui: UIConfig = UIConfig(),
+    @ProtoNumber(21) val ui: UIConfig = UIConfig(),
     
     // ========== AUDIO & TTS ==========
     // ACCESSIBILITY: TTS on by default for audio-first experience
-    val ttsEnabled: Boolean = true,
-    val ttsSpeed: Float = 1.0f,  // 0.5 - 2.0
-    val ttsVolume: Int = 100,    // Full volume for hearing
-    val ringtone: RingtoneOption = RingtoneOption.OLD_TWOBELL,
-    val ringtoneVolume: Int = 100,  // Full volume
+    @ProtoNumber(22) val ttsEnabled: Boolean = true,
+    @ProtoNumber(23) val ttsSpeed: Float = 1.0f,  // 0.5 - 2.0
+    @ProtoNumber(24) val ttsVolume: Int = 100,    // Full volume for hearing
+    @ProtoNumber(25) val ringtone: RingtoneOption = RingtoneOption.OLD_TWOBELL,
+    @ProtoNumber(26) val ringtoneVolume: Int = 100,  // Full volume
     
     // ========== SAFETY & SECURITY ==========
     // SECURITY: No PIN set - carer must create one on first access
-    val carerPin: String = "",
+    @ProtoNumber(27) val carerPin: String = "",
     // Hidden access: 7 taps on clock (not obvious to user)
-    val settingsAccessTapCount: Int = 7,
-    val inactivityTimeoutSeconds: Int = 120,  // Return to home after inactivity
+    @ProtoNumber(28) val settingsAccessTapCount: Int = 7,
+    @ProtoNumber(29) val inactivityTimeoutSeconds: Int = 120,  // Return to home after inactivity
     
     // ========== EMERGENCY SETTINGS ==========
     // UK default emergency number
-    val emergencyNumber: String = "999",
+    @ProtoNumber(30) val emergencyNumber: String = "999",
     // SAFETY: 3 taps required for emergency (prevents accidental calls)
-    val emergencyTapCount: Int = 3,
+    @ProtoNumber(31) val emergencyTapCount: Int = 3,
     // SAFETY: Test mode ON by default - prevents accidental real calls during setup
-    val emergencyTestMode: Boolean = true,
+    @ProtoNumber(32) val emergencyTestMode: Boolean = true,
     
     // ========== USER EMERGENCY INFO ==========
     // Displayed during emergency call for attending EMTs
-    val userPhotoUri: String? = null,       // Photo for EMT verification
-    val userSurname: String = "",            // Surname for ID verification
-    val userAddress: String = "",            // Where to find the user
-    val userBloodType: String = "",          // A+, B-, O+, etc.
-    val userAllergies: String = "",          // Drug/food allergies
-    val userMedications: String = "",        // Current medications
-    val userMedicalConditions: String = "",  // Relevant conditions (dementia, diabetes, etc.)
-    val userEmergencyNotes: String = "",     // Any other info for EMTs
+    @ProtoNumber(33) val userPhotoUri: String? = null,       // Photo for EMT verification
+    @ProtoNumber(34) val userSurname: String = "",            // Surname for ID verification
+    @ProtoNumber(35) val userAddress: String = "",            // Where to find the user
+    @ProtoNumber(36) val userBloodType: String = "",          // A+, B-, O+, etc.
+    @ProtoNumber(37) val userAllergies: String = "",          // Drug/food allergies
+    @ProtoNumber(38) val userMedications: String = "",        // Current medications
+    @ProtoNumber(39) val userMedicalConditions: String = "",  // Relevant conditions (dementia, diabetes, etc.)
+    @ProtoNumber(40) val userEmergencyNotes: String = "",     // Any other info for EMTs
     
     // Emergency contacts - people to notify in an emergency (not 999)
-    val emergencyContact1Name: String = "",
-    val emergencyContact1Phone: String = "",
-    val emergencyContact2Name: String = "",
-    val emergencyContact2Phone: String = "",
+    @ProtoNumber(41) val emergencyContact1Name: String = "",
+    @ProtoNumber(42) val emergencyContact1Phone: String = "",
+    @ProtoNumber(43) val emergencyContact2Name: String = "",
+    @ProtoNumber(44) val emergencyContact2Phone: String = "",
     
     // ========== KIOSK MODE ==========
     // SAFE: Kiosk OFF by default (requires device owner setup)
-    val kioskModeEnabled: Boolean = false,
-    val allowStatusBar: Boolean = false,
-    val allowNavigationBar: Boolean = false,
+    @ProtoNumber(45) val kioskModeEnabled: Boolean = false,
+    @ProtoNumber(46) val allowStatusBar: Boolean = false,
+    @ProtoNumber(47) val allowNavigationBar: Boolean = false,
     
     // ========== ALWAYS ON MODE ==========
     // For use on charging stand - phone is always visible and ready
     // SAFE: Pinned mode OFF by default (carer must enable)
-    val pinnedModeEnabled: Boolean = false,
+    @ProtoNumber(48) val pinnedModeEnabled: Boolean = false,
     // ACCESSIBILITY: Screen stays on when configured for stand
-    val screenAlwaysOn: Boolean = true,
+    @ProtoNumber(49) val screenAlwaysOn: Boolean = true,
     // SAFE: Volume lock ON to prevent accidental muting
-    val lockVolumeButtons: Boolean = true,
-    val screenBrightness: Int = 80           // 0-100 percent (when controlled)
+    @ProtoNumber(50) val lockVolumeButtons: Boolean = true,
+    @ProtoNumber(51) val screenBrightness: Int = 80,          // 0-100 percent (when controlled)
+    
+    // ========== CALL HISTORY ==========
+    // Older calls are pruned daily (CallLogRetention); their totals are kept
+    @ProtoNumber(52) val callHistoryMaxAgeDays: Int = 365,
+    @ProtoNumber(53) val callHistoryMaxRows: Int = 5_000
 )
 
 /**
@@ -136,61 +148,63 @@ data class CarerSettings(
  * - Some have tremors, need debounce
  * - Some need immediate response, others need confirmation
  */
+@OptIn(ExperimentalSerializationApi::class)
 @Serializable
 data class InteractionConfig(
     // ===== GENERAL TAP BEHAVIOR =====
-    val touchActivation: TouchActivation = TouchActivation.ON_RELEASE,
-    val debounceMs: Int = 300,  // Ignore rapid repeated taps
+    @ProtoNumber(1) val touchActivation: TouchActivation = TouchActivation.ON_RELEASE,
+    @ProtoNumber(2) val debounceMs: Int = 300,  // Ignore rapid repeated taps
     
     // ===== CONTACT BUTTON BEHAVIOR =====
-    val contactTapMode: TapMode = TapMode.SINGLE_TAP,
-    val contactLongPressMs: Int = 500,  // For LONG_PRESS mode
-    val contactConfirmDialog: Boolean = false,  // Show "Call [name]?" dialog
+    @ProtoNumber(3) val contactTapMode: TapMode = TapMode.SINGLE_TAP,
+    @ProtoNumber(4) val contactLongPressMs: Int = 500,  // For LONG_PRESS mode
+    @ProtoNumber(5) val contactConfirmDialog: Boolean = false,  // Show "Call [name]?" dialog
     
     // ===== END CALL BUTTON =====
-    val endCallTapMode: TapMode = TapMode.DOUBLE_TAP,  // Protect against accidental hang-up
-    val endCallLongPressMs: Int = 1000,
+    @ProtoNumber(6) val endCallTapMode: TapMode = TapMode.DOUBLE_TAP,  // Protect against accidental hang-up
+    @ProtoNumber(7) val endCallLongPressMs: Int = 1000,
     
     // ===== EMERGENCY BUTTON =====
-    val emergencyTapMode: TapMode = TapMode.TRIPLE_TAP,
-    val emergencyTapTimeoutMs: Int = 5000,  // Time window for multi-tap
-    val emergencyConfirmScreen: Boolean = true,  // Show confirmation before dialing
+    @ProtoNumber(8) val emergencyTapMode: TapMode = TapMode.TRIPLE_TAP,
+    @ProtoNumber(9) val emergencyTapTimeoutMs: Int = 5000,  // Time window for multi-tap
+    @ProtoNumber(10) val emergencyConfirmScreen: Boolean = true,  // Show confirmation before dialing
     
     // ===== SCREEN EDGE PROTECTION =====
-    val inertBorderEnabled: Boolean = true,
-    val inertBorderWidthDp: Int = 28,  // Dead zone around screen edges
+    @ProtoNumber(11) val inertBorderEnabled: Boolean = true,
+    @ProtoNumber(12) val inertBorderWidthDp: Int = 28,  // Dead zone around screen edges
     
     // ===== IN-CALL PROTECTION =====
-    val lockScreenDuringCall: Boolean = false,  // Prevent any button presses during call
-    val proximityLockEnabled: Boolean = true   // Lock when phone near face
+    @ProtoNumber(13) val lockScreenDuringCall: Boolean = false,  // Prevent any button presses during call
+    @ProtoNumber(14) val proximityLockEnabled: Boolean = true   // Lock when phone near face
 )
 
 /**
  * UI appearance configuration
  */
+@OptIn(ExperimentalSerializationApi::class)
 @Serializable
 data class UIConfig(
     // ===== THEME =====
-    val theme: ThemeOption = ThemeOption.HIGH_CONTRAST_LIGHT,
+    @ProtoNumber(1) val theme: ThemeOption = ThemeOption.HIGH_CONTRAST_LIGHT,
     
     // ===== BUTTON SIZES =====
-    val buttonSize: ButtonSize = ButtonSize.EXTRA_LARGE,
-    val contactPhotoSize: PhotoSize = PhotoSize.LARGE,
+    @ProtoNumber(2) val buttonSize: ButtonSize = ButtonSize.EXTRA_LARGE,
+    @ProtoNumber(3) val contactPhotoSize: PhotoSize = PhotoSize.LARGE,
     
     // ===== HOME SCREEN =====
-    val showClock: Boolean = true,
-    val showDate: Boolean = true,
-    val showBattery: Boolean = true,
-    val clockFormat: ClockFormat = ClockFormat.TWELVE_HOUR,
+    @ProtoNumber(4) val showClock: Boolean = true,
+    @ProtoNumber(5) val showDate: Boolean = true,
+    @ProtoNumber(6) val showBattery: Boolean = true,
+    @ProtoNumber(7) val clockFormat: ClockFormat = ClockFormat.TWELVE_HOUR,
     
     // ===== USER TEXT SIZE =====
     // Controls text/button scaling on USER-facing screens (Home, Call screens)
     // Carer settings screens always use normal size for readability
-    val userTextSize: UserTextSize = UserTextSize.NORMAL,
+    @ProtoNumber(8) val userTextSize: UserTextSize = UserTextSize.NORMAL,
     
     // ===== IN-CALL SCREEN =====
-    val showCallDuration: Boolean = true,
-    val showCallerPhoto: Boolean = true
+    @ProtoNumber(9) val showCallDuration: Boolean = true,
+    @ProtoNumber(10) val showCallerPhoto: Boolean = true
 )
 
 // ========== ENUMS ==========
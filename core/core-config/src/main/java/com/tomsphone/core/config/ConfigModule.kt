@@ -1,30 +1,48 @@
 package com.tomsphone.core.config
 
-import dagger.Binds
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
 import kotlinx.serialization.json.Json
+import javax.inject.Provider
 import javax.inject.Singleton
 
+/**
+ * Settings storage backends
+ */
+enum class SettingsBackend {
+    PREFERENCES,  // One preference key per field (SettingsRepositoryImpl)
+    PROTO         // Single protobuf record (ProtoSettingsRepository)
+}
+
 @Module
 @InstallIn(SingletonComponent::class)
-abstract class ConfigModule {
+object ConfigModule {
+    
+    /**
+     * Which store backs SettingsRepository.
+     * PROTO is the alternative encoding, for comparison. It copies the
+     * preferences over on first launch and leaves them in place, so going
+     * back to PREFERENCES loses nothing from before the switch.
+     */
+    val SETTINGS_BACKEND = SettingsBackend.PREFERENCES
     
-    @Binds
+    @Provides
     @Singleton
-    abstract fun bindSettingsRepository(
-        impl: SettingsRepositoryImpl
-    ): SettingsRepository
+    fun provideSettingsRepository(
+        preferences: Provider<SettingsRepositoryImpl>,
+        proto: Provider<ProtoSettingsRepository>
+    ): SettingsRepository = when (SETTINGS_BACKEND) {
+        SettingsBackend.PREFERENCES -> preferences.get()
+        SettingsBackend.PROTO -> proto.get()
+    }
     
-    companion object {
-        @Provides
-        @Singleton
-        fun provideJson(): Json = Json {
-            ignoreUnknownKeys = true
-            encodeDefaults = true
-        }
+    @Provides
+    @Singleton
+    fun provideJson(): Json = Json {
+        ignoreUnknownKeys = true
+        encodeDefaults = true
     }
 }
 
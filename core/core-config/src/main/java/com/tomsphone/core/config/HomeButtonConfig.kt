@@ -26,7 +26,9 @@ sealed class HomeButtonConfig {
         /** Show "Auto-Answer" warning at bottom of button */
         val showAutoAnswerWarning: Boolean,
         /** Half-width for split button layouts (Level 2+) */
-        val isHalfWidth: Boolean
+        val isHalfWidth: Boolean,
+        /** Contact photo (path or URI) shown on the button, null = name only */
+        val photoUri: String? = null
     ) : HomeButtonConfig()
     
     /**
@@ -0,0 +1,47 @@
+package com.tomsphone.core.config
+
+import android.content.Context
+import androidx.datastore.core.DataMigration
+import androidx.datastore.preferences.preferencesDataStoreFile
+import kotlinx.coroutines.flow.first
+import kotlinx.serialization.json.Json
+
+/**
+ * One-off migration from the "wandas_settings" preferences file
+ * into the proto store
+ * 
+ * Reading the preferences first runs their own SettingsBlobMigration, so
+ * phones still on the old JSON blob are carried over as well.
+ * 
+ * The preferences are left as they are, so switching the backend back to
+ * PREFERENCES is non-destructive (see ConfigModule.SETTINGS_BACKEND).
+ */
+internal class ProtoSettingsMigration(
+    private val context: Context,
+    private val json: Json
+) : DataMigration<StoredSettings> {
+    
+    override suspend fun shouldMigrate(currentData: StoredSettings): Boolean {
+        // Only an empty proto store is ever filled from preferences
+        return currentData == StoredSettingsSerializer.defaultValue &&
+            context.preferencesDataStoreFile(SETTINGS_PREFERENCES_NAME).exists()
+    }
+    
+    override suspend fun migrate(currentData: StoredSettings): StoredSettings {
+        val preferences = context.settingsDataStore.data.first()
+        
+        return StoredSettings(
+            settings = SettingsRepositoryImpl.decodeSettings(
+                json,
+                SettingsRepositoryImpl.storedFields(preferences)
+            ),
+            featureLevel = preferences[SettingsRepositoryImpl.FEATURE_LEVEL_KEY]
+                ?: StoredSettingsSerializer.defaultValue.featureLevel,
+            carerPin = preferences[SettingsRepositoryImpl.CARER_PIN_KEY]
+        )
+    }
+    
+    override suspend fun cleanUp() {
+        // Nothing to do - the preferences stay usable
+    }
+}
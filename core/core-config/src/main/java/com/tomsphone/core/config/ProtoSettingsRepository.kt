@@ -0,0 +1,169 @@
+package com.tomsphone.core.config
+
+import android.content.Context
+import androidx.datastore.core.DataStore
+import androidx.datastore.core.DataStoreFactory
+import androidx.datastore.dataStoreFile
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.serialization.json.Json
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Typed settings store - CarerSettings as one protobuf record
+ * 
+ * Alternative to SettingsRepositoryImpl, selected in ConfigModule
+ * (PREFERENCES is the default).
+ * Settings are read straight into CarerSettings with no text parsing,
+ * and only non-default values take up space on disk.
+ * 
+ * On first use the existing "wandas_settings" preferences are
+ * migrated automatically (see ProtoSettingsMigration).
+ */
+@Singleton
+class ProtoSettingsRepository @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val json: Json
+) : SettingsRepository {
+    
+    private companion object {
+        const val FILE_NAME = "carer_settings.pb"
+    }
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    
+    private val dataStore: DataStore<StoredSettings> = DataStoreFactory.create(
+        serializer = StoredSettingsSerializer,
+        migrations = listOf(ProtoSettingsMigration(context, json)),
+        scope = CoroutineScope(SupervisorJob() + Dispatchers.IO),
+        produceFile = { context.dataStoreFile(FILE_NAME) }
+    )
+    
+    // An unreadable file gives the defaults; stateIn would otherwise stay on null
+    override val settings: StateFlow<CarerSettings?> = dataStore.data
+        .catch { e -> if (e is IOException) emit(StoredSettings()) else throw e }
+        .map { it.settings }
+        .distinctUntilChanged()
+        .stateIn(scope, SharingStarted.Eagerly, null)
+    
+    override fun getSettings(): Flow<CarerSettings> {
+        return settings.filterNotNull()
+    }
+    
+    override suspend fun updateSettings(settings: CarerSettings): Result<Unit> {
+        return runCatching {
+            dataStore.updateData { stored ->
+                stored.copy(
+                    settings = settings,
+                    featureLevel = settings.featureLevel.level,
+                    carerPin = settings.carerPin
+                )
+            }
+        }
+    }
+    
+    /**
+     * The record is rewritten as a whole either way, so the value is
+     * copied straight into the current CarerSettings.
+     */
+    override suspend fun <T> updateField(field: SettingsField<T>, value: T): Result<Unit> {
+        return runCatching {
+            dataStore.updateData { stored -> stored.withField(field, value) }
+        }
+    }
+    
+    override suspend fun <T> updateField(field: SettingsField<T>, transform: (T) -> T): Result<Unit> {
+        return runCatching {
+            dataStore.updateData { stored ->
+                stored.withField(field, transform(field.get(json, stored.settings)))
+            }
+        }
+    }
+    
+    private fun <T> StoredSettings.withField(field: SettingsField<T>, value: T): StoredSettings {
+        val settings = field.set(this.settings, value)
+        
+        // Keep the standalone values in step, as updateSettings does
+        return when (field) {
+            SettingsFields.FEATURE_LEVEL -> copy(settings = settings, featureLevel = settings.featureLevel.level)
+            SettingsFields.CARER_PIN -> copy(settings = settings, carerPin = settings.carerPin)
+            else -> copy(settings = settings)
+        }
+    }
+    
+    override fun getFeatureLevel(): Flow<FeatureLevel> {
+        return dataStore.data
+            .map { FeatureLevel.fromInt(it.featureLevel) }
+            .distinctUntilChanged()
+    }
+    
+    override suspend fun setFeatureLevel(level: FeatureLevel): Result<Unit> {
+        return runCatching {
+            dataStore.updateData { it.copy(featureLevel = level.level) }
+        }
+    }
+    
+    override fun getUserName(): Flow<String> {
+        return getSettings().map { it.userName }.distinctUntilChanged()
+    }
+    
+    override fun isFeatureEnabled(feature: Feature): Flow<Boolean> {
+        return getFeatureLevel().map { currentLevel ->
+            currentLevel.level >= feature.requiredLevel.level
+        }
+    }
+    
+    override fun getMaxContacts(): Flow<Int> {
+        return getFeatureLevel().map { level ->
+            when (level) {
+                FeatureLevel.MINIMAL -> 3  // Up to 3 carers at Level 1
+                FeatureLevel.BASIC -> 4
+                FeatureLevel.STANDARD -> 12
+                FeatureLevel.EXTENDED -> Int.MAX_VALUE
+            }
+        }
+    }
+    
+    /**
+     * SECURITY: Auto-answer is only allowed at Level 2+ (BASIC or higher).
+     * This protects vulnerable Level 1 users from privacy/spoofing risks.
+     */
+    override fun isAutoAnswerAllowed(): Flow<Boolean> {
+        return dataStore.data.map { stored ->
+            // Must be Level 2+ AND have auto-answer enabled
+            stored.featureLevel >= FeatureLevel.BASIC.level && stored.settings.autoAnswerEnabled
+        }.distinctUntilChanged()
+    }
+    
+    override suspend fun verifyPin(hashedPin: String): Boolean {
+        return dataStore.data.first().carerPin == hashedPin
+    }
+    
+    override suspend fun setPin(hashedPin: String): Result<Unit> {
+        return runCatching {
+            dataStore.updateData { it.copy(carerPin = hashedPin) }
+        }
+    }
+    
+    /**
+     * SECURITY: Factory reset - the stored record is replaced with defaults
+     */
+    override suspend fun clearAllSettings(): Result<Unit> {
+        return runCatching {
+            dataStore.updateData { StoredSettingsSerializer.defaultValue }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.tomsphone.core.config
+
+import androidx.datastore.core.DataMigration
+import androidx.datastore.preferences.core.MutablePreferences
+import androidx.datastore.preferences.core.Preferences
+import androidx.datastore.preferences.core.stringPreferencesKey
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.jsonObject
+
+/**
+ * One-off migration from the single "carer_settings" JSON blob
+ * to one key per field (see SettingsRepositoryImpl)
+ * 
+ * Fields are copied over as-is, so nothing needs decoding into CarerSettings.
+ * A blob that can't be parsed is dropped - defaults are used, as before.
+ */
+internal class SettingsBlobMigration : DataMigration<Preferences> {
+    
+    private companion object {
+        val LEGACY_SETTINGS_KEY = stringPreferencesKey("carer_settings")
+    }
+    
+    override suspend fun shouldMigrate(currentData: Preferences): Boolean {
+        return currentData.contains(LEGACY_SETTINGS_KEY)
+    }
+    
+    override suspend fun migrate(currentData: Preferences): Preferences {
+        val migrated: MutablePreferences = currentData.toMutablePreferences()
+        val blob = migrated.remove(LEGACY_SETTINGS_KEY) ?: return migrated
+        
+        val fields = runCatching { Json.parseToJsonElement(blob).jsonObject }.getOrNull()
+        fields?.forEach { (name, value) ->
+            val key = SettingsRepositoryImpl.fieldKey(name)
+            // Never overwrite a field already stored individually
+            if (!migrated.contains(key)) {
+                migrated[key] = value.toString()
+            }
+        }
+        return migrated.toPreferences()
+    }
+    
+    override suspend fun cleanUp() {
+        // Nothing to clean up - the blob key is removed in migrate()
+    }
+}
@@ -0,0 +1,132 @@
+package com.tomsphone.core.config
+
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.encoding.CompositeDecoder
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.serializer
+
+/**
+ * Typed handle for one top-level CarerSettings field
+ *
+ * Each field is stored under its own DataStore key, so a carer changing
+ * one setting writes just that value (see SettingsRepository.updateField).
+ *
+ * [name] must match the CarerSettings property name - it is the storage
+ * key and the JSON element name, and is checked on creation. [set] copies
+ * a value into that property, for stores that keep CarerSettings whole.
+ */
+class SettingsField<T> internal constructor(
+    val name: String,
+    internal val serializer: KSerializer<T>,
+    internal val set: (CarerSettings, T) -> CarerSettings
+) {
+    init {
+        require(CarerSettings.serializer().descriptor.getElementIndex(name) != CompositeDecoder.UNKNOWN_NAME) {
+            "Unknown CarerSettings field: $name"
+        }
+    }
+
+    /**
+     * This field's value in [settings], read through its JSON element
+     * ([json] must encode defaults). Allocates - for writes, not reads.
+     */
+    internal fun get(json: Json, settings: CarerSettings): T {
+        val element = json.encodeToJsonElement(CarerSettings.serializer(), settings).jsonObject.getValue(name)
+        return json.decodeFromJsonElement(serializer, element)
+    }
+
+    override fun toString(): String = "SettingsField($name)"
+}
+
+/**
+ * All individually addressable CarerSettings fields
+ *
+ * Nested groups (interaction, ui) are stored as one field each.
+ */
+object SettingsFields {
+
+    private inline fun <reified T> field(
+        name: String,
+        noinline set: (CarerSettings, T) -> CarerSettings
+    ) = SettingsField(name, serializer(), set)
+
+    // ========== USER IDENTITY ==========
+    val USER_NAME = field<String>("userName") { s, v -> s.copy(userName = v) }
+    val FEATURE_LEVEL = field<FeatureLevel>("featureLevel") { s, v -> s.copy(featureLevel = v) }
+
+    // ========== CONTACTS ==========
+    val PRIMARY_CONTACT_ID = field<Long?>("primaryContactId") { s, v -> s.copy(primaryContactId = v) }
+
+    // ========== HOME SCREEN LAYOUT ==========
+    val HOME_MAX_BUTTONS = field<Int>("homeMaxButtons") { s, v -> s.copy(homeMaxButtons = v) }
+    val HOME_SHOW_EMERGENCY_BUTTON = field<Boolean>("homeShowEmergencyButton") { s, v -> s.copy(homeShowEmergencyButton = v) }
+    val HOME_SHOW_MISSED_CALLS_BUTTON = field<Boolean>("homeShowMissedCallsButton") { s, v -> s.copy(homeShowMissedCallsButton = v) }
+    val HOME_SHOW_CONTACTS_LIST_BUTTON = field<Boolean>("homeShowContactsListButton") { s, v -> s.copy(homeShowContactsListButton = v) }
+    val HOME_MISSED_CALLS_BUTTON_COLOR = field<Long?>("homeMissedCallsButtonColor") { s, v -> s.copy(homeMissedCallsButtonColor = v) }
+    val HOME_CONTACTS_LIST_BUTTON_COLOR = field<Long?>("homeContactsListButtonColor") { s, v -> s.copy(homeContactsListButtonColor = v) }
+
+    // ========== CALL HANDLING ==========
+    val AUTO_ANSWER_ENABLED = field<Boolean>("autoAnswerEnabled") { s, v -> s.copy(autoAnswerEnabled = v) }
+    val AUTO_ANSWER_CONTACTS = field<Set<Long>>("autoAnswerContacts") { s, v -> s.copy(autoAnswerContacts = v) }
+    val AUTO_ANSWER_DELAY_SECONDS = field<Int>("autoAnswerDelaySeconds") { s, v -> s.copy(autoAnswerDelaySeconds = v) }
+    val SPEAKERPHONE_ALWAYS_ON = field<Boolean>("speakerphoneAlwaysOn") { s, v -> s.copy(speakerphoneAlwaysOn = v) }
+    val SPEAKER_VOLUME = field<Int>("speakerVolume") { s, v -> s.copy(speakerVolume = v) }
+    val REJECT_UNKNOWN_CALLS = field<Boolean>("rejectUnknownCalls") { s, v -> s.copy(rejectUnknownCalls = v) }
+
+    // ========== MISSED CALL NAGGING ==========
+    val MISSED_CALL_NAG_ENABLED = field<Boolean>("missedCallNagEnabled") { s, v -> s.copy(missedCallNagEnabled = v) }
+    val MISSED_CALL_NAG_INTERVAL = field<MissedCallNagInterval>("missedCallNagInterval") { s, v -> s.copy(missedCallNagInterval = v) }
+    val MISSED_CALL_NAG_ONLY_CARERS = field<Boolean>("missedCallNagOnlyCarers") { s, v -> s.copy(missedCallNagOnlyCarers = v) }
+    val MISSED_CALL_NAG_SOUND = field<NagSound>("missedCallNagSound") { s, v -> s.copy(missedCallNagSound = v) }
+
+    // ========== INTERACTION / UI ==========
+    val INTERACTION = field<InteractionConfig>("interaction") { s, v -> s.copy(interaction = v) }
+    val UI = field<UIConfig>("ui") { s, v -> s.copy(ui = v) }
+
+    // ========== AUDIO & TTS ==========
+    val TTS_ENABLED = field<Boolean>("ttsEnabled") { s, v -> s.copy(ttsEnabled = v) }
+    val TTS_SPEED = field<Float>("ttsSpeed") { s, v -> s.copy(ttsSpeed = v) }
+    val TTS_VOLUME = field<Int>("ttsVolume") { s, v -> s.copy(ttsVolume = v) }
+    val RINGTONE = field<RingtoneOption>("ringtone") { s, v -> s.copy(ringtone = v) }
+    val RINGTONE_VOLUME = field<Int>("ringtoneVolume") { s, v -> s.copy(ringtoneVolume = v) }
+
+    // ========== SAFETY & SECURITY ==========
+    val CARER_PIN = field<String>("carerPin") { s, v -> s.copy(carerPin = v) }
+    val SETTINGS_ACCESS_TAP_COUNT = field<Int>("settingsAccessTapCount") { s, v -> s.copy(settingsAccessTapCount = v) }
+    val INACTIVITY_TIMEOUT_SECONDS = field<Int>("inactivityTimeoutSeconds") { s, v -> s.copy(inactivityTimeoutSeconds = v) }
+
+    // ========== EMERGENCY SETTINGS ==========
+    val EMERGENCY_NUMBER = field<String>("emergencyNumber") { s, v -> s.copy(emergencyNumber = v) }
+    val EMERGENCY_TAP_COUNT = field<Int>("emergencyTapCount") { s, v -> s.copy(emergencyTapCount = v) }
+    val EMERGENCY_TEST_MODE = field<Boolean>("emergencyTestMode") { s, v -> s.copy(emergencyTestMode = v) }
+
+    // ========== USER EMERGENCY INFO ==========
+    val USER_PHOTO_URI = field<String?>("userPhotoUri") { s, v -> s.copy(userPhotoUri = v) }
+    val USER_SURNAME = field<String>("userSurname") { s, v -> s.copy(userSurname = v) }
+    val USER_ADDRESS = field<String>("userAddress") { s, v -> s.copy(userAddress = v) }
+    val USER_BLOOD_TYPE = field<String>("userBloodType") { s, v -> s.copy(userBloodType = v) }
+    val USER_ALLERGIES = field<String>("userAllergies") { s, v -> s.copy(userAllergies = v) }
+    val USER_MEDICATIONS = field<String>("userMedications") { s, v -> s.copy(userMedications = v) }
+    val USER_MEDICAL_CONDITIONS = field<String>("userMedicalConditions") { s, v -> s.copy(userMedicalConditions = v) }
+    val USER_EMERGENCY_NOTES = field<String>("userEmergencyNotes") { s, v -> s.copy(userEmergencyNotes = v) }
+    val EMERGENCY_CONTACT_1_NAME = field<String>("emergencyContact1Name") { s, v -> s.copy(emergencyContact1Name = v) }
+    val EMERGENCY_CONTACT_1_PHONE = field<String>("emergencyContact1Phone") { s, v -> s.copy(emergencyContact1Phone = v) }
+    val EMERGENCY_CONTACT_2_NAME = field<String>("emergencyContact2Name") { s, v -> s.copy(emergencyContact2Name = v) }
+    val EMERGENCY_CONTACT_2_PHONE = field<String>("emergencyContact2Phone") { s, v -> s.copy(emergencyContact2Phone = v) }
+
+    // ========== KIOSK MODE ==========
+    val KIOSK_MODE_ENABLED = field<Boolean>("kioskModeEnabled") { s, v -> s.copy(kioskModeEnabled = v) }
+    val ALLOW_STATUS_BAR = field<Boolean>("allowStatusBar") { s, v -> s.copy(allowStatusBar = v) }
+    val ALLOW_NAVIGATION_BAR = field<Boolean>("allowNavigationBar") { s, v -> s.copy(allowNavigationBar = v) }
+
+    // ========== ALWAYS ON MODE ==========
+    val PINNED_MODE_ENABLED = field<Boolean>("pinnedModeEnabled") { s, v -> s.copy(pinnedModeEnabled = v) }
+    val SCREEN_ALWAYS_ON = field<Boolean>("screenAlwaysOn") { s, v -> s.copy(screenAlwaysOn = v) }
+    val LOCK_VOLUME_BUTTONS = field<Boolean>("lockVolumeButtons") { s, v -> s.copy(lockVolumeButtons = v) }
+    val SCREEN_BRIGHTNESS = field<Int>("screenBrightness") { s, v -> s.copy(screenBrightness = v) }
+
+    // ========== CALL HISTORY ==========
+    val CALL_HISTORY_MAX_AGE_DAYS = field<Int>("callHistoryMaxAgeDays") { s, v -> s.copy(callHistoryMaxAgeDays = v) }
+    val CALL_HISTORY_MAX_ROWS = field<Int>("callHistoryMaxRows") { s, v -> s.copy(callHistoryMaxRows = v) }
+}
@@ -1,6 +1,7 @@
 package com.tomsphone.core.config
 
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.StateFlow
 
 /**
  * Repository for carer settings
@@ -9,8 +10,16 @@ import kotlinx.coroutines.flow.Flow
  */
 interface SettingsRepository {
     
+    /**
+     * Shared hot settings state, decoded once per stored change.
+     * Null only until the first read from storage has completed.
+     */
+    val settings: StateFlow<CarerSettings?>
+    
     /**
      * Get current carer settings
+     * 
+     * Backed by [settings] - collecting this never decodes storage again.
      */
     fun getSettings(): Flow<CarerSettings>
     
@@ -19,6 +28,22 @@ interface SettingsRepository {
      */
     suspend fun updateSettings(settings: CarerSettings): Result<Unit>
     
+    /**
+     * Update a single setting (see SettingsFields)
+     * 
+     * Writes only that field, so a concurrent change to another
+     * setting is never overwritten with a stale copy.
+     */
+    suspend fun <T> updateField(field: SettingsField<T>, value: T): Result<Unit>
+    
+    /**
+     * Update a single setting from its stored value, in one write
+     * 
+     * For changing part of a group (e.g. the theme in SettingsFields.UI)
+     * without overwriting a concurrent change to another part.
+     */
+    suspend fun <T> updateField(field: SettingsField<T>, transform: (T) -> T): Result<Unit>
+    
     /**
      * Get current feature level
      */
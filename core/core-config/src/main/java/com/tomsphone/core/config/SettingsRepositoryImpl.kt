@@ -2,59 +2,136 @@ package com.tomsphone.core.config
 
 import android.content.Context
 import androidx.datastore.core.DataStore
+import androidx.datastore.preferences.core.MutablePreferences
 import androidx.datastore.preferences.core.Preferences
 import androidx.datastore.preferences.core.edit
+import androidx.datastore.preferences.core.emptyPreferences
 import androidx.datastore.preferences.core.intPreferencesKey
 import androidx.datastore.preferences.core.stringPreferencesKey
 import androidx.datastore.preferences.preferencesDataStore
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.catch
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filterNotNull
 import kotlinx.coroutines.flow.firstOrNull
 import kotlinx.coroutines.flow.map
-import kotlinx.serialization.encodeToString
+import kotlinx.coroutines.flow.stateIn
 import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.jsonObject
+import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
 
-private val Context.settingsDataStore: DataStore<Preferences> by preferencesDataStore(
-    name = "wandas_settings"
+internal const val SETTINGS_PREFERENCES_NAME = "wandas_settings"
+
+internal val Context.settingsDataStore: DataStore<Preferences> by preferencesDataStore(
+    name = SETTINGS_PREFERENCES_NAME,
+    produceMigrations = { listOf(SettingsBlobMigration()) }
 )
 
+/**
+ * DataStore-backed settings, one key per CarerSettings field
+ * 
+ * Each top-level field (see SettingsFields) is stored as its own JSON-encoded
+ * preference under "setting.<name>". Changing one setting only encodes that
+ * value, and concurrent edits to different fields can't overwrite each other.
+ * The old single "carer_settings" JSON blob is split up once by
+ * SettingsBlobMigration.
+ */
 @Singleton
 class SettingsRepositoryImpl @Inject constructor(
     @ApplicationContext private val context: Context,
     private val json: Json
 ) : SettingsRepository {
     
-    private companion object {
-        val SETTINGS_KEY = stringPreferencesKey("carer_settings")
+    internal companion object {
+        const val FIELD_KEY_PREFIX = "setting."
         val FEATURE_LEVEL_KEY = intPreferencesKey("feature_level")
         val USER_NAME_KEY = stringPreferencesKey("user_name")
         val CARER_PIN_KEY = stringPreferencesKey("carer_pin")
+        
+        fun fieldKey(name: String) = stringPreferencesKey(FIELD_KEY_PREFIX + name)
+        
+        /**
+         * Raw stored field values: field name -> JSON-encoded value
+         */
+        fun storedFields(preferences: Preferences): Map<String, String> {
+            val fields = HashMap<String, String>()
+            for ((key, value) in preferences.asMap()) {
+                if (key.name.startsWith(FIELD_KEY_PREFIX) && value is String) {
+                    fields[key.name.removePrefix(FIELD_KEY_PREFIX)] = value
+                }
+            }
+            return fields
+        }
+        
+        /**
+         * Assemble CarerSettings from the stored fields.
+         * Missing fields take their defaults; a corrupt field is skipped on its own.
+         */
+        fun decodeSettings(json: Json, fields: Map<String, String>): CarerSettings {
+            if (fields.isEmpty()) return CarerSettings()
+            
+            val settingsObject = buildJsonObject {
+                for ((name, value) in fields) {
+                    try {
+                        put(name, json.parseToJsonElement(value))
+                    } catch (e: Exception) {
+                        // Skip - default will be used for this field
+                    }
+                }
+            }
+            
+            return try {
+                json.decodeFromJsonElement(CarerSettings.serializer(), settingsObject)
+            } catch (e: Exception) {
+                CarerSettings()
+            }
+        }
     }
     
     private val dataStore = context.settingsDataStore
     
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    
+    /**
+     * Single decode per change of the stored fields, shared by every caller.
+     * Started eagerly when the repository is created (at app start).
+     * Writes to the other keys (feature level, PIN) don't trigger a decode.
+     * An unreadable file gives the defaults rather than ending the flow
+     * for good (stateIn would otherwise stay on null).
+     */
+    override val settings: StateFlow<CarerSettings?> = dataStore.data
+        .catch { e -> if (e is IOException) emit(emptyPreferences()) else throw e }
+        .map { preferences -> storedFields(preferences) }
+        .distinctUntilChanged()
+        .map { fields -> decodeSettings(json, fields) }
+        .stateIn(scope, SharingStarted.Eagerly, null)
+    
     override fun getSettings(): Flow<CarerSettings> {
-        return dataStore.data.map { preferences ->
-            val settingsJson = preferences[SETTINGS_KEY]
-            if (settingsJson != null) {
-                try {
-                    json.decodeFromString<CarerSettings>(settingsJson)
-                } catch (e: Exception) {
-                    CarerSettings()
-                }
-            } else {
-                CarerSettings()
-            }
-        }
+        return settings.filterNotNull()
     }
     
     override suspend fun updateSettings(settings: CarerSettings): Result<Unit> {
         return runCatching {
+            val encoded = json.encodeToJsonElement(CarerSettings.serializer(), settings).jsonObject
             dataStore.edit { preferences ->
-                preferences[SETTINGS_KEY] = json.encodeToString(settings)
+                // Only touch fields whose value actually changed
+                for ((name, element) in encoded) {
+                    val key = fieldKey(name)
+                    val value = element.toString()
+                    if (preferences[key] != value) {
+                        preferences[key] = value
+                    }
+                }
                 preferences[FEATURE_LEVEL_KEY] = settings.featureLevel.level
                 preferences[USER_NAME_KEY] = settings.userName
                 preferences[CARER_PIN_KEY] = settings.carerPin
@@ -62,6 +139,36 @@ class SettingsRepositoryImpl @Inject constructor(
         }
     }
     
+    override suspend fun <T> updateField(field: SettingsField<T>, value: T): Result<Unit> {
+        return runCatching {
+            val encoded = json.encodeToString(field.serializer, value)
+            dataStore.edit { preferences ->
+                preferences.putField(field, value, encoded)
+            }
+        }
+    }
+    
+    override suspend fun <T> updateField(field: SettingsField<T>, transform: (T) -> T): Result<Unit> {
+        return runCatching {
+            dataStore.edit { preferences ->
+                // Read inside the edit, so no other write can land in between
+                val value = transform(field.get(json, decodeSettings(json, storedFields(preferences))))
+                preferences.putField(field, value, json.encodeToString(field.serializer, value))
+            }
+        }
+    }
+    
+    private fun <T> MutablePreferences.putField(field: SettingsField<T>, value: T, encoded: String) {
+        this[fieldKey(field.name)] = encoded
+        
+        // Keep the standalone keys in step, as updateSettings does
+        when (field) {
+            SettingsFields.FEATURE_LEVEL -> this[FEATURE_LEVEL_KEY] = (value as FeatureLevel).level
+            SettingsFields.USER_NAME -> this[USER_NAME_KEY] = value as String
+            SettingsFields.CARER_PIN -> this[CARER_PIN_KEY] = value as String
+        }
+    }
+    
     override fun getFeatureLevel(): Flow<FeatureLevel> {
         return dataStore.data.map { preferences ->
             val level = preferences[FEATURE_LEVEL_KEY] ?: 1
@@ -0,0 +1,49 @@
+package com.tomsphone.core.config
+
+import androidx.datastore.core.CorruptionException
+import androidx.datastore.core.Serializer
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.protobuf.ProtoBuf
+import kotlinx.serialization.protobuf.ProtoNumber
+import java.io.InputStream
+import java.io.OutputStream
+
+/**
+ * On-disk record for ProtoSettingsRepository
+ * 
+ * Besides CarerSettings it holds the standalone feature level and PIN,
+ * which the preferences backend keeps under their own keys.
+ */
+@OptIn(ExperimentalSerializationApi::class)
+@Serializable
+internal data class StoredSettings(
+    @ProtoNumber(1) val settings: CarerSettings = CarerSettings(),
+    @ProtoNumber(2) val featureLevel: Int = FeatureLevel.MINIMAL.level,
+    @ProtoNumber(3) val carerPin: String? = null
+)
+
+/**
+ * Protobuf encoding of StoredSettings
+ * 
+ * Default values are not written, so a lightly configured phone
+ * stores only the handful of settings the carer actually changed.
+ */
+@OptIn(ExperimentalSerializationApi::class)
+internal object StoredSettingsSerializer : Serializer<StoredSettings> {
+    
+    override val defaultValue: StoredSettings = StoredSettings()
+    
+    override suspend fun readFrom(input: InputStream): StoredSettings {
+        return try {
+            ProtoBuf.decodeFromByteArray(StoredSettings.serializer(), input.readBytes())
+        } catch (e: SerializationException) {
+            throw CorruptionException("Cannot read stored settings", e)
+        }
+    }
+    
+    override suspend fun writeTo(t: StoredSettings, output: OutputStream) {
+        output.write(ProtoBuf.encodeToByteArray(StoredSettings.serializer(), t))
+    }
+}
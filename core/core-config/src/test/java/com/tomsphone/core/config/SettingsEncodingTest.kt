@@ -0,0 +1,126 @@
+package com.tomsphone.core.config
+
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.protobuf.ProtoBuf
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+@OptIn(ExperimentalSerializationApi::class)
+class SettingsEncodingTest {
+
+    private val json = ConfigModule.provideJson()
+
+    /** A configured phone - a fair number of settings changed, and nothing left null */
+    private val settings = CarerSettings(
+        userName = "Wanda",
+        featureLevel = FeatureLevel.BASIC,
+        primaryContactId = 3,
+        homeMaxButtons = 6,
+        homeShowMissedCallsButton = true,
+        homeMissedCallsButtonColor = 0xFF1565C0,
+        homeContactsListButtonColor = 0xFF2E7D32,
+        autoAnswerEnabled = true,
+        autoAnswerContacts = setOf(1, 3, 7),
+        ringtone = RingtoneOption.entries.last(),
+        carerPin = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+        userPhotoUri = "content://media/external/images/media/42",
+        userSurname = "Smith",
+        userAddress = "12 Orchard Lane, Little Hampton",
+        userMedications = "Donepezil 10mg",
+        emergencyContact1Name = "Ashley",
+        emergencyContact1Phone = "07700 900123",
+        interaction = InteractionConfig(debounceMs = 500, endCallTapMode = TapMode.TRIPLE_TAP),
+        ui = UIConfig(showBattery = false, userTextSize = UserTextSize.entries.last())
+    )
+
+    private val stored = StoredSettings(settings, settings.featureLevel.level, settings.carerPin)
+
+    @Test
+    fun protoRoundTrip() {
+        val bytes = ProtoBuf.encodeToByteArray(StoredSettings.serializer(), stored)
+        assertEquals(stored, ProtoBuf.decodeFromByteArray(StoredSettings.serializer(), bytes))
+    }
+
+    @Test
+    fun defaultsEncodeToNothing() {
+        val bytes = ProtoBuf.encodeToByteArray(StoredSettings.serializer(), StoredSettings())
+        assertEquals(0, bytes.size)
+        assertEquals(StoredSettings(), ProtoBuf.decodeFromByteArray(StoredSettings.serializer(), bytes))
+    }
+
+    @Test
+    fun preferenceFieldsRoundTrip() {
+        assertEquals(settings, SettingsRepositoryImpl.decodeSettings(json, preferenceFields()))
+    }
+
+    @Test
+    fun preferenceFieldsSkipCorruptValue() {
+        val fields = preferenceFields() + ("homeMaxButtons" to "not json")
+        assertEquals(settings.copy(homeMaxButtons = CarerSettings().homeMaxButtons), SettingsRepositoryImpl.decodeSettings(json, fields))
+    }
+
+    /**
+     * Every SettingsField must copy into (and read from) the property it
+     * is named after, or the stores would patch the wrong setting.
+     */
+    @Test
+    fun settingsFieldsSetTheirOwnProperty() {
+        val fields = SettingsFields::class.java.declaredFields
+            .filter { SettingsField::class.java.isAssignableFrom(it.type) }
+            .map { it.isAccessible = true; it.get(SettingsFields) as SettingsField<*> }
+        assertEquals(CarerSettings.serializer().descriptor.elementsCount, fields.size)
+
+        val base = json.encodeToJsonElement(CarerSettings.serializer(), settings).jsonObject
+        for (untyped in fields) {
+            @Suppress("UNCHECKED_CAST")
+            val field = untyped as SettingsField<Any?>
+            val value = otherValue(json.decodeFromJsonElement(field.serializer, base.getValue(field.name)))
+            val patched = json.encodeToJsonElement(CarerSettings.serializer(), field.set(settings, value)).jsonObject
+            val expected = JsonObject(base + (field.name to json.encodeToJsonElement(field.serializer, value)))
+            assertEquals(field.name, expected, patched)
+
+            // And reads it back (updateField with a transform)
+            assertEquals(field.name, value, field.get(json, field.set(settings, value)))
+        }
+    }
+
+    /**
+     * The same settings in each format: all decode back to the same
+     * CarerSettings, and the proto record is a fraction of the JSON size.
+     */
+    @Test
+    fun encodedSizes() {
+        val fields = preferenceFields()
+        val blob = json.encodeToString(CarerSettings.serializer(), settings)
+        val proto = ProtoBuf.encodeToByteArray(StoredSettings.serializer(), stored)
+
+        assertEquals(settings, SettingsRepositoryImpl.decodeSettings(json, fields))
+        assertEquals(settings, json.decodeFromString(CarerSettings.serializer(), blob))
+        assertEquals(settings, ProtoBuf.decodeFromByteArray(StoredSettings.serializer(), proto).settings)
+
+        val fieldBytes = fields.entries.sumOf { it.key.length + it.value.length }
+        assertTrue("proto ${proto.size} bytes, JSON ${blob.length}", proto.size < blob.length / 4)
+        assertTrue("proto ${proto.size} bytes, preference fields $fieldBytes", proto.size < fieldBytes / 2)
+    }
+
+    private fun preferenceFields(): Map<String, String> {
+        return json.encodeToJsonElement(CarerSettings.serializer(), settings).jsonObject
+            .mapValues { (_, value) -> value.toString() }
+    }
+
+    private fun otherValue(value: Any?): Any? = when (value) {
+        is Boolean -> !value
+        is Int -> value + 1
+        is Long -> value + 1
+        is Float -> value + 0.5f
+        is String -> "$value!"
+        is Enum<*> -> value.declaringJavaClass.enumConstants.let { it[(value.ordinal + 1) % it.size] }
+        is Set<*> -> setOf(99L)
+        is InteractionConfig -> value.copy(debounceMs = value.debounceMs + 1)
+        is UIConfig -> value.copy(showClock = !value.showClock)
+        else -> throw IllegalArgumentException("No test value for $value")
+    }
+}
@@ -30,6 +30,11 @@ android {
         jvmTarget = "17"
     }
     
+    testOptions {
+        // android.util.Log in code under test
+        unitTests.isReturnDefaultValues = true
+    }
+    
     room {
         schemaDirectory("$projectDir/schemas")
     }
@@ -39,10 +44,17 @@ dependencies {
     // AndroidX
     implementation(libs.androidx.core.ktx)
     
+    // Lifecycle (CallLogWriter flushes when the app goes to the background)
+    implementation(libs.lifecycle.process)
+    
     // Room
     implementation(libs.room.runtime)
     implementation(libs.room.ktx)
     ksp(libs.room.compiler)
+    implementation(libs.room.paging)
+    
+    // Paging (PagingData is part of the CallLogRepository API)
+    api(libs.paging.common)
     
     // DataStore
     implementation(libs.datastore.preferences)
@@ -54,5 +66,8 @@ dependencies {
     // Hilt
     implementation(libs.hilt.android)
     ksp(libs.hilt.compiler)
+    
+    // Testing
+    testImplementation(libs.junit)
 }
 
@@ -4,12 +4,16 @@ import android.content.Context
 import androidx.room.Room
 import androidx.room.RoomDatabase
 import androidx.sqlite.db.SupportSQLiteDatabase
+import com.tomsphone.core.data.local.ALL_MIGRATIONS
+import com.tomsphone.core.data.local.LocalAllowRuleRepository
 import com.tomsphone.core.data.local.LocalCallLogRepository
 import com.tomsphone.core.data.local.LocalContactRepository
 import com.tomsphone.core.data.local.WandasDatabase
 import com.tomsphone.core.data.local.entity.ContactEntity
+import com.tomsphone.core.data.repository.AllowRuleRepository
 import com.tomsphone.core.data.repository.CallLogRepository
 import com.tomsphone.core.data.repository.ContactRepository
+import com.tomsphone.core.data.util.PhoneNumberUtils
 import dagger.Binds
 import dagger.Module
 import dagger.Provides
@@ -34,6 +38,12 @@ abstract class DataModule {
         impl: LocalCallLogRepository
     ): CallLogRepository
     
+    @Binds
+    @Singleton
+    abstract fun bindAllowRuleRepository(
+        impl: LocalAllowRuleRepository
+    ): AllowRuleRepository
+    
     companion object {
         @Provides
         @Singleton
@@ -45,6 +55,7 @@ abstract class DataModule {
                 WandasDatabase::class.java,
                 "toms_phone_db_v5"  // v5: Added button config fields to contacts
             )
+                .addMigrations(*ALL_MIGRATIONS)
                 .fallbackToDestructiveMigration()
                 .addCallback(SeedDatabaseCallback())
                 .build()
@@ -55,6 +66,12 @@ abstract class DataModule {
         
         @Provides
         fun provideCallLogDao(database: WandasDatabase) = database.callLogDao()
+        
+        @Provides
+        fun provideCallStatsDao(database: WandasDatabase) = database.callStatsDao()
+        
+        @Provides
+        fun provideAllowRuleDao(database: WandasDatabase) = database.allowRuleDao()
     }
 }
 
@@ -84,16 +101,16 @@ private class SeedDatabaseCallback : RoomDatabase.Callback() {
         
         // Seed contacts with all columns including new button config fields
         // Columns: name, phoneNumber, photoUri, priority, isPrimary, contactType, createdAt, updatedAt,
-        //          buttonColor, autoAnswerEnabled, buttonPosition, isHalfWidth
+        //          buttonColor, autoAnswerEnabled, buttonPosition, isHalfWidth, normalizedSuffix, numberKey
         
         db.execSQL(
-            "INSERT INTO contacts (name, phoneNumber, photoUri, priority, isPrimary, contactType, createdAt, updatedAt, buttonColor, autoAnswerEnabled, buttonPosition, isHalfWidth) " +
-            "VALUES ('Ashley', '07597086211', NULL, 1, 1, 'CARER', $now, $now, NULL, 0, 0, 0)"
+            "INSERT INTO contacts (name, phoneNumber, photoUri, priority, isPrimary, contactType, createdAt, updatedAt, buttonColor, autoAnswerEnabled, buttonPosition, isHalfWidth, normalizedSuffix, numberKey) " +
+            "VALUES ('Ashley', '07597086211', NULL, 1, 1, 'CARER', $now, $now, NULL, 0, 0, 0, '${PhoneNumberUtils.getMatchSuffix("07597086211")}', ${PhoneNumberUtils.numberKey("07597086211")})"
         )
         
         db.execSQL(
-            "INSERT INTO contacts (name, phoneNumber, photoUri, priority, isPrimary, contactType, createdAt, updatedAt, buttonColor, autoAnswerEnabled, buttonPosition, isHalfWidth) " +
-            "VALUES ('Dev', '07510940646', NULL, 2, 0, 'CARER', $now, $now, NULL, 0, 1, 0)"
+            "INSERT INTO contacts (name, phoneNumber, photoUri, priority, isPrimary, contactType, createdAt, updatedAt, buttonColor, autoAnswerEnabled, buttonPosition, isHalfWidth, normalizedSuffix, numberKey) " +
+            "VALUES ('Dev', '07510940646', NULL, 2, 0, 'CARER', $now, $now, NULL, 0, 1, 0, '${PhoneNumberUtils.getMatchSuffix("07510940646")}', ${PhoneNumberUtils.numberKey("07510940646")})"
         )
     }
 }
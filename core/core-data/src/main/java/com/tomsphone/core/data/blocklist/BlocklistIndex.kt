@@ -0,0 +1,167 @@
+package com.tomsphone.core.data.blocklist
+
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import java.io.DataInputStream
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+
+/**
+ * Read-only view of a nuisance-number list file
+ * 
+ * The file is memory-mapped rather than read, so the OS pages in only the
+ * parts a lookup touches: a list of millions of numbers costs almost no heap
+ * and opens instantly. Layout (little-endian):
+ * - Header ([HEADER_BYTES]): magic, version, entry count, Bloom filter bits, hash count, import time
+ * - Bloom filter: [BITS_PER_ENTRY] bits per entry - most numbers are ruled out here
+ * - Entries: sorted, unique PhoneNumberUtils.numberKey values, binary-searched
+ * 
+ * [contains] does no allocation and no I/O beyond page faults, so it is
+ * safe on the binder thread.
+ */
+class BlocklistIndex private constructor(
+    private val buffer: ByteBuffer,
+    /** Number of blocked numbers */
+    val size: Long,
+    private val bloomBits: Long,
+    private val hashes: Int,
+    /** When the list was imported (epoch millis) */
+    val importedAt: Long
+) {
+    
+    private val keysOffset = HEADER_BYTES + (bloomBits / 8).toInt()
+    
+    /**
+     * True if [key] (PhoneNumberUtils.numberKey) is on the list
+     */
+    fun contains(key: Long): Boolean {
+        if (key == PhoneNumberUtils.NO_KEY || size == 0L) return false
+        if (!mightContain(key)) return false
+        
+        var low = 0L
+        var high = size - 1
+        while (low <= high) {
+            val mid = (low + high) ushr 1
+            val value = buffer.getLong(keysOffset + (mid shl 3).toInt())
+            when {
+                value < key -> low = mid + 1
+                value > key -> high = mid - 1
+                else -> return true
+            }
+        }
+        return false
+    }
+    
+    private fun mightContain(key: Long): Boolean {
+        val h1 = mix(key)
+        val h2 = mix(h1) or 1L
+        for (i in 0 until hashes) {
+            val bit = bloomBit(h1, h2, i, bloomBits)
+            val word = buffer.getLong(HEADER_BYTES + ((bit ushr 6) shl 3).toInt())
+            if ((word ushr (bit and 63).toInt()) and 1L == 0L) return false
+        }
+        return true
+    }
+    
+    override fun toString(): String = "BlocklistIndex(size=$size, bloomBits=$bloomBits, hashes=$hashes)"
+    
+    companion object {
+        private const val MAGIC = 0x4C425057  // "WPBL"
+        private const val VERSION = 1
+        private const val HEADER_BYTES = 64
+        
+        // ~1% false positives, each costing one binary search
+        private const val BITS_PER_ENTRY = 10
+        private const val HASHES = 7
+        
+        private const val IO_BUFFER = 64 * 1024
+        
+        /**
+         * Map an existing list file. Throws if it is missing, truncated or
+         * from another format version.
+         */
+        fun open(file: File): BlocklistIndex {
+            RandomAccessFile(file, "r").use { raf ->
+                val length = raf.length()
+                require(length >= HEADER_BYTES && length <= Int.MAX_VALUE) { "Bad blocklist size $length" }
+                
+                // The mapping stays valid after the channel is closed
+                val buffer = raf.channel.map(FileChannel.MapMode.READ_ONLY, 0, length)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                require(buffer.getInt(0) == MAGIC) { "Not a blocklist file" }
+                require(buffer.getInt(4) == VERSION) { "Unsupported blocklist version ${buffer.getInt(4)}" }
+                
+                val count = buffer.getLong(8)
+                val bloomBits = buffer.getLong(16)
+                val hashes = buffer.getInt(24)
+                require(count >= 0 && bloomBits > 0 && bloomBits % 64 == 0L && hashes in 1..16) {
+                    "Corrupt blocklist header"
+                }
+                require(length == HEADER_BYTES + bloomBits / 8 + count * 8) { "Truncated blocklist" }
+                
+                return BlocklistIndex(buffer, count, bloomBits, hashes, buffer.getLong(32))
+            }
+        }
+        
+        /**
+         * Build a list file at [target] from [sortedKeys]: [count] sorted,
+         * unique keys written with DataOutputStream.writeLong.
+         * 
+         * The output is mapped read-write, so Bloom bits are set in place
+         * without holding the filter on the heap.
+         */
+        internal fun write(target: File, sortedKeys: File, count: Long, importedAt: Long) {
+            val bloomBits = ((count * BITS_PER_ENTRY + 63) / 64 * 64).coerceAtLeast(64)
+            val length = HEADER_BYTES + bloomBits / 8 + count * 8
+            require(length <= Int.MAX_VALUE) { "List too large ($count numbers)" }
+            
+            RandomAccessFile(target, "rw").use { raf ->
+                raf.setLength(0)
+                raf.setLength(length)  // Zero-filled, so the Bloom filter starts empty
+                val mapped = raf.channel.map(FileChannel.MapMode.READ_WRITE, 0, length)
+                val out = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                
+                out.putInt(0, MAGIC)
+                out.putInt(4, VERSION)
+                out.putLong(8, count)
+                out.putLong(16, bloomBits)
+                out.putInt(24, HASHES)
+                out.putLong(32, importedAt)
+                
+                val keysOffset = HEADER_BYTES + (bloomBits / 8).toInt()
+                DataInputStream(sortedKeys.inputStream().buffered(IO_BUFFER)).use { input ->
+                    for (i in 0 until count) {
+                        val key = input.readLong()
+                        out.putLong(keysOffset + (i shl 3).toInt(), key)
+                        
+                        val h1 = mix(key)
+                        val h2 = mix(h1) or 1L
+                        for (j in 0 until HASHES) {
+                            val bit = bloomBit(h1, h2, j, bloomBits)
+                            val index = HEADER_BYTES + ((bit ushr 6) shl 3).toInt()
+                            out.putLong(index, out.getLong(index) or (1L shl (bit and 63).toInt()))
+                        }
+                    }
+                }
+                mapped.force()
+            }
+        }
+        
+        /** Double hashing: bit i = h1 + i * h2 (mod bits) */
+        private fun bloomBit(h1: Long, h2: Long, i: Int, bits: Long): Long =
+            ((h1 + i * h2) and Long.MAX_VALUE) % bits
+        
+        /** MurmurHash3 fmix64 - keys are too regular to use as-is */
+        private fun mix(key: Long): Long {
+            var h = key
+            h = h xor (h ushr 33)
+            h *= -0xae502812aa7333L
+            h = h xor (h ushr 33)
+            h *= -0x3b314601e57a13adL
+            h = h xor (h ushr 33)
+            return h
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.tomsphone.core.data.blocklist
+
+import android.content.Context
+import android.content.Intent
+import android.net.Uri
+import android.os.SystemClock
+import android.util.Log
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.last
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import java.io.Closeable
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.util.PriorityQueue
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Progress of a blocklist import (see NuisanceBlocklist.import)
+ */
+data class BlocklistImportProgress(
+    val linesRead: Long = 0,
+    val entries: Long = 0,       // Unique numbers in the new list
+    val duplicates: Long = 0,    // Repeated in the file
+    val invalid: Long = 0,       // Lines with no usable number
+    val finished: Boolean = false,
+    val error: String? = null
+)
+
+/**
+ * Nuisance-number blocklist used by call screening
+ * 
+ * Holds a published scam/nuisance list of up to tens of millions of numbers
+ * as a memory-mapped [BlocklistIndex], so screening can reject listed
+ * callers even when unknown calls are allowed, without the list ever
+ * being loaded onto the heap.
+ * 
+ * Lists are imported from a local text file: one number per line, '#'
+ * comment lines, anything after a ',' or ';' ignored (so simple CSVs work).
+ * Import is an external sort - fixed-size sorted runs on disk, then a
+ * k-way merge - so memory use doesn't grow with the list. The new index
+ * replaces the old one atomically; screening never sees a partial list.
+ * 
+ * National numbers in the file are keyed with the home country, so the
+ * file is remembered and re-read if that changes (see [reimport]).
+ */
+@Singleton
+class NuisanceBlocklist @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+    
+    private companion object {
+        const val TAG = "NuisanceBlocklist"
+        const val DIR = "blocklist"
+        const val INDEX_FILE = "nuisance.idx"
+        const val MERGED_FILE = "merged.tmp"
+        const val PREFS_NAME = "nuisance_blocklist"
+        const val KEY_SOURCE = "source_uri"
+        
+        // Keys sorted in memory per run (4MB)
+        const val RUN_SIZE = 1 shl 19
+        
+        const val MIN_NUMBER_DIGITS = 6
+        const val IO_BUFFER = 64 * 1024
+    }
+    
+    private val dir = File(context.filesDir, DIR)
+    private val indexFile = File(dir, INDEX_FILE)
+    private val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val importMutex = Mutex()
+    
+    private val _index = MutableStateFlow<BlocklistIndex?>(null)
+    
+    /**
+     * Current list, or null if none has been imported (or it is still opening)
+     */
+    val index: StateFlow<BlocklistIndex?> = _index.asStateFlow()
+    
+    init {
+        scope.launch { load() }
+    }
+    
+    private fun load() {
+        if (!indexFile.exists()) return
+        runCatching { BlocklistIndex.open(indexFile) }
+            .onSuccess { opened ->
+                // An import that finished first wins
+                if (_index.compareAndSet(null, opened)) Log.d(TAG, "Loaded $opened")
+            }
+            .onFailure { e ->
+                Log.e(TAG, "Discarding unreadable blocklist", e)
+                indexFile.delete()
+            }
+    }
+    
+    /**
+     * Replace the list with the numbers in [uri]. The old list stays in
+     * use until the new one is complete, and is kept if the import fails.
+     */
+    fun import(uri: Uri): Flow<BlocklistImportProgress> = flow {
+        importMutex.withLock {
+            var progress = BlocklistImportProgress()
+            // catch only sees failures of the import itself, not of the collector
+            emitAll(
+                importSteps(uri)
+                    .onEach { progress = it }
+                    .catch { e ->
+                        if (e is CancellationException) throw e
+                        Log.e(TAG, "Import failed", e)
+                        emit(progress.copy(finished = true, error = e.message ?: "Import failed"))
+                    }
+            )
+        }
+    }.flowOn(Dispatchers.IO)
+    
+    /**
+     * The import itself: read into sorted runs, merge, write the index.
+     * Throws on failure; temporary files are always removed.
+     */
+    private fun importSteps(uri: Uri): Flow<BlocklistImportProgress> = flow {
+        var progress = BlocklistImportProgress()
+        emit(progress)
+        
+        val start = SystemClock.elapsedRealtime()
+        val runs = mutableListOf<File>()
+        val merged = File(dir, MERGED_FILE)
+        val temp = File(dir, "$INDEX_FILE.tmp")
+        try {
+            dir.mkdirs()
+            val input = context.contentResolver.openInputStream(uri)
+                ?: throw IllegalStateException("Cannot open $uri")
+            
+            val chunk = LongArray(RUN_SIZE)
+            var filled = 0
+            var lines = 0L
+            var invalid = 0L
+            var valid = 0L
+            input.bufferedReader().use { reader ->
+                while (true) {
+                    val line = reader.readLine() ?: break
+                    lines++
+                    if (line.isBlank() || line.trimStart().startsWith('#')) continue
+                    
+                    val key = PhoneNumberUtils.numberKey(line)
+                    if (PhoneNumberUtils.keyLength(key) < MIN_NUMBER_DIGITS) {
+                        invalid++
+                        continue
+                    }
+                    chunk[filled++] = key
+                    valid++
+                    
+                    if (filled == RUN_SIZE) {
+                        runs.add(writeRun(chunk, filled, runs.size))
+                        filled = 0
+                        progress = progress.copy(linesRead = lines, invalid = invalid)
+                        emit(progress)
+                    }
+                }
+            }
+            if (filled > 0) runs.add(writeRun(chunk, filled, runs.size))
+            require(runs.isNotEmpty()) { "No phone numbers found in file" }
+            
+            val unique = merge(runs, merged)
+            BlocklistIndex.write(temp, merged, unique, System.currentTimeMillis())
+            check(temp.renameTo(indexFile)) { "Failed to move blocklist into place" }
+            _index.value = BlocklistIndex.open(indexFile)
+            rememberSource(uri)
+            
+            progress = progress.copy(
+                linesRead = lines,
+                entries = unique,
+                duplicates = valid - unique,
+                invalid = invalid,
+                finished = true
+            )
+            Log.d(TAG, "Import finished in ${SystemClock.elapsedRealtime() - start}ms: $progress")
+            emit(progress)
+        } finally {
+            runs.forEach { it.delete() }
+            merged.delete()
+            temp.delete()
+        }
+    }
+    
+    /**
+     * Re-read the last imported file, so its national numbers are keyed
+     * with the current home country. The current list is kept if the file
+     * can't be read any more.
+     */
+    suspend fun reimport() {
+        val source = prefs.getString(KEY_SOURCE, null) ?: return
+        val result = import(Uri.parse(source)).last()
+        if (result.error != null) {
+            Log.w(TAG, "Could not re-read blocklist, keeping the current one: ${result.error}")
+        }
+    }
+    
+    private fun rememberSource(uri: Uri) {
+        // Survives restarts for files picked with OpenDocument; other URIs may not be readable later
+        runCatching { context.contentResolver.takePersistableUriPermission(uri, Intent.FLAG_GRANT_READ_URI_PERMISSION) }
+        prefs.edit().putString(KEY_SOURCE, uri.toString()).apply()
+    }
+    
+    /**
+     * Remove the list - screening goes back to contacts and settings only
+     */
+    suspend fun clear() = withContext(Dispatchers.IO) {
+        importMutex.withLock {
+            _index.value = null
+            indexFile.delete()
+            prefs.edit().remove(KEY_SOURCE).apply()
+            Log.d(TAG, "Blocklist removed")
+        }
+    }
+    
+    // ========== EXTERNAL SORT ==========
+    
+    /**
+     * Sort the first [count] keys of [chunk] and write them, without
+     * repeats, to a run file.
+     */
+    private fun writeRun(chunk: LongArray, count: Int, index: Int): File {
+        chunk.sort(0, count)
+        val file = File(dir, "run$index.tmp")
+        DataOutputStream(file.outputStream().buffered(IO_BUFFER)).use { out ->
+            for (i in 0 until count) {
+                if (i == 0 || chunk[i] != chunk[i - 1]) out.writeLong(chunk[i])
+            }
+        }
+        return file
+    }
+    
+    /**
+     * Merge sorted runs into [target], dropping keys repeated across runs.
+     * Returns the number of keys written.
+     */
+    private fun merge(runs: List<File>, target: File): Long {
+        val readers = runs.map { RunReader(it) }
+        try {
+            val queue = PriorityQueue<RunReader>(runs.size) { a, b -> a.head.compareTo(b.head) }
+            readers.filterTo(queue) { it.advance() }
+            
+            var count = 0L
+            var last = PhoneNumberUtils.NO_KEY  // Never a stored key
+            DataOutputStream(target.outputStream().buffered(IO_BUFFER)).use { out ->
+                while (queue.isNotEmpty()) {
+                    val reader = queue.poll()!!
+                    if (reader.head != last) {
+                        out.writeLong(reader.head)
+                        last = reader.head
+                        count++
+                    }
+                    if (reader.advance()) queue.add(reader)
+                }
+            }
+            return count
+        } finally {
+            readers.forEach { it.close() }
+        }
+    }
+    
+    /**
+     * Sequential reader over one run file
+     */
+    private class RunReader(file: File) : Closeable {
+        private val input = DataInputStream(file.inputStream().buffered(IO_BUFFER))
+        private var remaining = file.length() / 8
+        
+        var head = 0L
+            private set
+        
+        fun advance(): Boolean {
+            if (remaining == 0L) return false
+            head = input.readLong()
+            remaining--
+            return true
+        }
+        
+        override fun close() = input.close()
+    }
+}
@@ -0,0 +1,244 @@
+package com.tomsphone.core.data.importer
+
+import java.io.BufferedReader
+
+/**
+ * A contact read from an import file (before normalization)
+ */
+data class ImportedContact(
+    val name: String,
+    val phoneNumber: String
+)
+
+/**
+ * Import file formats
+ */
+enum class ContactFileFormat {
+    VCARD,  // vCard 3.0 / 4.0 (.vcf)
+    CSV     // Header row with name and phone columns (e.g. Google / Outlook export)
+}
+
+/**
+ * Streaming parsers for contact files
+ * 
+ * Both read the file a record at a time and yield contacts lazily, so
+ * memory use doesn't depend on the size of the address book.
+ */
+object ContactFileParser {
+    
+    /**
+     * Guess the format from the MIME type, or else from the first line.
+     * The reader must support mark/reset (BufferedReader does).
+     */
+    fun detectFormat(mimeType: String?, reader: BufferedReader): ContactFileFormat {
+        when {
+            mimeType == null -> Unit
+            mimeType.contains("vcard", ignoreCase = true) -> return ContactFileFormat.VCARD
+            mimeType.contains("csv", ignoreCase = true) ||
+                mimeType.contains("comma-separated", ignoreCase = true) -> return ContactFileFormat.CSV
+        }
+        
+        reader.mark(PEEK_CHARS)
+        val head = CharArray(PEEK_CHARS)
+        val read = reader.read(head)
+        reader.reset()
+        
+        val start = if (read > 0) String(head, 0, read).trimStart('\uFEFF', ' ', '\r', '\n', '\t') else ""
+        return if (start.startsWith("BEGIN:VCARD", ignoreCase = true)) ContactFileFormat.VCARD else ContactFileFormat.CSV
+    }
+    
+    fun parse(format: ContactFileFormat, reader: BufferedReader): Sequence<ImportedContact> = when (format) {
+        ContactFileFormat.VCARD -> parseVCard(reader)
+        ContactFileFormat.CSV -> parseCsv(reader)
+    }
+    
+    private const val PEEK_CHARS = 256
+    
+    // ========== VCARD ==========
+    
+    /**
+     * vCard 3/4: one contact per BEGIN:VCARD .. END:VCARD.
+     * Name from FN (or N), number from the preferred TEL (else mobile, else first).
+     */
+    fun parseVCard(reader: BufferedReader): Sequence<ImportedContact> = sequence {
+        var fullName: String? = null
+        var structuredName: String? = null
+        var phone: String? = null
+        var phoneRank = -1
+        
+        for (line in unfoldedLines(reader)) {
+            val colon = line.indexOf(':')
+            if (colon <= 0) continue
+            
+            // "item1.TEL;TYPE=CELL" -> property TEL, params TYPE=CELL
+            val head = line.substring(0, colon)
+            val value = line.substring(colon + 1)
+            val params = head.split(';')
+            val property = params[0].substringAfterLast('.').uppercase()
+            
+            when (property) {
+                "BEGIN" -> {
+                    fullName = null
+                    structuredName = null
+                    phone = null
+                    phoneRank = -1
+                }
+                "FN" -> fullName = unescape(value).trim()
+                "N" -> {
+                    // Family;Given;Additional;Prefix;Suffix
+                    val parts = value.split(';').map { unescape(it).trim() }
+                    structuredName = listOfNotNull(parts.getOrNull(1), parts.getOrNull(0))
+                        .filter { it.isNotEmpty() }
+                        .joinToString(" ")
+                }
+                "TEL" -> {
+                    val types = params.drop(1).joinToString(";").uppercase()
+                    val rank = when {
+                        "PREF" in types -> 2
+                        "CELL" in types -> 1
+                        else -> 0
+                    }
+                    if (rank > phoneRank) {
+                        phone = unescape(value).removePrefix("tel:").trim()
+                        phoneRank = rank
+                    }
+                }
+                "END" -> {
+                    val name = fullName?.takeIf { it.isNotEmpty() } ?: structuredName
+                    val number = phone
+                    if (!name.isNullOrEmpty() && !number.isNullOrEmpty()) {
+                        yield(ImportedContact(name, number))
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Lines with RFC 6350 folding undone (a leading space/tab continues the previous line)
+     */
+    private fun unfoldedLines(reader: BufferedReader): Sequence<String> = sequence {
+        var current: StringBuilder? = null
+        while (true) {
+            val line = reader.readLine() ?: break
+            if ((line.startsWith(" ") || line.startsWith("\t")) && current != null) {
+                current.append(line, 1, line.length)
+            } else {
+                current?.let { yield(it.toString()) }
+                current = StringBuilder(line)
+            }
+        }
+        current?.let { yield(it.toString()) }
+    }
+    
+    private fun unescape(value: String): String {
+        if ('\\' !in value) return value
+        return value
+            .replace("\\n", " ")
+            .replace("\\N", " ")
+            .replace("\\,", ",")
+            .replace("\\;", ";")
+            .replace("\\\\", "\\")
+    }
+    
+    // ========== CSV ==========
+    
+    /**
+     * CSV with a header row. Name from a "name" column (or first + last
+     * name columns), number from the first phone-like column.
+     */
+    fun parseCsv(reader: BufferedReader): Sequence<ImportedContact> = sequence {
+        val header = readCsvRecord(reader, ',')?.map { it.trim().trimStart('\uFEFF').lowercase() } ?: return@sequence
+        
+        // Semicolon-separated export (common with European locales)
+        val delimiter: Char
+        val columns: List<String>
+        if (header.size == 1 && ';' in header[0]) {
+            delimiter = ';'
+            columns = header[0].split(';').map { it.trim() }
+        } else {
+            delimiter = ','
+            columns = header
+        }
+        
+        val nameColumn = columns.indexOfFirst { it == "name" || it == "full name" || it == "display name" }
+            .takeIf { it >= 0 }
+            ?: columns.indexOfFirst { "name" in it && "first" !in it && "last" !in it && "given" !in it && "family" !in it }
+        val firstColumn = columns.indexOfFirst { "first name" in it || "given name" in it }
+        val lastColumn = columns.indexOfFirst { "last name" in it || "family name" in it }
+        val phoneColumns = columns.indices.filter { i ->
+            val column = columns[i]
+            "phone" in column || "mobile" in column || "tel" in column || column == "number"
+        }
+        // Google exports: "Phone 1 - Type", "Phone 1 - Value"
+        val phoneColumn = phoneColumns.firstOrNull { "value" in columns[it] } ?: phoneColumns.firstOrNull() ?: return@sequence
+        
+        while (true) {
+            val record = readCsvRecord(reader, delimiter) ?: break
+            
+            val name = record.getOrNull(nameColumn)?.trim()?.takeIf { it.isNotEmpty() }
+                ?: listOfNotNull(record.getOrNull(firstColumn), record.getOrNull(lastColumn))
+                    .map { it.trim() }
+                    .filter { it.isNotEmpty() }
+                    .joinToString(" ")
+            
+            // Multiple numbers in one cell are separated by " ::: " (Google)
+            val phone = record.getOrNull(phoneColumn)?.substringBefore(":::")?.trim().orEmpty()
+            
+            if (name.isNotEmpty() && phone.isNotEmpty()) {
+                yield(ImportedContact(name, phone))
+            }
+        }
+    }
+    
+    /**
+     * Read one CSV record (RFC 4180: quoted fields may contain the
+     * delimiter, newlines and "" escapes). Null at end of input.
+     */
+    private fun readCsvRecord(reader: BufferedReader, delimiter: Char): List<String>? {
+        val fields = ArrayList<String>()
+        val field = StringBuilder()
+        var inQuotes = false
+        var sawAny = false
+        
+        while (true) {
+            val c = reader.read()
+            if (c == -1) {
+                if (!sawAny) return null
+                fields.add(field.toString())
+                return fields
+            }
+            sawAny = true
+            val ch = c.toChar()
+            
+            if (inQuotes) {
+                if (ch == '"') {
+                    reader.mark(1)
+                    if (reader.read() == '"'.code) {
+                        field.append('"')
+                    } else {
+                        reader.reset()
+                        inQuotes = false
+                    }
+                } else {
+                    field.append(ch)
+                }
+                continue
+            }
+            
+            when (ch) {
+                '"' -> inQuotes = true
+                delimiter -> {
+                    fields.add(field.toString())
+                    field.setLength(0)
+                }
+                '\r' -> Unit
+                '\n' -> {
+                    fields.add(field.toString())
+                    return fields
+                }
+                else -> field.append(ch)
+            }
+        }
+    }
+}
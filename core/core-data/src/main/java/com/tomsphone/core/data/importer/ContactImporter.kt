@@ -0,0 +1,225 @@
+package com.tomsphone.core.data.importer
+
+import android.content.Context
+import android.content.res.AssetFileDescriptor
+import android.net.Uri
+import android.util.Log
+import com.tomsphone.core.data.local.dao.ContactDao
+import com.tomsphone.core.data.local.entity.ContactEntity
+import com.tomsphone.core.data.local.mapper.toEntity
+import com.tomsphone.core.data.model.Contact
+import com.tomsphone.core.data.model.ContactType
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.catch
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.launch
+import java.io.FilterInputStream
+import java.io.InputStream
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Progress of a contact import (see ContactRepository.importContacts)
+ */
+data class ContactImportProgress(
+    val bytesRead: Long = 0,
+    val totalBytes: Long = -1,   // -1 = unknown
+    val imported: Int = 0,
+    val duplicates: Int = 0,     // Already in contacts, or repeated in the file
+    val skipped: Int = 0,        // No usable name or number
+    val finished: Boolean = false,
+    val error: String? = null
+) {
+    val fraction: Float? get() = if (totalBytes > 0) (bytesRead.toFloat() / totalBytes).coerceIn(0f, 1f) else null
+}
+
+/**
+ * Imports contacts from a vCard or CSV file (device provisioning)
+ * 
+ * The file is parsed as a stream and inserted in batches, each batch one
+ * transaction, so a 10k-entry address book needs neither the whole file
+ * in memory nor 10k separate writes (and Flow re-emissions).
+ * Numbers are deduplicated by number key against existing
+ * contacts and within the file.
+ * 
+ * An import runs in this singleton's own scope, so it carries on if the
+ * screen that started it goes away; [progress] can be picked up again.
+ */
+@Singleton
+class ContactImporter @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val contactDao: ContactDao
+) {
+    
+    private companion object {
+        const val TAG = "ContactImporter"
+        const val BATCH_SIZE = 500
+        const val MIN_NUMBER_DIGITS = 6
+        const val IMPORTED_PRIORITY = 100  // After hand-entered contacts
+    }
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    
+    private val _progress = MutableStateFlow<ContactImportProgress?>(null)
+    
+    /**
+     * Import in progress or last result (null = none)
+     */
+    val progress: StateFlow<ContactImportProgress?> = _progress.asStateFlow()
+    
+    /**
+     * Start importing [uri] in the background. Returns false if an import
+     * is already running - one at a time.
+     */
+    fun start(uri: Uri, contactType: ContactType): Boolean {
+        synchronized(_progress) {
+            if (_progress.value?.finished == false) return false
+            // In progress from here on, before the first batch is read
+            _progress.value = ContactImportProgress()
+        }
+        scope.launch {
+            import(uri, contactType).collect { _progress.value = it }
+        }
+        return true
+    }
+    
+    /**
+     * Forget the last result (no-op while an import is running)
+     */
+    fun clearResult() {
+        synchronized(_progress) {
+            if (_progress.value?.finished == true) _progress.value = null
+        }
+    }
+    
+    private fun import(uri: Uri, contactType: ContactType): Flow<ContactImportProgress> = flow {
+        var progress = ContactImportProgress()
+        // catch only sees failures of the import itself, not of the collector
+        emitAll(
+            importSteps(uri, contactType)
+                .onEach { progress = it }
+                .catch { e ->
+                    if (e is CancellationException) throw e
+                    // Batches already written are kept
+                    Log.e(TAG, "Import failed", e)
+                    emit(progress.copy(finished = true, error = e.message ?: "Import failed"))
+                }
+        )
+    }.flowOn(Dispatchers.IO)
+    
+    private fun importSteps(uri: Uri, contactType: ContactType): Flow<ContactImportProgress> = flow {
+        val resolver = context.contentResolver
+        val totalBytes = runCatching {
+            resolver.openAssetFileDescriptor(uri, "r")?.use { it.length }
+        }.getOrNull() ?: AssetFileDescriptor.UNKNOWN_LENGTH
+        
+        var progress = ContactImportProgress(totalBytes = totalBytes)
+        emit(progress)
+        
+        val knownKeys = HashSet(contactDao.getAllNumberKeys())
+        val input = resolver.openInputStream(uri) ?: throw IllegalStateException("Cannot open $uri")
+        
+        CountingInputStream(input).use { counting ->
+            val reader = counting.bufferedReader()
+            val format = ContactFileParser.detectFormat(resolver.getType(uri), reader)
+            Log.d(TAG, "Importing $format from $uri ($totalBytes bytes)")
+            
+            val batch = ArrayList<ContactEntity>(BATCH_SIZE)
+            val now = System.currentTimeMillis()
+            var duplicates = 0
+            var skipped = 0
+            
+            for (imported in ContactFileParser.parse(format, reader)) {
+                val key = PhoneNumberUtils.numberKey(imported.phoneNumber)
+                if (imported.name.isBlank() || PhoneNumberUtils.keyLength(key) < MIN_NUMBER_DIGITS) {
+                    skipped++
+                    continue
+                }
+                if (!knownKeys.add(key)) {
+                    duplicates++
+                    continue
+                }
+                
+                batch.add(imported.toContact(contactType, now).toEntity())
+                
+                if (batch.size == BATCH_SIZE) {
+                    contactDao.insertAll(batch)
+                    progress = progress.copy(
+                        bytesRead = counting.count,
+                        imported = progress.imported + batch.size,
+                        duplicates = duplicates,
+                        skipped = skipped
+                    )
+                    batch.clear()
+                    emit(progress)
+                }
+            }
+            
+            if (batch.isNotEmpty()) {
+                contactDao.insertAll(batch)
+            }
+            progress = progress.copy(
+                bytesRead = counting.count,
+                imported = progress.imported + batch.size,
+                duplicates = duplicates,
+                skipped = skipped,
+                finished = true
+            )
+        }
+        
+        Log.d(TAG, "Import finished: $progress")
+        emit(progress)
+    }
+    
+    private fun ImportedContact.toContact(contactType: ContactType, now: Long): Contact {
+        return Contact(
+            id = 0,
+            name = name.trim(),
+            phoneNumber = phoneNumber.trim(),
+            photoUri = null,
+            priority = IMPORTED_PRIORITY,
+            isPrimary = false,
+            contactType = contactType,
+            createdAt = now,
+            updatedAt = now
+        )
+    }
+    
+    /**
+     * Counts bytes read, for progress
+     */
+    private class CountingInputStream(input: InputStream) : FilterInputStream(input) {
+        @Volatile var count = 0L
+            private set
+        
+        override fun read(): Int {
+            val b = super.read()
+            if (b >= 0) count++
+            return b
+        }
+        
+        override fun read(b: ByteArray, off: Int, len: Int): Int {
+            val n = super.read(b, off, len)
+            if (n > 0) count += n
+            return n
+        }
+        
+        override fun skip(n: Long): Long {
+            val skipped = super.skip(n)
+            count += skipped
+            return skipped
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.tomsphone.core.data.local
+
+import android.app.job.JobInfo
+import android.app.job.JobScheduler
+import android.content.ComponentName
+import android.content.Context
+import android.os.PersistableBundle
+import android.os.SystemClock
+import android.util.Log
+import com.tomsphone.core.data.local.dao.CallLogDao
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.withContext
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.coroutines.coroutineContext
+
+/**
+ * How much call history to keep (the carer's call history settings)
+ */
+data class RetentionPolicy(
+    val maxAgeDays: Int = 365,
+    val maxRows: Int = 5_000,
+    val batchSize: Int = 500
+) {
+    
+    internal fun toExtras() = PersistableBundle().apply {
+        putInt(EXTRA_MAX_AGE_DAYS, maxAgeDays)
+        putInt(EXTRA_MAX_ROWS, maxRows)
+    }
+    
+    internal companion object {
+        private const val EXTRA_MAX_AGE_DAYS = "max_age_days"
+        private const val EXTRA_MAX_ROWS = "max_rows"
+        
+        // Defaults for anything missing (a job scheduled by an older version)
+        fun fromExtras(extras: PersistableBundle): RetentionPolicy {
+            val defaults = RetentionPolicy()
+            return RetentionPolicy(
+                maxAgeDays = extras.getInt(EXTRA_MAX_AGE_DAYS, defaults.maxAgeDays),
+                maxRows = extras.getInt(EXTRA_MAX_ROWS, defaults.maxRows)
+            )
+        }
+    }
+}
+
+/**
+ * Result of one retention run ([bytesReclaimed] is the database file
+ * shrinking, not counting the WAL)
+ */
+data class RetentionReport(
+    val rowsDeleted: Int,
+    val bytesReclaimed: Long,
+    val durationMs: Long
+)
+
+/**
+ * Prunes old call log rows and compacts the database
+ * 
+ * Rows older than the policy's age, or beyond its row cap, are deleted in
+ * batches. Their totals are already in call_stats_daily (counted when
+ * logged), so nothing is lost. Unread missed calls are never pruned
+ * (they drive the nag). Freed pages are then returned to the
+ * filesystem (incremental vacuum) and the WAL is checkpointed.
+ * 
+ * Runs from CallLogRetentionJobService, only while charging and idle,
+ * with the policy it was scheduled with (see [schedule]).
+ */
+@Singleton
+class CallLogRetention @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val database: WandasDatabase,
+    private val callLogDao: CallLogDao
+) {
+    
+    companion object {
+        private const val TAG = "CallLogRetention"
+        private const val JOB_ID = 4201
+        private const val AUTO_VACUUM_INCREMENTAL = 2
+        
+        /**
+         * Schedule the daily retention job with [policy] (no-op if already
+         * scheduled with it; rescheduled if the policy changed)
+         */
+        fun schedule(context: Context, policy: RetentionPolicy) {
+            val scheduler = context.getSystemService(JobScheduler::class.java) ?: return
+            val pending = scheduler.getPendingJob(JOB_ID)
+            if (pending != null && RetentionPolicy.fromExtras(pending.extras) == policy) return
+            
+            val job = JobInfo.Builder(JOB_ID, ComponentName(context, CallLogRetentionJobService::class.java))
+                .setRequiresCharging(true)
+                .setRequiresDeviceIdle(true)
+                .setPeriodic(TimeUnit.DAYS.toMillis(1))
+                .setPersisted(true)
+                .setExtras(policy.toExtras())
+                .build()
+            
+            val result = scheduler.schedule(job)
+            Log.d(TAG, "Scheduled retention job: ${result == JobScheduler.RESULT_SUCCESS}")
+        }
+    }
+    
+    suspend fun run(policy: RetentionPolicy): Result<RetentionReport> {
+        return try {
+            val started = SystemClock.elapsedRealtime()
+            // Fold the WAL in first, so the file size is the data actually held
+            checkpoint()
+            val bytesBefore = databaseBytes()
+            
+            // Keep everything newer than the age limit, and at least the newest maxRows
+            val ageCutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(policy.maxAgeDays.toLong())
+            val capCutoff = callLogDao.getTimestampAt(policy.maxRows - 1) ?: 0L
+            val cutoff = maxOf(ageCutoff, capCutoff)
+            
+            var deleted = 0
+            while (true) {
+                // Stopped by the scheduler - committed batches are kept
+                coroutineContext.ensureActive()
+                
+                val batch = callLogDao.getPrunable(cutoff, policy.batchSize)
+                if (batch.isEmpty()) break
+                
+                callLogDao.deleteByIds(batch.map { it.id })
+                deleted += batch.size
+                
+                if (batch.size < policy.batchSize) break
+            }
+            
+            if (deleted > 0) compact()
+            
+            val report = RetentionReport(
+                rowsDeleted = deleted,
+                bytesReclaimed = (bytesBefore - databaseBytes()).coerceAtLeast(0),
+                durationMs = SystemClock.elapsedRealtime() - started
+            )
+            Log.i(TAG, "Retention: deleted ${report.rowsDeleted} rows, reclaimed ${report.bytesReclaimed} bytes in ${report.durationMs}ms")
+            Result.success(report)
+        } catch (e: CancellationException) {
+            // Stopped by the scheduler - let the job see it was cancelled
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+    
+    private suspend fun compact() = withContext(Dispatchers.IO) {
+        val db = database.openHelper.writableDatabase
+        
+        val autoVacuum = db.query("PRAGMA auto_vacuum").use { if (it.moveToFirst()) it.getInt(0) else 0 }
+        if (autoVacuum != AUTO_VACUUM_INCREMENTAL) {
+            // One-off: switching to incremental mode needs a full VACUUM
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL")
+            db.execSQL("VACUUM")
+            Log.d(TAG, "Switched database to incremental auto-vacuum")
+        } else {
+            db.query("PRAGMA incremental_vacuum").use { it.moveToFirst() }
+        }
+        
+        checkpoint()
+    }
+    
+    /**
+     * Write the WAL back into the database file and truncate it
+     */
+    private suspend fun checkpoint() = withContext(Dispatchers.IO) {
+        database.openHelper.writableDatabase
+            .query("PRAGMA wal_checkpoint(TRUNCATE)")
+            .use { it.moveToFirst() }
+    }
+    
+    // Database file only - the WAL is emptied by checkpoints, not reclaimed
+    private fun databaseBytes(): Long {
+        val name = database.openHelper.databaseName ?: return 0L
+        return context.getDatabasePath(name).length()
+    }
+}
@@ -0,0 +1,52 @@
+package com.tomsphone.core.data.local
+
+import android.app.job.JobParameters
+import android.app.job.JobService
+import android.util.Log
+import dagger.hilt.android.AndroidEntryPoint
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+
+/**
+ * Runs CallLogRetention when the scheduler allows (charging and idle),
+ * with the policy the job was scheduled with
+ */
+@AndroidEntryPoint
+class CallLogRetentionJobService : JobService() {
+    
+    private companion object {
+        const val TAG = "CallLogRetentionJob"
+    }
+    
+    @Inject
+    lateinit var callLogRetention: CallLogRetention
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private var runJob: Job? = null
+    
+    override fun onStartJob(params: JobParameters): Boolean {
+        runJob = scope.launch {
+            val result = callLogRetention.run(RetentionPolicy.fromExtras(params.extras))
+            result.exceptionOrNull()?.let { Log.e(TAG, "Retention failed", it) }
+            jobFinished(params, result.isFailure)
+        }
+        return true
+    }
+    
+    override fun onStopJob(params: JobParameters): Boolean {
+        // No longer idle/charging - stop after the current batch, finish next time
+        Log.d(TAG, "Retention stopped by scheduler")
+        runJob?.cancel()
+        return true
+    }
+    
+    override fun onDestroy() {
+        scope.cancel()
+        super.onDestroy()
+    }
+}
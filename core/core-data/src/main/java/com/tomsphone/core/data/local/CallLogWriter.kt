@@ -0,0 +1,137 @@
+package com.tomsphone.core.data.local
+
+import android.util.Log
+import androidx.lifecycle.DefaultLifecycleObserver
+import androidx.lifecycle.LifecycleOwner
+import androidx.lifecycle.ProcessLifecycleOwner
+import androidx.room.withTransaction
+import com.tomsphone.core.data.local.dao.CallLogDao
+import com.tomsphone.core.data.local.dao.CallStatsDao
+import com.tomsphone.core.data.local.entity.CallLogEntity
+import com.tomsphone.core.data.local.entity.CallStatsDailyEntity
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Write-behind queue for call log rows
+ * 
+ * A call produces several writes close together (call ended, missed,
+ * rejected...). Rather than one transaction - and one round of Flow
+ * invalidations - each, rows are held briefly and written together:
+ * one transaction for the rows and their call_stats_daily totals.
+ * 
+ * Callers don't wait for the write. MISSED calls are written straight
+ * away, so the nag isn't delayed. Other rows wait at most FLUSH_DELAY_MS,
+ * and are written straight away when the app goes to the background
+ * (process lifecycle ON_STOP) or a call ends (WandasInCallService, see
+ * [requestFlush]), so little is lost if the process is then killed.
+ */
+@Singleton
+class CallLogWriter @Inject constructor(
+    private val database: WandasDatabase,
+    private val callLogDao: CallLogDao,
+    private val callStatsDao: CallStatsDao
+) {
+    
+    private companion object {
+        const val TAG = "CallLogWriter"
+        const val FLUSH_DELAY_MS = 1_000L
+        const val MAX_BATCH = 50
+    }
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    
+    // Rows waiting to be written (guarded by itself)
+    private val pending = ArrayList<CallLogEntity>()
+    private var flushJob: Job? = null
+    
+    // One batch write at a time
+    private val flushMutex = Mutex()
+    
+    init {
+        // Observers must be added on the main thread
+        scope.launch(Dispatchers.Main) {
+            ProcessLifecycleOwner.get().lifecycle.addObserver(object : DefaultLifecycleObserver {
+                override fun onStop(owner: LifecycleOwner) {
+                    // Backgrounded - don't leave rows only in memory
+                    requestFlush()
+                }
+            })
+        }
+    }
+    
+    /**
+     * Queue a row for writing and return straight away
+     */
+    fun write(entity: CallLogEntity) {
+        val immediate = synchronized(pending) {
+            pending.add(entity)
+            entity.type == "MISSED" || pending.size >= MAX_BATCH
+        }
+        
+        if (immediate) {
+            requestFlush()
+        } else {
+            scheduleFlush()
+        }
+    }
+    
+    /**
+     * Write everything pending without waiting for the batch window
+     * (e.g. a call ended, and the process may not be around much longer)
+     */
+    fun requestFlush() {
+        scope.launch { flush() }
+    }
+    
+    private fun scheduleFlush() {
+        synchronized(pending) {
+            if (flushJob?.isActive == true) return
+            flushJob = scope.launch {
+                delay(FLUSH_DELAY_MS)
+                flush()
+            }
+        }
+    }
+    
+    /**
+     * Write everything pending now, in one transaction
+     */
+    suspend fun flush() {
+        flushMutex.withLock {
+            val batch = synchronized(pending) {
+                pending.toList().also { pending.clear() }
+            }
+            if (batch.isEmpty()) return
+            
+            runCatching {
+                database.withTransaction {
+                    callLogDao.insertAll(batch)
+                    callStatsDao.add(totals(batch))
+                }
+            }.onSuccess {
+                Log.d(TAG, "Wrote ${batch.size} call log row(s)")
+            }.onFailure { e ->
+                Log.e(TAG, "Failed to write ${batch.size} call log row(s)", e)
+            }
+        }
+    }
+    
+    /**
+     * One call_stats_daily increment per day and contact in the batch
+     */
+    private fun totals(rows: List<CallLogEntity>): List<CallStatsDailyEntity> {
+        return rows
+            .map { CallStatsDailyEntity.of(it) }
+            .groupBy { it.day to it.contactId }
+            .map { (_, stats) -> stats.reduce { total, entry -> total + entry } }
+    }
+}
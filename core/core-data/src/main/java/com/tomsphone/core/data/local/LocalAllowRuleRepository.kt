@@ -0,0 +1,52 @@
+package com.tomsphone.core.data.local
+
+import com.tomsphone.core.data.local.dao.AllowRuleDao
+import com.tomsphone.core.data.local.mapper.toAllowRule
+import com.tomsphone.core.data.local.mapper.toEntity
+import com.tomsphone.core.data.model.AllowRule
+import com.tomsphone.core.data.repository.AllowRuleRepository
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+import javax.inject.Inject
+
+/**
+ * Local (Room) implementation of AllowRuleRepository
+ */
+class LocalAllowRuleRepository @Inject constructor(
+    private val allowRuleDao: AllowRuleDao
+) : AllowRuleRepository {
+    
+    override fun getRules(): Flow<List<AllowRule>> {
+        return allowRuleDao.getAll().map { list ->
+            list.map { it.toAllowRule() }
+        }
+    }
+    
+    override suspend fun getRule(id: Long): AllowRule? {
+        return allowRuleDao.getById(id)?.toAllowRule()
+    }
+    
+    override suspend fun saveRule(rule: AllowRule): Result<Long> {
+        return runCatching {
+            rule.validationError()?.let { throw IllegalArgumentException(it) }
+            if (rule.id == 0L) {
+                allowRuleDao.insert(rule.toEntity())
+            } else {
+                allowRuleDao.update(rule.toEntity())
+                rule.id
+            }
+        }
+    }
+    
+    override suspend fun setRuleEnabled(id: Long, enabled: Boolean): Result<Unit> {
+        return runCatching {
+            allowRuleDao.setEnabled(id, enabled)
+        }
+    }
+    
+    override suspend fun removeRule(id: Long): Result<Unit> {
+        return runCatching {
+            allowRuleDao.deleteById(id)
+        }
+    }
+}
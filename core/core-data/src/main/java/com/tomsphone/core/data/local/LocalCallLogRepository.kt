@@ -1,19 +1,40 @@
 package com.tomsphone.core.data.local
 
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import androidx.paging.PagingSource
+import androidx.paging.map
 import com.tomsphone.core.data.local.dao.CallLogDao
+import com.tomsphone.core.data.local.dao.CallStatsDao
+import com.tomsphone.core.data.local.dao.CallStatsWithName
+import com.tomsphone.core.data.local.entity.CallLogEntity
+import com.tomsphone.core.data.local.entity.CallStatsDailyEntity
 import com.tomsphone.core.data.local.mapper.toCallLogEntry
 import com.tomsphone.core.data.local.mapper.toEntity
 import com.tomsphone.core.data.model.CallLogEntry
+import com.tomsphone.core.data.model.CallStats
 import com.tomsphone.core.data.repository.CallLogRepository
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
+import java.time.Duration
+import java.time.LocalDate
+import java.time.LocalDateTime
 import javax.inject.Inject
 
 /**
  * Local (Room) implementation of CallLogRepository
  */
+@OptIn(ExperimentalCoroutinesApi::class)
 class LocalCallLogRepository @Inject constructor(
-    private val callLogDao: CallLogDao
+    private val callLogDao: CallLogDao,
+    private val callStatsDao: CallStatsDao,
+    private val callLogWriter: CallLogWriter
 ) : CallLogRepository {
     
     override fun getMissedCalls(limit: Int): Flow<List<CallLogEntry>> {
@@ -22,22 +43,98 @@ class LocalCallLogRepository @Inject constructor(
         }
     }
     
+    override fun getUnreadCarerMissedCalls(limit: Int): Flow<List<CallLogEntry>> {
+        return callLogDao.getUnreadCarerMissedCalls(limit).map { list ->
+            list.map { it.toCallLogEntry() }
+        }
+    }
+    
     override fun getRecentCalls(limit: Int): Flow<List<CallLogEntry>> {
         return callLogDao.getRecentCalls(limit).map { list ->
             list.map { it.toCallLogEntry() }
         }
     }
     
-    override fun getCallsForContact(contactId: Long): Flow<List<CallLogEntry>> {
-        return callLogDao.getCallsForContact(contactId).map { list ->
+    override fun getCallsForContact(contactId: Long, limit: Int): Flow<List<CallLogEntry>> {
+        return callLogDao.getCallsForContact(contactId, limit).map { list ->
             list.map { it.toCallLogEntry() }
         }
     }
     
-    override suspend fun logCall(entry: CallLogEntry): Result<Long> {
+    // ========== PAGED ==========
+    
+    override fun pagedMissedCalls(): Flow<PagingData<CallLogEntry>> {
+        return page { callLogDao.pageMissedCalls() }
+    }
+    
+    override fun pagedRecentCalls(): Flow<PagingData<CallLogEntry>> {
+        return page { callLogDao.pageRecentCalls() }
+    }
+    
+    override fun pagedCallsForContact(contactId: Long): Flow<PagingData<CallLogEntry>> {
+        return page { callLogDao.pageCallsForContact(contactId) }
+    }
+    
+    private fun page(source: () -> PagingSource<Int, CallLogEntity>): Flow<PagingData<CallLogEntry>> {
+        return Pager(
+            config = PagingConfig(
+                pageSize = CallLogRepository.PAGE_SIZE,
+                enablePlaceholders = false
+            ),
+            pagingSourceFactory = source
+        ).flow.map { data ->
+            data.map { it.toCallLogEntry() }
+        }
+    }
+    
+    // ========== STATISTICS ==========
+    
+    override fun getDailyCallStats(days: Int): Flow<List<CallStats>> {
+        return today().flatMapLatest { today -> callStatsDao.getDaily(firstDay(today, days)) }.map { list ->
+            list.map { it.toCallStats(perDay = true) }
+        }
+    }
+    
+    override fun getCallStatsByContact(days: Int): Flow<List<CallStats>> {
+        return today().flatMapLatest { today -> callStatsDao.getTotalsByContact(firstDay(today, days)) }.map { list ->
+            list.map { it.toCallStats(perDay = false) }
+        }
+    }
+    
+    private fun firstDay(today: Long, days: Int): Long = today - (days - 1)
+    
+    /**
+     * Today's local date as an epoch day, again after each midnight, so a
+     * screen left open overnight moves its "last N days" window on
+     */
+    private fun today(): Flow<Long> = flow {
+        while (true) {
+            val now = LocalDateTime.now()
+            emit(now.toLocalDate().toEpochDay())
+            val untilMidnight = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay())
+            // At least a second, in case the clock or time zone moved
+            delay(untilMidnight.toMillis().coerceAtLeast(1_000L))
+        }
+    }.distinctUntilChanged()
+    
+    private fun CallStatsWithName.toCallStats(perDay: Boolean): CallStats {
+        val known = contactId != CallStatsDailyEntity.UNKNOWN_CONTACT_ID
+        return CallStats(
+            contactId = if (known) contactId else null,
+            contactName = contactName,
+            day = if (perDay) LocalDate.ofEpochDay(day) else null,
+            answered = incoming,
+            outgoing = outgoing,
+            missed = missed,
+            rejected = rejected,
+            talkTimeMs = talkTimeMs
+        )
+    }
+    
+    override suspend fun logCall(entry: CallLogEntry): Result<Unit> {
         return runCatching {
-            val entity = entry.toEntity()
-            callLogDao.insert(entity)
+            // Queued, batched with other writes (MISSED is written straight away)
+            callLogWriter.write(entry.toEntity())
         }
     }
     
@@ -1,12 +1,18 @@
 package com.tomsphone.core.data.local
 
+import android.net.Uri
+import com.tomsphone.core.data.importer.ContactImportProgress
+import com.tomsphone.core.data.importer.ContactImporter
 import com.tomsphone.core.data.local.dao.ContactDao
 import com.tomsphone.core.data.local.mapper.toContact
 import com.tomsphone.core.data.local.mapper.toEntity
 import com.tomsphone.core.data.model.Contact
+import com.tomsphone.core.data.model.ContactType
 import com.tomsphone.core.data.repository.ContactRepository
 import com.tomsphone.core.data.util.PhoneNumberUtils
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
 import javax.inject.Inject
 
@@ -16,7 +22,8 @@ import javax.inject.Inject
  * Phase 2: Can swap for cloud-backed implementation
  */
 class LocalContactRepository @Inject constructor(
-    private val contactDao: ContactDao
+    private val contactDao: ContactDao,
+    private val contactImporter: ContactImporter
 ) : ContactRepository {
     
     override fun getPrimaryContact(): Flow<Contact?> {
@@ -36,15 +43,15 @@ class LocalContactRepository @Inject constructor(
     /**
      * Find contact by phone number with flexible matching
      * Handles different formats: +44, 0, spacing variations
+     * 
+     * Both sides are reduced to the same number key, so this is a
+     * single indexed read rather than a scan of the contacts table.
      */
     override fun getContactByPhone(phoneNumber: String): Flow<Contact?> {
-        // Get all contacts and find matching one
-        // This is more flexible than SQL exact match
-        return contactDao.getContacts(100).map { contacts ->
-            contacts.find { entity ->
-                PhoneNumberUtils.isMatch(entity.phoneNumber, phoneNumber)
-            }?.toContact()
-        }
+        val key = PhoneNumberUtils.numberKey(phoneNumber)
+        if (key == PhoneNumberUtils.NO_KEY) return flowOf(null)
+        
+        return contactDao.getContactByNumberKey(key).map { it?.toContact() }
     }
     
     override suspend fun addContact(contact: Contact): Result<Long> {
@@ -69,19 +76,55 @@ class LocalContactRepository @Inject constructor(
     
     override suspend fun setPrimaryContact(id: Long): Result<Unit> {
         return runCatching {
-            // Clear all primary flags first
-            contactDao.clearAllPrimary()
-            
-            // Set new primary
-            val contact = contactDao.getContactById(id)
-            if (contact != null) {
-                contactDao.update(contact.copy(isPrimary = true))
-            }
+            // Clears the old primary and sets the new one atomically
+            contactDao.setPrimary(id)
         }
     }
     
+    override suspend fun addContacts(contacts: List<Contact>): Result<List<Long>> {
+        return runCatching {
+            contactDao.insertAll(contacts.map { it.toEntity() })
+        }
+    }
+    
+    override suspend fun updateContacts(contacts: List<Contact>): Result<Unit> {
+        return runCatching {
+            contactDao.updateAll(contacts.map { it.toEntity() })
+        }
+    }
+    
+    override suspend fun reorderContacts(contactIds: List<Long>): Result<Unit> {
+        return runCatching {
+            contactDao.reorder(contactIds, System.currentTimeMillis())
+        }
+    }
+    
+    override fun importContacts(uri: Uri, contactType: ContactType): Boolean {
+        return contactImporter.start(uri, contactType)
+    }
+    
+    override fun getImportProgress(): StateFlow<ContactImportProgress?> {
+        return contactImporter.progress
+    }
+    
+    override fun clearImportResult() {
+        contactImporter.clearResult()
+    }
+    
     override suspend fun getContactCount(): Int {
         return contactDao.getContactCount()
     }
+    
+    override suspend fun refreshNumberKeys(): Result<Int> {
+        return runCatching {
+            val changed = contactDao.getAll().mapNotNull { entity ->
+                val key = PhoneNumberUtils.numberKey(entity.phoneNumber)
+                if (key == entity.numberKey) return@mapNotNull null
+                entity.copy(numberKey = key, normalizedSuffix = PhoneNumberUtils.getMatchSuffix(entity.phoneNumber))
+            }
+            if (changed.isNotEmpty()) contactDao.setNumberKeys(changed)
+            changed.size
+        }
+    }
 }
 
@@ -0,0 +1,161 @@
+package com.tomsphone.core.data.local
+
+import android.content.ContentValues
+import android.database.sqlite.SQLiteDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import com.tomsphone.core.data.util.PhoneNumberUtils
+
+/**
+ * Room schema migrations for WandasDatabase
+ *
+ * Every migration must be registered in DataModule.provideWandasDatabase.
+ */
+
+/**
+ * v2 -> v3: Indexed normalized-suffix column on contacts
+ *
+ * The suffix can't be computed in SQL (needs PhoneNumberUtils.normalize),
+ * so existing rows are backfilled row by row inside the migration transaction.
+ */
+val MIGRATION_2_3 = object : Migration(2, 3) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL("ALTER TABLE contacts ADD COLUMN normalizedSuffix TEXT NOT NULL DEFAULT ''")
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_contacts_normalizedSuffix ON contacts (normalizedSuffix)")
+
+        db.query("SELECT id, phoneNumber FROM contacts").use { cursor ->
+            while (cursor.moveToNext()) {
+                val id = cursor.getLong(0)
+                val phoneNumber = cursor.getString(1)
+                val values = ContentValues().apply {
+                    put("normalizedSuffix", PhoneNumberUtils.getMatchSuffix(phoneNumber))
+                }
+                db.update("contacts", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", arrayOf(id))
+            }
+        }
+    }
+}
+
+/**
+ * v3 -> v4: Indexes on call_logs (see CallLogEntity)
+ */
+val MIGRATION_3_4 = object : Migration(3, 4) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_call_logs_type_isRead_timestamp ON call_logs (type, isRead, timestamp)")
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_call_logs_contactId_timestamp ON call_logs (contactId, timestamp)")
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_call_logs_timestamp ON call_logs (timestamp)")
+    }
+}
+
+/**
+ * v4 -> v5: call_stats_daily, totals of pruned call log rows (see CallLogRetention)
+ */
+val MIGRATION_4_5 = object : Migration(4, 5) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS call_stats_daily (" +
+                "day INTEGER NOT NULL, contactId INTEGER NOT NULL, " +
+                "incoming INTEGER NOT NULL, outgoing INTEGER NOT NULL, missed INTEGER NOT NULL, " +
+                "rejected INTEGER NOT NULL, talkTimeMs INTEGER NOT NULL, " +
+                "PRIMARY KEY(day, contactId))"
+        )
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_call_stats_daily_contactId_day ON call_stats_daily (contactId, day)")
+    }
+}
+
+/**
+ * v5 -> v6: call_stats_daily now counts every call (see CallLogWriter)
+ *
+ * It only held pruned rows so far - add the rows still in call_logs.
+ * Days are local dates as epoch days (2440587.5 = julian day of 1970-01-01).
+ */
+val MIGRATION_5_6 = object : Migration(5, 6) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.query(
+            "SELECT CAST(julianday(timestamp / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER) AS day, " +
+                "IFNULL(contactId, 0) AS cid, " +
+                "SUM(type = 'INCOMING'), SUM(type = 'OUTGOING'), SUM(type = 'MISSED'), SUM(type = 'REJECTED'), " +
+                "SUM(CASE WHEN type IN ('INCOMING', 'OUTGOING') THEN duration ELSE 0 END) " +
+                "FROM call_logs GROUP BY day, cid"
+        ).use { cursor ->
+            while (cursor.moveToNext()) {
+                val key = arrayOf<Any>(cursor.getLong(0), cursor.getLong(1))
+                db.execSQL(
+                    "INSERT OR IGNORE INTO call_stats_daily VALUES (?, ?, 0, 0, 0, 0, 0)",
+                    key
+                )
+                db.execSQL(
+                    "UPDATE call_stats_daily SET incoming = incoming + ?, outgoing = outgoing + ?, " +
+                        "missed = missed + ?, rejected = rejected + ?, talkTimeMs = talkTimeMs + ? " +
+                        "WHERE day = ? AND contactId = ?",
+                    arrayOf<Any>(
+                        cursor.getInt(2), cursor.getInt(3), cursor.getInt(4), cursor.getInt(5), cursor.getLong(6),
+                        key[0], key[1]
+                    )
+                )
+            }
+        }
+    }
+}
+
+/**
+ * v6 -> v7: Indexed number-key column on contacts (see PhoneNumberUtils.numberKey)
+ *
+ * Replaces the 10-digit suffix for lookups. Backfilled row by row like v2 -> v3.
+ */
+val MIGRATION_6_7 = object : Migration(6, 7) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL("ALTER TABLE contacts ADD COLUMN numberKey INTEGER NOT NULL DEFAULT 0")
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_contacts_numberKey ON contacts (numberKey)")
+
+        db.query("SELECT id, phoneNumber FROM contacts").use { cursor ->
+            while (cursor.moveToNext()) {
+                val id = cursor.getLong(0)
+                val phoneNumber = cursor.getString(1)
+                val values = ContentValues().apply {
+                    put("numberKey", PhoneNumberUtils.numberKey(phoneNumber))
+                    // Suffix is now taken from the normalized number, so refresh it too
+                    put("normalizedSuffix", PhoneNumberUtils.getMatchSuffix(phoneNumber))
+                }
+                db.update("contacts", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", arrayOf(id))
+            }
+        }
+    }
+}
+
+/**
+ * v7 -> v8: allow_rules, carer-defined prefix / range rules for call screening
+ */
+val MIGRATION_7_8 = object : Migration(7, 8) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL(
+            "CREATE TABLE IF NOT EXISTS allow_rules (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, label TEXT NOT NULL, type TEXT NOT NULL, " +
+                "startNumber TEXT NOT NULL, endNumber TEXT, enabled INTEGER NOT NULL, createdAt INTEGER NOT NULL)"
+        )
+    }
+}
+
+/**
+ * v8 -> v9: (type, timestamp) index on call_logs for the paged missed calls list
+ *
+ * The (type, isRead, timestamp) index can't return all missed calls in timestamp order.
+ */
+val MIGRATION_8_9 = object : Migration(8, 9) {
+    override fun migrate(db: SupportSQLiteDatabase) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS index_call_logs_type_timestamp ON call_logs (type, timestamp)")
+    }
+}
+
+/**
+ * All migrations, in order
+ */
+val ALL_MIGRATIONS = arrayOf<Migration>(
+    MIGRATION_2_3,
+    MIGRATION_3_4,
+    MIGRATION_4_5,
+    MIGRATION_5_6,
+    MIGRATION_6_7,
+    MIGRATION_7_8,
+    MIGRATION_8_9
+)
@@ -2,21 +2,29 @@ package com.tomsphone.core.data.local
 
 import androidx.room.Database
 import androidx.room.RoomDatabase
+import com.tomsphone.core.data.local.dao.AllowRuleDao
 import com.tomsphone.core.data.local.dao.CallLogDao
+import com.tomsphone.core.data.local.dao.CallStatsDao
 import com.tomsphone.core.data.local.dao.ContactDao
+import com.tomsphone.core.data.local.entity.AllowRuleEntity
 import com.tomsphone.core.data.local.entity.CallLogEntity
+import com.tomsphone.core.data.local.entity.CallStatsDailyEntity
 import com.tomsphone.core.data.local.entity.ContactEntity
 
 @Database(
     entities = [
         ContactEntity::class,
-        CallLogEntity::class
+        CallLogEntity::class,
+        CallStatsDailyEntity::class,
+        AllowRuleEntity::class
     ],
-    version = 2,
+    version = 9,
     exportSchema = true
 )
 abstract class WandasDatabase : RoomDatabase() {
     abstract fun contactDao(): ContactDao
     abstract fun callLogDao(): CallLogDao
+    abstract fun callStatsDao(): CallStatsDao
+    abstract fun allowRuleDao(): AllowRuleDao
 }
 
@@ -0,0 +1,27 @@
+package com.tomsphone.core.data.local.dao
+
+import androidx.room.*
+import com.tomsphone.core.data.local.entity.AllowRuleEntity
+import kotlinx.coroutines.flow.Flow
+
+@Dao
+interface AllowRuleDao {
+    
+    @Query("SELECT * FROM allow_rules ORDER BY label COLLATE NOCASE, id")
+    fun getAll(): Flow<List<AllowRuleEntity>>
+    
+    @Query("SELECT * FROM allow_rules WHERE id = :id")
+    suspend fun getById(id: Long): AllowRuleEntity?
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insert(rule: AllowRuleEntity): Long
+    
+    @Update
+    suspend fun update(rule: AllowRuleEntity)
+    
+    @Query("UPDATE allow_rules SET enabled = :enabled WHERE id = :id")
+    suspend fun setEnabled(id: Long, enabled: Boolean)
+    
+    @Query("DELETE FROM allow_rules WHERE id = :id")
+    suspend fun deleteById(id: Long)
+}
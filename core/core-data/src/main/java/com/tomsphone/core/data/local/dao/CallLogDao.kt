@@ -1,5 +1,6 @@
 package com.tomsphone.core.data.local.dao
 
+import androidx.paging.PagingSource
 import androidx.room.*
 import com.tomsphone.core.data.local.entity.CallLogEntity
 import kotlinx.coroutines.flow.Flow
@@ -10,15 +11,41 @@ interface CallLogDao {
     @Query("SELECT * FROM call_logs WHERE type = 'MISSED' AND isRead = 0 ORDER BY timestamp DESC LIMIT :limit")
     fun getMissedCalls(limit: Int): Flow<List<CallLogEntity>>
     
+    /**
+     * Unread missed calls from CARER contacts, newest first - one query,
+     * re-run by Room whenever call_logs or contacts change
+     */
+    @Query("""
+        SELECT call_logs.* FROM call_logs
+        INNER JOIN contacts ON contacts.id = call_logs.contactId
+        WHERE call_logs.type = 'MISSED' AND call_logs.isRead = 0 AND contacts.contactType = 'CARER'
+        ORDER BY call_logs.timestamp DESC LIMIT :limit
+    """)
+    fun getUnreadCarerMissedCalls(limit: Int): Flow<List<CallLogEntity>>
+    
     @Query("SELECT * FROM call_logs ORDER BY timestamp DESC LIMIT :limit")
     fun getRecentCalls(limit: Int): Flow<List<CallLogEntity>>
     
+    @Query("SELECT * FROM call_logs WHERE contactId = :contactId ORDER BY timestamp DESC LIMIT :limit")
+    fun getCallsForContact(contactId: Long, limit: Int): Flow<List<CallLogEntity>>
+    
+    // ========== PAGED ==========
+    
+    @Query("SELECT * FROM call_logs WHERE type = 'MISSED' ORDER BY timestamp DESC")
+    fun pageMissedCalls(): PagingSource<Int, CallLogEntity>
+    
+    @Query("SELECT * FROM call_logs ORDER BY timestamp DESC")
+    fun pageRecentCalls(): PagingSource<Int, CallLogEntity>
+    
     @Query("SELECT * FROM call_logs WHERE contactId = :contactId ORDER BY timestamp DESC")
-    fun getCallsForContact(contactId: Long): Flow<List<CallLogEntity>>
+    fun pageCallsForContact(contactId: Long): PagingSource<Int, CallLogEntity>
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insert(callLog: CallLogEntity): Long
     
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAll(callLogs: List<CallLogEntity>): List<Long>
+    
     @Query("UPDATE call_logs SET isRead = 1 WHERE id = :id")
     suspend fun markAsRead(id: Long)
     
@@ -27,5 +54,26 @@ interface CallLogDao {
     
     @Query("DELETE FROM call_logs WHERE timestamp < :timestamp")
     suspend fun deleteOlderThan(timestamp: Long)
+    
+    // ========== RETENTION ==========
+    
+    /**
+     * Timestamp of the row [offset] places from the newest, or null if there are fewer rows
+     */
+    @Query("SELECT timestamp FROM call_logs ORDER BY timestamp DESC LIMIT 1 OFFSET :offset")
+    suspend fun getTimestampAt(offset: Int): Long?
+    
+    /**
+     * Oldest rows before [before] that may be pruned (never unread missed calls)
+     */
+    @Query("""
+        SELECT * FROM call_logs
+        WHERE timestamp < :before AND NOT (type = 'MISSED' AND isRead = 0)
+        ORDER BY timestamp ASC LIMIT :limit
+    """)
+    suspend fun getPrunable(before: Long, limit: Int): List<CallLogEntity>
+    
+    @Query("DELETE FROM call_logs WHERE id IN (:ids)")
+    suspend fun deleteByIds(ids: List<Long>)
 }
 
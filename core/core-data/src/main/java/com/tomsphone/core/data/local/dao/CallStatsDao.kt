@@ -0,0 +1,66 @@
+package com.tomsphone.core.data.local.dao
+
+import androidx.room.*
+import com.tomsphone.core.data.local.entity.CallStatsDailyEntity
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Stats row with the contact's current name (day = 0 for period totals)
+ */
+data class CallStatsWithName(
+    val day: Long,
+    val contactId: Long,
+    val contactName: String?,
+    val incoming: Int,
+    val outgoing: Int,
+    val missed: Int,
+    val rejected: Int,
+    val talkTimeMs: Long
+)
+
+@Dao
+interface CallStatsDao {
+    
+    /**
+     * Per-day, per-contact totals from [fromDay] on, newest day first
+     */
+    @Query("""
+        SELECT s.*, c.name AS contactName FROM call_stats_daily s
+        LEFT JOIN contacts c ON c.id = s.contactId
+        WHERE s.day >= :fromDay
+        ORDER BY s.day DESC, s.talkTimeMs DESC
+    """)
+    fun getDaily(fromDay: Long): Flow<List<CallStatsWithName>>
+    
+    /**
+     * Per-contact totals from [fromDay] on, most talk time first
+     */
+    @Query("""
+        SELECT 0 AS day, s.contactId, c.name AS contactName,
+            SUM(s.incoming) AS incoming, SUM(s.outgoing) AS outgoing, SUM(s.missed) AS missed,
+            SUM(s.rejected) AS rejected, SUM(s.talkTimeMs) AS talkTimeMs
+        FROM call_stats_daily s
+        LEFT JOIN contacts c ON c.id = s.contactId
+        WHERE s.day >= :fromDay
+        GROUP BY s.contactId
+        ORDER BY talkTimeMs DESC
+    """)
+    fun getTotalsByContact(fromDay: Long): Flow<List<CallStatsWithName>>
+    
+    @Query("SELECT * FROM call_stats_daily WHERE day = :day AND contactId = :contactId")
+    suspend fun get(day: Long, contactId: Long): CallStatsDailyEntity?
+    
+    @Upsert
+    suspend fun upsert(stats: CallStatsDailyEntity)
+    
+    /**
+     * Add totals to the existing rows for the same day and contact
+     */
+    @Transaction
+    suspend fun add(stats: List<CallStatsDailyEntity>) {
+        for (entry in stats) {
+            val existing = get(entry.day, entry.contactId)
+            upsert(existing?.plus(entry) ?: entry)
+        }
+    }
+}
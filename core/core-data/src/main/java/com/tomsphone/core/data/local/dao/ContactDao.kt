@@ -16,6 +16,13 @@ interface ContactDao {
     @Query("SELECT * FROM contacts WHERE phoneNumber = :phoneNumber LIMIT 1")
     fun getContactByPhone(phoneNumber: String): Flow<ContactEntity?>
     
+    /**
+     * Indexed lookup by number key (see PhoneNumberUtils.numberKey).
+     * Used on the incoming-call path, so it must stay a single index read.
+     */
+    @Query("SELECT * FROM contacts WHERE numberKey = :numberKey ORDER BY priority ASC LIMIT 1")
+    fun getContactByNumberKey(numberKey: Long): Flow<ContactEntity?>
+    
     @Query("SELECT * FROM contacts WHERE id = :id")
     suspend fun getContactById(id: Long): ContactEntity?
     
@@ -37,7 +44,52 @@ interface ContactDao {
     @Query("UPDATE contacts SET isPrimary = 0")
     suspend fun clearAllPrimary()
     
+    // ========== BULK ==========
+    // One transaction each, so observers see one change per operation
+    
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    suspend fun insertAll(contacts: List<ContactEntity>): List<Long>
+    
+    @Update
+    suspend fun updateAll(contacts: List<ContactEntity>)
+    
+    /**
+     * Make [id] the only primary contact - one statement, touching only the rows that change
+     */
+    @Query("UPDATE contacts SET isPrimary = CASE WHEN id = :id THEN 1 ELSE 0 END WHERE isPrimary = 1 OR id = :id")
+    suspend fun setPrimary(id: Long)
+    
+    @Query("UPDATE contacts SET buttonPosition = :position, updatedAt = :updatedAt WHERE id = :id AND buttonPosition != :position")
+    suspend fun setButtonPosition(id: Long, position: Int, updatedAt: Long)
+    
+    /**
+     * Set home button positions to the order of [ids] (first = top)
+     */
+    @Transaction
+    suspend fun reorder(ids: List<Long>, updatedAt: Long) {
+        ids.forEachIndexed { position, id ->
+            setButtonPosition(id, position, updatedAt)
+        }
+    }
+    
     @Query("SELECT COUNT(*) FROM contacts")
     suspend fun getContactCount(): Int
+    
+    @Query("SELECT numberKey FROM contacts")
+    suspend fun getAllNumberKeys(): List<Long>
+    
+    @Query("SELECT * FROM contacts")
+    suspend fun getAll(): List<ContactEntity>
+    
+    @Query("UPDATE contacts SET numberKey = :numberKey, normalizedSuffix = :normalizedSuffix WHERE id = :id")
+    suspend fun setNumberKey(id: Long, numberKey: Long, normalizedSuffix: String)
+    
+    /**
+     * Store recomputed number keys (e.g. after the home country changes), in one transaction
+     */
+    @Transaction
+    suspend fun setNumberKeys(contacts: List<ContactEntity>) {
+        contacts.forEach { setNumberKey(it.id, it.numberKey, it.normalizedSuffix) }
+    }
 }
 
@@ -0,0 +1,19 @@
+package com.tomsphone.core.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Room entity for screening allow rules (internal to data layer)
+ */
+@Entity(tableName = "allow_rules")
+data class AllowRuleEntity(
+    @PrimaryKey(autoGenerate = true)
+    val id: Long = 0,
+    val label: String,
+    val type: String,  // "PREFIX" or "RANGE"
+    val startNumber: String,
+    val endNumber: String?,
+    val enabled: Boolean,
+    val createdAt: Long
+)
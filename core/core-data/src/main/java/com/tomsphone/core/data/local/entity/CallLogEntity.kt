@@ -1,12 +1,27 @@
 package com.tomsphone.core.data.local.entity
 
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
 /**
  * Room entity for call logs (internal to data layer)
+ * 
+ * Indexes match the CallLogDao queries, so none of them scan or sort the table:
+ * - (type, isRead, timestamp): unread missed calls, newest first
+ * - (type, timestamp): all missed calls, newest first (paged)
+ * - (contactId, timestamp): one contact's history, newest first
+ * - (timestamp): recent calls, and deleting old rows
  */
-@Entity(tableName = "call_logs")
+@Entity(
+    tableName = "call_logs",
+    indices = [
+        Index(value = ["type", "isRead", "timestamp"]),
+        Index(value = ["type", "timestamp"]),
+        Index(value = ["contactId", "timestamp"]),
+        Index(value = ["timestamp"])
+    ]
+)
 data class CallLogEntity(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
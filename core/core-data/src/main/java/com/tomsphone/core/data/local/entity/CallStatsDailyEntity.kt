@@ -0,0 +1,62 @@
+package com.tomsphone.core.data.local.entity
+
+import androidx.room.Entity
+import androidx.room.Index
+import java.time.Instant
+import java.time.ZoneId
+
+/**
+ * Room entity for per-day, per-contact call totals (internal to data layer)
+ * 
+ * Updated in the same transaction as every call log insert (see
+ * CallLogWriter), so statistics are read from here
+ * instead of scanning call_logs - and survive retention pruning.
+ */
+@Entity(
+    tableName = "call_stats_daily",
+    primaryKeys = ["day", "contactId"],
+    indices = [Index(value = ["contactId", "day"])]
+)
+data class CallStatsDailyEntity(
+    /** Local date of the calls, as an epoch day */
+    val day: Long,
+    
+    /** Contact the calls were with, 0 = number not in contacts */
+    val contactId: Long,
+    
+    val incoming: Int = 0,   // Answered
+    val outgoing: Int = 0,
+    val missed: Int = 0,
+    val rejected: Int = 0,
+    val talkTimeMs: Long = 0
+) {
+    operator fun plus(other: CallStatsDailyEntity): CallStatsDailyEntity {
+        return copy(
+            incoming = incoming + other.incoming,
+            outgoing = outgoing + other.outgoing,
+            missed = missed + other.missed,
+            rejected = rejected + other.rejected,
+            talkTimeMs = talkTimeMs + other.talkTimeMs
+        )
+    }
+    
+    companion object {
+        const val UNKNOWN_CONTACT_ID = 0L
+        
+        /**
+         * Totals for a single call log row
+         */
+        fun of(callLog: CallLogEntity, zone: ZoneId = ZoneId.systemDefault()): CallStatsDailyEntity {
+            val day = Instant.ofEpochMilli(callLog.timestamp).atZone(zone).toLocalDate().toEpochDay()
+            return CallStatsDailyEntity(
+                day = day,
+                contactId = callLog.contactId ?: UNKNOWN_CONTACT_ID,
+                incoming = if (callLog.type == "INCOMING") 1 else 0,
+                outgoing = if (callLog.type == "OUTGOING") 1 else 0,
+                missed = if (callLog.type == "MISSED") 1 else 0,
+                rejected = if (callLog.type == "REJECTED") 1 else 0,
+                talkTimeMs = if (callLog.type == "INCOMING" || callLog.type == "OUTGOING") callLog.duration else 0
+            )
+        }
+    }
+}
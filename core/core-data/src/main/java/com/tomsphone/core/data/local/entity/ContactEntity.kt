@@ -1,6 +1,8 @@
 package com.tomsphone.core.data.local.entity
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 
 /**
@@ -11,7 +13,10 @@ import androidx.room.PrimaryKey
  * - Subscription tier gating
  * - Granular carer configuration
  */
-@Entity(tableName = "contacts")
+@Entity(
+    tableName = "contacts",
+    indices = [Index(value = ["normalizedSuffix"]), Index(value = ["numberKey"])]
+)
 data class ContactEntity(
     @PrimaryKey(autoGenerate = true)
     val id: Long = 0,
@@ -37,5 +42,22 @@ data class ContactEntity(
     val buttonPosition: Int = 0,
     
     /** Whether button should be half-width (for split layouts) */
-    val isHalfWidth: Boolean = false
+    val isHalfWidth: Boolean = false,
+    
+    // ========== LOOKUP ==========
+    
+    /**
+     * Last 10 digits of the normalized phone number (see PhoneNumberUtils.getMatchSuffix).
+     * Superseded by [numberKey] for lookups; still derived by the mapper.
+     */
+    @ColumnInfo(defaultValue = "")
+    val normalizedSuffix: String = "",
+    
+    /**
+     * Packed number key (see PhoneNumberUtils.numberKey) - equal keys mean the same number.
+     * Indexed so incoming-call lookup is a single indexed read instead of a table scan.
+     * Always derived from phoneNumber by the mapper - never set directly.
+     */
+    @ColumnInfo(defaultValue = "0")
+    val numberKey: Long = 0
 )
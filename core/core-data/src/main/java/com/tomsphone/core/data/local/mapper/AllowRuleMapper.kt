@@ -0,0 +1,34 @@
+package com.tomsphone.core.data.local.mapper
+
+import com.tomsphone.core.data.local.entity.AllowRuleEntity
+import com.tomsphone.core.data.model.AllowRule
+import com.tomsphone.core.data.model.AllowRuleType
+
+/**
+ * Mapper between AllowRule domain model and AllowRuleEntity
+ */
+
+fun AllowRuleEntity.toAllowRule(): AllowRule {
+    val ruleType = AllowRuleType.entries.firstOrNull { it.name == type }
+    return AllowRule(
+        id = id,
+        label = label,
+        type = ruleType ?: AllowRuleType.PREFIX,
+        startNumber = startNumber,
+        endNumber = endNumber,
+        enabled = enabled && ruleType != null,  // Unknown type - keep the row, never match
+        createdAt = createdAt
+    )
+}
+
+fun AllowRule.toEntity(): AllowRuleEntity {
+    return AllowRuleEntity(
+        id = id,
+        label = label.trim(),
+        type = type.name,
+        startNumber = startNumber.trim(),
+        endNumber = if (type == AllowRuleType.RANGE) endNumber?.trim() else null,
+        enabled = enabled,
+        createdAt = createdAt
+    )
+}
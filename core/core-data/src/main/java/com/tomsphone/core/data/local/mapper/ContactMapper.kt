@@ -3,6 +3,7 @@ package com.tomsphone.core.data.local.mapper
 import com.tomsphone.core.data.local.entity.ContactEntity
 import com.tomsphone.core.data.model.Contact
 import com.tomsphone.core.data.model.ContactType
+import com.tomsphone.core.data.util.PhoneNumberUtils
 
 /**
  * Mapper between Contact domain model and ContactEntity
@@ -46,6 +47,9 @@ fun Contact.toEntity(): ContactEntity {
         buttonColor = buttonColor,
         autoAnswerEnabled = autoAnswerEnabled,
         buttonPosition = buttonPosition,
-        isHalfWidth = isHalfWidth
+        isHalfWidth = isHalfWidth,
+        // Lookup keys
+        normalizedSuffix = PhoneNumberUtils.getMatchSuffix(phoneNumber),
+        numberKey = PhoneNumberUtils.numberKey(phoneNumber)
     )
 }
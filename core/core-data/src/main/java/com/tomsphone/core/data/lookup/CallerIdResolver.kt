@@ -0,0 +1,194 @@
+package com.tomsphone.core.data.lookup
+
+import android.util.Log
+import com.tomsphone.core.data.model.Contact
+import com.tomsphone.core.data.repository.ContactRepository
+import com.tomsphone.core.data.util.CountryRule
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * In-memory caller ID index shared by everything on the call path
+ *
+ * Screening, the in-call service and the missed call nag all need
+ * "who is this number?" for every call event. Instead of each of them
+ * querying Room, this keeps a map of number key -> Contact that is
+ * fed by the contacts Flow, so a lookup is a single hash map read.
+ * ScreeningPolicy checks known numbers against the same map ([isKnown]).
+ *
+ * The index is updated incrementally: each emission is diffed against the
+ * previous one and only added, changed or removed contacts are re-keyed
+ * and touch the map, so a contact import arriving in batches doesn't
+ * rebuild it each time. Keys depend on the home country, so a change there
+ * rebuilds the map once, off to the side, and swaps it in.
+ */
+@Singleton
+class CallerIdResolver @Inject constructor(
+    private val contactRepository: ContactRepository
+) {
+
+    private companion object {
+        const val TAG = "CallerIdResolver"
+    }
+
+    /**
+     * An indexed contact and the key it was indexed under
+     */
+    private class Entry(val contact: Contact, val key: Long)
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    // Lookup index - read from any thread (binder, main, IO)
+    @Volatile
+    private var byKey = ConcurrentHashMap<Long, Contact>()
+
+    // Last applied contacts by id, and the country they were keyed with -
+    // only touched by the collector coroutine
+    private val byId = HashMap<Long, Entry>()
+    private var keyedCountry: CountryRule? = null
+
+    private val _isReady = MutableStateFlow(false)
+
+    /**
+     * True once the first contacts emission has been indexed
+     */
+    val isReady: StateFlow<Boolean> = _isReady.asStateFlow()
+
+    /**
+     * Number of distinct numbers indexed
+     */
+    val size: Int get() = byKey.size
+
+    init {
+        scope.launch {
+            combine(
+                contactRepository.getContacts(Int.MAX_VALUE),
+                PhoneNumberUtils.homeCountryFlow
+            ) { contacts, country -> contacts to country }
+                .collect { (contacts, country) ->
+                    applyContacts(contacts, country)
+                    _isReady.value = true
+                }
+        }
+    }
+
+    /**
+     * Resolve a phone number to a contact from the in-memory index.
+     * No I/O; returns null if unknown or if the index isn't loaded yet.
+     */
+    fun resolve(phoneNumber: String?): Contact? {
+        val key = PhoneNumberUtils.numberKey(phoneNumber)
+        if (key == PhoneNumberUtils.NO_KEY) return null
+        return byKey[key]
+    }
+
+    /**
+     * True if [key] (PhoneNumberUtils.numberKey) belongs to a contact
+     */
+    fun isKnown(key: Long): Boolean = key != PhoneNumberUtils.NO_KEY && byKey.containsKey(key)
+
+    /**
+     * Resolve a phone number, waiting for the initial index load if needed.
+     * Only the very first call after process start can actually suspend.
+     */
+    suspend fun awaitResolve(phoneNumber: String?): Contact? {
+        if (!_isReady.value) {
+            isReady.first { it }
+        }
+        return resolve(phoneNumber)
+    }
+
+    private fun applyContacts(contacts: List<Contact>, country: CountryRule) {
+        if (country != keyedCountry) {
+            rebuild(contacts, country)
+            return
+        }
+
+        val seenIds = HashSet<Long>(contacts.size)
+        var changed = 0
+
+        // Added or updated contacts
+        for (contact in contacts) {
+            seenIds.add(contact.id)
+            val previous = byId[contact.id]
+            if (previous?.contact == contact) continue
+
+            if (previous != null) {
+                unindex(previous)
+            }
+            index(Entry(contact, PhoneNumberUtils.numberKey(contact.phoneNumber, country)))
+            changed++
+        }
+
+        // Removed contacts
+        if (byId.size > seenIds.size) {
+            byId.values.filter { it.contact.id !in seenIds }.forEach { entry ->
+                unindex(entry)
+                changed++
+            }
+        }
+
+        if (changed > 0) {
+            Log.d(TAG, "Index updated: $changed changed, ${byId.size} contacts")
+        }
+    }
+
+    /**
+     * Re-key every contact into a new map, then publish it in one write
+     */
+    private fun rebuild(contacts: List<Contact>, country: CountryRule) {
+        val map = ConcurrentHashMap<Long, Contact>(contacts.size * 2)
+        byId.clear()
+        for (contact in contacts) {
+            val entry = Entry(contact, PhoneNumberUtils.numberKey(contact.phoneNumber, country))
+            byId[contact.id] = entry
+            if (entry.key == PhoneNumberUtils.NO_KEY) continue
+            map.merge(entry.key, contact) { existing, candidate ->
+                if (isPreferred(candidate, existing)) candidate else existing
+            }
+        }
+        byKey = map
+        keyedCountry = country
+        Log.d(TAG, "Index rebuilt for $country: ${map.size} numbers, ${contacts.size} contacts")
+    }
+
+    private fun index(entry: Entry) {
+        byId[entry.contact.id] = entry
+        if (entry.key == PhoneNumberUtils.NO_KEY) return
+
+        // Same number on two contacts: keep the higher-priority one (same order as the DAO)
+        byKey.merge(entry.key, entry.contact) { existing, candidate ->
+            if (isPreferred(candidate, existing)) candidate else existing
+        }
+    }
+
+    private fun unindex(entry: Entry) {
+        byId.remove(entry.contact.id)
+        if (entry.key == PhoneNumberUtils.NO_KEY) return
+
+        if (byKey.remove(entry.key, entry.contact)) {
+            // Fall back to any other contact sharing the number (rare)
+            byId.values
+                .filter { it.key == entry.key }
+                .map { it.contact }
+                .reduceOrNull { best, candidate -> if (isPreferred(candidate, best)) candidate else best }
+                ?.let { byKey[entry.key] = it }
+        }
+    }
+
+    private fun isPreferred(candidate: Contact, existing: Contact): Boolean {
+        return candidate.priority < existing.priority ||
+            (candidate.priority == existing.priority && candidate.id < existing.id)
+    }
+}
@@ -0,0 +1,72 @@
+package com.tomsphone.core.data.lookup
+
+import android.content.Context
+import android.util.Log
+import com.tomsphone.core.data.blocklist.NuisanceBlocklist
+import com.tomsphone.core.data.repository.ContactRepository
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Keeps stored number keys in step with the home country
+ *
+ * Number keys depend on the home country (a national "01632 960001" is
+ * +44 in the UK), and some are stored: contacts.numberKey and the nuisance
+ * blocklist. The country and key rules they were made with are saved, and
+ * when PhoneNumberUtils.homeCountry differs (a new SIM) or the rules have
+ * changed (an app update) the contacts are re-keyed and the blocklist
+ * re-read before the new country is saved. An interrupted re-key runs
+ * again on the next start.
+ *
+ * The in-memory caches (CallerIdResolver, ScreeningPolicyProvider) follow
+ * PhoneNumberUtils.homeCountryFlow themselves.
+ */
+@Singleton
+class HomeCountryTracker @Inject constructor(
+    @ApplicationContext context: Context,
+    private val contactRepository: ContactRepository,
+    private val nuisanceBlocklist: NuisanceBlocklist
+) {
+
+    private companion object {
+        const val TAG = "HomeCountryTracker"
+    }
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+
+    private val prefs = context.getSharedPreferences(PhoneNumberUtils.PREFS_NAME, Context.MODE_PRIVATE)
+
+    init {
+        scope.launch {
+            PhoneNumberUtils.homeCountryFlow.collect { country ->
+                val keyedWith = prefs.getString(PhoneNumberUtils.KEY_HOME_COUNTRY, null)
+                // Saved before there was a version: the first rules
+                val rulesVersion = prefs.getInt(PhoneNumberUtils.KEY_RULES_VERSION, 1)
+                if (country.iso == keyedWith && rulesVersion == PhoneNumberUtils.RULES_VERSION) return@collect
+
+                Log.d(TAG, "Keys made with $keyedWith (rules v$rulesVersion), now $country - re-keying numbers")
+                contactRepository.refreshNumberKeys()
+                    .onSuccess { count -> Log.d(TAG, "Re-keyed $count contact(s)") }
+                    .onFailure { e ->
+                        // Try again next start
+                        Log.e(TAG, "Failed to re-key contacts", e)
+                        return@collect
+                    }
+
+                // Nothing saved yet (first run): the list was imported with this country
+                if (keyedWith != null) nuisanceBlocklist.reimport()
+
+                prefs.edit()
+                    .putString(PhoneNumberUtils.KEY_HOME_COUNTRY, country.iso)
+                    .putInt(PhoneNumberUtils.KEY_RULES_VERSION, PhoneNumberUtils.RULES_VERSION)
+                    .apply()
+            }
+        }
+    }
+}
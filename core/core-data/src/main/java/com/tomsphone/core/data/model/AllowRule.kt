@@ -0,0 +1,82 @@
+package com.tomsphone.core.data.model
+
+import com.tomsphone.core.data.util.PhoneNumberUtils
+
+/**
+ * How an allow rule matches numbers
+ */
+enum class AllowRuleType {
+    /** Every number starting with [AllowRule.startNumber] */
+    PREFIX,
+    
+    /** Every number from [AllowRule.startNumber] to [AllowRule.endNumber], same length */
+    RANGE
+}
+
+/**
+ * Carer-defined rule that lets a group of unknown numbers through call screening
+ * 
+ * For callers that ring from rotating outbound numbers - GP surgeries,
+ * pharmacies, care agencies - so "reject unknown calls" can stay on.
+ * Numbers are kept as entered and normalized with PhoneNumberUtils when
+ * the rules are compiled for screening.
+ */
+data class AllowRule(
+    val id: Long = 0,
+    
+    /** Who the rule is for, e.g. "Riverside Surgery" */
+    val label: String,
+    
+    val type: AllowRuleType,
+    
+    /** The prefix, or the first number of the range */
+    val startNumber: String,
+    
+    /** Last number of the range (RANGE only) */
+    val endNumber: String? = null,
+    
+    val enabled: Boolean = true,
+    
+    val createdAt: Long = System.currentTimeMillis()
+) {
+    
+    /**
+     * Why the rule can't be saved, or null if it is valid
+     */
+    fun validationError(): String? {
+        if (label.isBlank()) return "Enter who the rule is for"
+        
+        return when (type) {
+            AllowRuleType.PREFIX -> {
+                val digits = PhoneNumberUtils.prefixDigits(startNumber)
+                when {
+                    digits.isEmpty() -> "Enter the start of the number"
+                    digits.length < MIN_PREFIX_DIGITS -> "Prefix is too short - it would let too many callers through"
+                    else -> null
+                }
+            }
+            AllowRuleType.RANGE -> {
+                val start = PhoneNumberUtils.numberKey(startNumber)
+                val end = PhoneNumberUtils.numberKey(endNumber)
+                when {
+                    !PhoneNumberUtils.isInternational(start) || !PhoneNumberUtils.isInternational(end) ->
+                        "Enter complete phone numbers for both ends of the range"
+                    PhoneNumberUtils.keyLength(start) != PhoneNumberUtils.keyLength(end) ->
+                        "Both ends of the range must have the same number of digits"
+                    start > end -> "The first number must be lower than the last"
+                    PhoneNumberUtils.keyValue(end) - PhoneNumberUtils.keyValue(start) >= MAX_RANGE_SIZE ->
+                        "Range is too large - it would let too many callers through"
+                    else -> null
+                }
+            }
+        }
+    }
+    
+    companion object {
+        /** Country code plus at least an area code and one more digit */
+        const val MIN_PREFIX_DIGITS = 7
+        
+        /** Largest number of numbers one range may cover */
+        const val MAX_RANGE_SIZE = 100_000L
+    }
+}
@@ -0,0 +1,17 @@
+package com.tomsphone.core.data.model
+
+import java.time.LocalDate
+
+/**
+ * Call totals for one contact - for one day, or summed over a period
+ */
+data class CallStats(
+    val contactId: Long?,        // null = numbers not in contacts
+    val contactName: String?,
+    val day: LocalDate?,         // null for period totals
+    val answered: Int,
+    val outgoing: Int,
+    val missed: Int,
+    val rejected: Int,
+    val talkTimeMs: Long
+)
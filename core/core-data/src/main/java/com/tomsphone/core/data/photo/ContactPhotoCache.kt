@@ -0,0 +1,132 @@
+package com.tomsphone.core.data.photo
+
+import android.app.ActivityManager
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.util.Log
+import android.util.LruCache
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.security.MessageDigest
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.roundToInt
+
+/**
+ * Decoded contact photos for the home screen buttons.
+ * 
+ * Photos are decoded once and kept for the life of the process, so
+ * recomposition, theme changes and coming back from a call just reuse them:
+ * - Memory: LRU of bitmaps, sized from the device memory class
+ * - Disk: pre-scaled variants in [PhotoStore], made the first time a photo is seen
+ * 
+ * The cache only shrinks when the system is actually short of memory,
+ * not when the app is merely hidden (e.g. during a call).
+ */
+@Singleton
+class ContactPhotoCache @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val photoStore: PhotoStore
+) {
+    
+    private companion object {
+        const val TAG = "ContactPhotoCache"
+        const val NAME_PREFIX = "contact_"
+        const val NAME_HASH_CHARS = 12
+        
+        // Largest photo drawn on a home button
+        const val BUTTON_PHOTO_DP = 160
+        
+        // Share of the app's heap given to photos
+        const val HEAP_DIVISOR = 8
+        const val HEAP_DIVISOR_LOW_RAM = 16
+    }
+    
+    private val activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+    private val lowRam = activityManager.isLowRamDevice
+    
+    private val variant = PhotoVariant.forSize(
+        (BUTTON_PHOTO_DP * context.resources.displayMetrics.density).roundToInt()
+    )
+    
+    private val cache = object : LruCache<String, Bitmap>(
+        activityManager.memoryClass * 1024 * 1024 / if (lowRam) HEAP_DIVISOR_LOW_RAM else HEAP_DIVISOR
+    ) {
+        override fun sizeOf(key: String, value: Bitmap): Int = value.allocationByteCount
+    }
+    
+    init {
+        Log.d(TAG, "Photo cache ${cache.maxSize() / 1024}KB, variant=$variant, lowRam=$lowRam")
+        context.registerComponentCallbacks(object : ComponentCallbacks2 {
+            override fun onTrimMemory(level: Int) {
+                when {
+                    level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE -> cache.evictAll()
+                    level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> cache.trimToSize(cache.maxSize() / 2)
+                }
+            }
+            
+            override fun onConfigurationChanged(newConfig: Configuration) {}
+            
+            @Deprecated("Deprecated in Java")
+            override fun onLowMemory() {
+                cache.evictAll()
+            }
+        })
+    }
+    
+    /**
+     * Make sure every photo in [photoUris] is decoded and return them by URI.
+     * 
+     * Already-cached photos cost nothing. Misses use the pre-scaled variant,
+     * creating it from the original on first sight. Variants of photos no
+     * longer in the list are deleted from disk.
+     */
+    suspend fun prefetch(photoUris: List<String>): Map<String, Bitmap> {
+        val photos = mutableMapOf<String, Bitmap>()
+        val misses = mutableListOf<String>()
+        for (uri in photoUris) {
+            val cached = cache.get(uri)
+            if (cached != null) photos[uri] = cached else misses.add(uri)
+        }
+        if (misses.isEmpty()) return photos
+        
+        return withContext(Dispatchers.IO) {
+            for (uri in misses) {
+                load(uri)?.let { photos[uri] = it }
+            }
+            photoStore.retain(NAME_PREFIX, photoUris.map { nameFor(it) }.toSet())
+            photos
+        }
+    }
+    
+    private fun load(photoUri: String): Bitmap? {
+        val name = nameFor(photoUri)
+        val file = photoStore.find(name, variant)
+            ?: photoStore.import(photoUri, name).getOrNull()?.let { photoStore.find(name, variant) }
+            ?: return null
+        
+        val options = BitmapFactory.Options().apply {
+            // Photos are opaque and clipped when drawn - half the memory on small devices
+            if (lowRam) inPreferredConfig = Bitmap.Config.RGB_565
+        }
+        val bitmap = BitmapFactory.decodeFile(file.path, options)
+        if (bitmap == null) {
+            Log.w(TAG, "Failed to decode ${file.name}")
+            return null
+        }
+        // Upload once now rather than on the first frame that draws it
+        bitmap.prepareToDraw()
+        cache.put(photoUri, bitmap)
+        Log.d(TAG, "Loaded ${file.name} (${bitmap.allocationByteCount / 1024}KB)")
+        return bitmap
+    }
+    
+    private fun nameFor(photoUri: String): String {
+        val digest = MessageDigest.getInstance("SHA-256").digest(photoUri.toByteArray())
+        return NAME_PREFIX + digest.joinToString("") { "%02x".format(it) }.take(NAME_HASH_CHARS)
+    }
+}
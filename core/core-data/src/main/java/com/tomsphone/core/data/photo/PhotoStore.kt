@@ -0,0 +1,304 @@
+package com.tomsphone.core.data.photo
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Matrix
+import android.media.ExifInterface
+import android.net.Uri
+import android.os.Process
+import android.util.Log
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.File
+import java.io.InputStream
+import java.security.MessageDigest
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.max
+import kotlin.math.roundToInt
+
+/**
+ * Sizes kept for every stored photo (longest edge in pixels).
+ */
+enum class PhotoVariant(val maxEdgePx: Int, val suffix: String) {
+    /** Small lists and chips */
+    THUMB(192, "thumb"),
+    
+    /** Round photo buttons and profile circles */
+    BUTTON(512, "button"),
+    
+    /** Full-screen display */
+    FULL(1280, "full");
+    
+    companion object {
+        /**
+         * Smallest variant that still covers [px] without upscaling.
+         */
+        fun forSize(px: Int): PhotoVariant =
+            entries.firstOrNull { it.maxEdgePx >= px } ?: FULL
+    }
+}
+
+/**
+ * Turns photos into a small set of pre-sized, upright JPEGs.
+ * 
+ * A full-resolution camera image takes far too long to decode on a budget
+ * phone for screens that must appear instantly (emergency info), so each
+ * capture is processed once, off the main thread:
+ * - EXIF orientation is applied to the pixels (variants carry no EXIF)
+ * - [PhotoVariant.THUMB], [PhotoVariant.BUTTON] and [PhotoVariant.FULL] are written
+ * - Files are named by content hash, so a retake never hits a stale image cache
+ * 
+ * Files live in filesDir/photos as `<name>_<hash>_<variant>.jpg`. The path of
+ * the FULL variant is what gets stored in settings; [variantOf] maps it to
+ * any other size.
+ */
+@Singleton
+class PhotoStore @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+    
+    companion object {
+        private const val TAG = "PhotoStore"
+        private const val DIR = "photos"
+        private const val JPEG_QUALITY = 85
+        private const val HASH_CHARS = 16
+        
+        /** Name of the user's emergency ID photo */
+        const val USER_PHOTO = "user"
+        
+        /**
+         * File for [variant] of a stored photo, given the stored (FULL) path.
+         * 
+         * Paths that didn't come from the store (photos saved before it existed)
+         * are returned as-is. Null if there is no photo on disk.
+         */
+        fun variantOf(storedPath: String?, variant: PhotoVariant): File? {
+            if (storedPath.isNullOrEmpty()) return null
+            val full = File(storedPath)
+            val fullSuffix = "_${PhotoVariant.FULL.suffix}.jpg"
+            if (full.name.endsWith(fullSuffix)) {
+                val sized = File(full.parentFile, full.name.removeSuffix(fullSuffix) + "_${variant.suffix}.jpg")
+                if (sized.exists()) return sized
+            }
+            return full.takeIf { it.exists() }
+        }
+    }
+    
+    private val dir = File(context.filesDir, DIR)
+    
+    /**
+     * Background executor for capture callbacks and photo processing.
+     * Hand this to CameraX instead of the main executor.
+     */
+    val executor: Executor = Executors.newSingleThreadExecutor { runnable ->
+        Thread({
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND)
+            runnable.run()
+        }, TAG)
+    }
+    
+    /**
+     * Process a captured image into all variants and return the FULL file.
+     * 
+     * Blocking - call on [executor]. Older variants of the same [name] are
+     * removed and [source] is deleted once the new set is written.
+     */
+    fun store(source: File, name: String): Result<File> =
+        process(name, source.name) { source.inputStream() }
+            .onSuccess { source.delete() }
+    
+    /**
+     * Process an image the app doesn't own (file path, file:// or content:// URI)
+     * into all variants, leaving the source untouched. Returns the FULL file.
+     * 
+     * Blocking - call off the main thread.
+     */
+    fun import(source: String, name: String): Result<File> =
+        process(name, source) { openSource(source) }
+    
+    /**
+     * Stored [variant] of [name], or null if it hasn't been processed.
+     */
+    fun find(name: String, variant: PhotoVariant): File? {
+        val suffix = "_${variant.suffix}.jpg"
+        return dir.listFiles()?.firstOrNull { file ->
+            file.name.startsWith("${name}_") && file.name.endsWith(suffix)
+        }
+    }
+    
+    /**
+     * Delete every stored photo whose name starts with [prefix] but isn't in [keep].
+     */
+    fun retain(prefix: String, keep: Set<String>) {
+        dir.listFiles()?.forEach { file ->
+            if (file.name.startsWith(prefix) && keep.none { file.name.startsWith("${it}_") }) {
+                file.delete()
+            }
+        }
+    }
+    
+    /**
+     * Delete every stored variant of [name].
+     */
+    fun remove(name: String) {
+        removeOthers(name, keepHash = null)
+    }
+    
+    // ========== PROCESSING ==========
+    
+    /**
+     * Decode, orient and write all variants. [open] is called once per pass
+     * (hash, bounds, pixels, EXIF) so nothing large is held between them.
+     */
+    private fun process(name: String, label: String, open: () -> InputStream): Result<File> = runCatching {
+        val start = System.currentTimeMillis()
+        val hash = contentHash(open)
+        
+        val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+        open().use { BitmapFactory.decodeStream(it, null, bounds) }
+        require(bounds.outWidth > 0 && bounds.outHeight > 0) { "Not an image: $label" }
+        
+        // Subsample while decoding so the full-resolution bitmap is never in memory
+        val options = BitmapFactory.Options().apply {
+            inSampleSize = sampleSizeFor(max(bounds.outWidth, bounds.outHeight), PhotoVariant.FULL.maxEdgePx)
+        }
+        val decoded = open().use { BitmapFactory.decodeStream(it, null, options) }
+            ?: error("Failed to decode $label")
+        var bitmap = applyOrientation(decoded, readOrientation(open, label))
+        
+        dir.mkdirs()
+        
+        // Largest first, each scaled from the one before
+        for (variant in PhotoVariant.entries.sortedByDescending { it.maxEdgePx }) {
+            val scaled = scaleToFit(bitmap, variant.maxEdgePx)
+            if (scaled !== bitmap) {
+                bitmap.recycle()
+                bitmap = scaled
+            }
+            write(bitmap, fileFor(name, hash, variant))
+        }
+        bitmap.recycle()
+        
+        removeOthers(name, keepHash = hash)
+        
+        Log.d(TAG, "Stored $name ($hash) from ${bounds.outWidth}x${bounds.outHeight} in ${System.currentTimeMillis() - start}ms")
+        fileFor(name, hash, PhotoVariant.FULL)
+    }.onFailure { e ->
+        Log.e(TAG, "Failed to store photo $name from $label", e)
+    }
+    
+    private fun openSource(source: String): InputStream {
+        if (source.startsWith("/")) return File(source).inputStream()
+        return context.contentResolver.openInputStream(Uri.parse(source))
+            ?: error("Cannot open $source")
+    }
+    
+    private fun contentHash(open: () -> InputStream): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+        open().use { input ->
+            val buffer = ByteArray(64 * 1024)
+            while (true) {
+                val read = input.read(buffer)
+                if (read < 0) break
+                digest.update(buffer, 0, read)
+            }
+        }
+        return digest.digest().joinToString("") { "%02x".format(it) }.take(HASH_CHARS)
+    }
+    
+    /**
+     * Largest power-of-two sample size that keeps the longest edge >= [targetPx].
+     */
+    private fun sampleSizeFor(longestEdge: Int, targetPx: Int): Int {
+        var sampleSize = 1
+        while (longestEdge / (sampleSize * 2) >= targetPx) {
+            sampleSize *= 2
+        }
+        return sampleSize
+    }
+    
+    private fun readOrientation(open: () -> InputStream, label: String): Int {
+        return try {
+            open().use { input ->
+                ExifInterface(input).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL
+                )
+            }
+        } catch (e: Exception) {
+            Log.w(TAG, "No EXIF orientation for $label", e)
+            ExifInterface.ORIENTATION_NORMAL
+        }
+    }
+    
+    private fun applyOrientation(bitmap: Bitmap, orientation: Int): Bitmap {
+        val matrix = Matrix()
+        when (orientation) {
+            ExifInterface.ORIENTATION_NORMAL, ExifInterface.ORIENTATION_UNDEFINED -> return bitmap
+            ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> matrix.setScale(-1f, 1f)
+            ExifInterface.ORIENTATION_ROTATE_180 -> matrix.setRotate(180f)
+            ExifInterface.ORIENTATION_FLIP_VERTICAL -> matrix.setScale(1f, -1f)
+            ExifInterface.ORIENTATION_TRANSPOSE -> {
+                matrix.setRotate(90f)
+                matrix.postScale(-1f, 1f)
+            }
+            ExifInterface.ORIENTATION_ROTATE_90 -> matrix.setRotate(90f)
+            ExifInterface.ORIENTATION_TRANSVERSE -> {
+                matrix.setRotate(-90f)
+                matrix.postScale(-1f, 1f)
+            }
+            ExifInterface.ORIENTATION_ROTATE_270 -> matrix.setRotate(-90f)
+            else -> return bitmap
+        }
+        val rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.width, bitmap.height, matrix, true)
+        if (rotated !== bitmap) bitmap.recycle()
+        return rotated
+    }
+    
+    private fun scaleToFit(bitmap: Bitmap, maxEdgePx: Int): Bitmap {
+        val longest = max(bitmap.width, bitmap.height)
+        if (longest <= maxEdgePx) return bitmap
+        val scale = maxEdgePx.toFloat() / longest
+        return Bitmap.createScaledBitmap(
+            bitmap,
+            (bitmap.width * scale).roundToInt().coerceAtLeast(1),
+            (bitmap.height * scale).roundToInt().coerceAtLeast(1),
+            true
+        )
+    }
+    
+    // ========== FILES ==========
+    
+    private fun fileFor(name: String, hash: String, variant: PhotoVariant): File =
+        File(dir, "${name}_${hash}_${variant.suffix}.jpg")
+    
+    /**
+     * Write via a temp file so readers never see a half-written JPEG.
+     */
+    private fun write(bitmap: Bitmap, target: File) {
+        val temp = File(dir, "${target.name}.tmp")
+        temp.outputStream().use { out ->
+            check(bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out)) {
+                "Failed to encode ${target.name}"
+            }
+        }
+        if (!temp.renameTo(target)) {
+            temp.delete()
+            error("Failed to move ${target.name} into place")
+        }
+    }
+    
+    private fun removeOthers(name: String, keepHash: String?) {
+        val keepPrefix = keepHash?.let { "${name}_${it}_" }
+        dir.listFiles()?.forEach { file ->
+            if (file.name.startsWith("${name}_") &&
+                (keepPrefix == null || !file.name.startsWith(keepPrefix))
+            ) {
+                file.delete()
+            }
+        }
+    }
+}
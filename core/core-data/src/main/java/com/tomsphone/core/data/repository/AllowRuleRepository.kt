@@ -0,0 +1,24 @@
+package com.tomsphone.core.data.repository
+
+import com.tomsphone.core.data.model.AllowRule
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Repository interface for call screening allow rules
+ */
+interface AllowRuleRepository {
+    
+    fun getRules(): Flow<List<AllowRule>>
+    
+    suspend fun getRule(id: Long): AllowRule?
+    
+    /**
+     * Insert (id 0) or update a rule. Fails with IllegalArgumentException
+     * and a carer-readable message if the rule is invalid.
+     */
+    suspend fun saveRule(rule: AllowRule): Result<Long>
+    
+    suspend fun setRuleEnabled(id: Long, enabled: Boolean): Result<Unit>
+    
+    suspend fun removeRule(id: Long): Result<Unit>
+}
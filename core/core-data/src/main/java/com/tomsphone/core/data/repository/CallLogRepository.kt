@@ -1,6 +1,8 @@
 package com.tomsphone.core.data.repository
 
+import androidx.paging.PagingData
 import com.tomsphone.core.data.model.CallLogEntry
+import com.tomsphone.core.data.model.CallStats
 import kotlinx.coroutines.flow.Flow
 
 /**
@@ -10,16 +12,60 @@ interface CallLogRepository {
     
     fun getMissedCalls(limit: Int): Flow<List<CallLogEntry>>
     
+    /**
+     * Unread missed calls from CARER contacts (the ones that trigger a nag)
+     */
+    fun getUnreadCarerMissedCalls(limit: Int): Flow<List<CallLogEntry>>
+    
     fun getRecentCalls(limit: Int): Flow<List<CallLogEntry>>
     
-    fun getCallsForContact(contactId: Long): Flow<List<CallLogEntry>>
+    fun getCallsForContact(contactId: Long, limit: Int = DEFAULT_CONTACT_HISTORY_LIMIT): Flow<List<CallLogEntry>>
+    
+    // ========== PAGED (for list screens) ==========
+    
+    /**
+     * All missed calls (read and unread), newest first, loaded a page at a time
+     */
+    fun pagedMissedCalls(): Flow<PagingData<CallLogEntry>>
+    
+    /**
+     * Full call history, newest first, loaded a page at a time
+     */
+    fun pagedRecentCalls(): Flow<PagingData<CallLogEntry>>
+    
+    /**
+     * One contact's call history, newest first, loaded a page at a time
+     */
+    fun pagedCallsForContact(contactId: Long): Flow<PagingData<CallLogEntry>>
     
-    suspend fun logCall(entry: CallLogEntry): Result<Long>
+    // ========== STATISTICS ==========
+    
+    /**
+     * Per-day, per-contact call totals for the last [days] days, newest first.
+     * Read from maintained aggregates - cost doesn't grow with history.
+     */
+    fun getDailyCallStats(days: Int): Flow<List<CallStats>>
+    
+    /**
+     * Per-contact call totals over the last [days] days
+     */
+    fun getCallStatsByContact(days: Int): Flow<List<CallStats>>
+    
+    /**
+     * Log a call (and add it to the statistics, in the same transaction).
+     * Writes are batched briefly; returns once the row is queued.
+     */
+    suspend fun logCall(entry: CallLogEntry): Result<Unit>
     
     suspend fun markAsRead(id: Long): Result<Unit>
     
     suspend fun markAllMissedAsRead(): Result<Unit>
     
     suspend fun deleteOlderThan(timestamp: Long): Result<Unit>
+    
+    companion object {
+        const val DEFAULT_CONTACT_HISTORY_LIMIT = 50
+        const val PAGE_SIZE = 30
+    }
 }
 
@@ -1,7 +1,11 @@
 package com.tomsphone.core.data.repository
 
+import android.net.Uri
+import com.tomsphone.core.data.importer.ContactImportProgress
 import com.tomsphone.core.data.model.Contact
+import com.tomsphone.core.data.model.ContactType
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.StateFlow
 
 /**
  * Repository interface for contacts
@@ -26,6 +30,37 @@ interface ContactRepository {
     
     suspend fun setPrimaryContact(id: Long): Result<Unit>
     
+    // ========== BULK (one transaction, one change notification each) ==========
+    
+    suspend fun addContacts(contacts: List<Contact>): Result<List<Long>>
+    
+    suspend fun updateContacts(contacts: List<Contact>): Result<Unit>
+    
+    /**
+     * Reorder home buttons: [contactIds] in display order, first = top
+     */
+    suspend fun reorderContacts(contactIds: List<Long>): Result<Unit>
+    
+    /**
+     * Import contacts from a vCard (3/4) or CSV file, skipping numbers already present.
+     * Streams the file and inserts in batches. Runs in the background, independent
+     * of the caller; progress is in [getImportProgress]. False if one is already running.
+     */
+    fun importContacts(uri: Uri, contactType: ContactType = ContactType.GREY_LIST): Boolean
+    
+    /**
+     * Contact import in progress / last result (null = none)
+     */
+    fun getImportProgress(): StateFlow<ContactImportProgress?>
+    
+    fun clearImportResult()
+    
     suspend fun getContactCount(): Int
+    
+    /**
+     * Recompute stored number keys with the current home country.
+     * Returns how many contacts changed.
+     */
+    suspend fun refreshNumberKeys(): Result<Int>
 }
 
@@ -0,0 +1,106 @@
+package com.tomsphone.core.data.util
+
+/**
+ * Dialling rules for one country, as needed to turn a dialled or
+ * received number into its international (E.164) form
+ * 
+ * Prefixes are digit strings, held as (value, length) so they can be
+ * compared against a packed number without building Strings.
+ */
+class CountryRule(
+    /** ISO 3166 alpha-2 code, upper case */
+    val iso: String,
+    /** Country calling code, e.g. 44 */
+    val callingCode: Int,
+    /** Prefix dialled before a national number, e.g. "0" - empty if none */
+    val trunkPrefix: String,
+    /** Prefix dialled before a country code, e.g. "00" */
+    val internationalPrefix: String,
+    /** Valid lengths of the national significant number (after trunk prefix) */
+    val nationalLengths: IntRange,
+    /** Trunk prefix is part of the number and never dropped (Italy) */
+    val keepsTrunkPrefix: Boolean = false
+) {
+    val callingCodeLength: Int = callingCode.toString().length
+    
+    val trunkPrefixValue: Long = trunkPrefix.toLongOrNull() ?: 0L
+    val trunkPrefixLength: Int = trunkPrefix.length
+    
+    val internationalPrefixValue: Long = internationalPrefix.toLong()
+    val internationalPrefixLength: Int = internationalPrefix.length
+    
+    override fun toString(): String = "$iso(+$callingCode)"
+}
+
+/**
+ * Country rules table used by PhoneNumberUtils
+ * 
+ * Covers the countries handsets are deployed in plus common callers'
+ * countries. Numbers from countries not listed still normalize when they
+ * arrive in international form - the table is only needed for national
+ * (trunk-prefixed) numbers and for "+CC (0)..." style input.
+ */
+object CountryRules {
+    
+    /** Used when the home country can't be determined or isn't in the table */
+    const val DEFAULT_ISO = "GB"
+    
+    val ALL: List<CountryRule> = listOf(
+        CountryRule("GB", 44, "0", "00", 9..10),
+        CountryRule("IE", 353, "0", "00", 7..9),
+        CountryRule("US", 1, "1", "011", 10..10),
+        CountryRule("CA", 1, "1", "011", 10..10),
+        CountryRule("AU", 61, "0", "0011", 9..9),
+        CountryRule("NZ", 64, "0", "00", 8..10),
+        CountryRule("ZA", 27, "0", "00", 9..9),
+        CountryRule("IN", 91, "0", "00", 10..10),
+        CountryRule("DE", 49, "0", "00", 6..13),
+        CountryRule("AT", 43, "0", "00", 4..13),
+        CountryRule("CH", 41, "0", "00", 9..9),
+        CountryRule("FR", 33, "0", "00", 9..9),
+        CountryRule("BE", 32, "0", "00", 8..9),
+        CountryRule("NL", 31, "0", "00", 9..9),
+        CountryRule("LU", 352, "", "00", 4..11),
+        CountryRule("ES", 34, "", "00", 9..9),
+        CountryRule("PT", 351, "", "00", 9..9),
+        CountryRule("IT", 39, "0", "00", 6..11, keepsTrunkPrefix = true),
+        CountryRule("DK", 45, "", "00", 8..8),
+        CountryRule("NO", 47, "", "00", 8..8),
+        CountryRule("SE", 46, "0", "00", 7..9),
+        CountryRule("FI", 358, "0", "00", 5..12),
+        CountryRule("PL", 48, "", "00", 9..9),
+        CountryRule("GR", 30, "", "00", 10..10),
+        CountryRule("CY", 357, "", "00", 8..8),
+        CountryRule("MT", 356, "", "00", 8..8),
+        CountryRule("JP", 81, "0", "010", 9..10),
+        CountryRule("SG", 65, "", "000", 8..8),
+        CountryRule("HK", 852, "", "001", 8..8),
+        CountryRule("AE", 971, "0", "00", 8..9),
+        CountryRule("IL", 972, "0", "00", 8..9),
+        CountryRule("MX", 52, "", "00", 10..10),
+        CountryRule("BR", 55, "0", "00", 10..11)
+    )
+    
+    private val byIso: Map<String, CountryRule> = ALL.associateBy { it.iso }
+    
+    // Index by calling code for allocation-free lookup (codes are 1-3 digits).
+    // Shared codes (+1) resolve to the first listed country.
+    private val byCallingCode: Array<CountryRule?> = arrayOfNulls<CountryRule>(1000).also { table ->
+        for (rule in ALL) {
+            if (table[rule.callingCode] == null) table[rule.callingCode] = rule
+        }
+    }
+    
+    val DEFAULT: CountryRule = byIso.getValue(DEFAULT_ISO)
+    
+    fun forIso(iso: String?): CountryRule? = iso?.let { byIso[it.uppercase()] }
+    
+    /**
+     * Rule for a calling code of exactly [length] digits, or null
+     */
+    fun forCallingCode(code: Long, length: Int): CountryRule? {
+        if (code < 0 || code >= byCallingCode.size) return null
+        val rule = byCallingCode[code.toInt()] ?: return null
+        return if (rule.callingCodeLength == length) rule else null
+    }
+}
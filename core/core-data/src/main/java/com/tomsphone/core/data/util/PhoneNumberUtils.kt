@@ -1,55 +1,336 @@
 package com.tomsphone.core.data.util
 
+import android.content.Context
+import android.telephony.TelephonyManager
+import android.util.Log
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import java.util.Locale
+
 /**
  * Utility functions for phone number matching
  * 
- * Handles UK phone number formats:
- * - +44 prefix (international)
- * - 0 prefix (national)
- * - Various spacing/punctuation
+ * Every number is reduced to a packed Long key (see [numberKey]) using the
+ * dialling rules in [CountryRules]:
+ * - "+CC", the home country's international prefix ("00", "011"...) or a
+ *   bare country code -> international
+ * - Home trunk prefix ("0", "1"...) -> national, in the home country
+ * - Spacing, punctuation and "+CC (0)" forms all collapse to the same key
+ * 
+ * Two numbers are the same if and only if their keys are equal. Numbers that
+ * can't be placed in a country (short codes, unusual lengths) get a key from
+ * their raw digits, so they still only match themselves.
  */
 object PhoneNumberUtils {
     
+    private const val TAG = "PhoneNumberUtils"
+    
+    // Last home country and key rules, which stored keys were made with (see HomeCountryTracker)
+    internal const val PREFS_NAME = "phone_numbers"
+    internal const val KEY_HOME_COUNTRY = "home_country"
+    internal const val KEY_RULES_VERSION = "key_rules_version"
+    
+    /** Bumped whenever [numberKey] gives a different key for some input */
+    internal const val RULES_VERSION = 2
+    
+    /** Number of trailing digits used as the contact lookup key */
+    const val MATCH_SUFFIX_LENGTH = 10
+    
+    /** Key for null, empty or unparseable input - never matches anything */
+    const val NO_KEY = 0L
+    
+    // E.164 numbers are at most 15 digits; raw keys use the same limit
+    private const val MAX_KEY_DIGITS = 15
+    
+    // Digits accumulated while scanning (fits a Long with room to spare)
+    private const val MAX_SCAN_DIGITS = 18
+    
+    // Key layout: [62] raw flag | [61..56] digit count | [55..0] digits as a number
+    private const val LENGTH_SHIFT = 56
+    private const val RAW_FLAG = 1L shl 62
+    private const val VALUE_MASK = (1L shl LENGTH_SHIFT) - 1
+    
+    private val POW10 = LongArray(MAX_SCAN_DIGITS + 1).also { table ->
+        table[0] = 1L
+        for (i in 1 until table.size) table[i] = table[i - 1] * 10
+    }
+    
+    private val _homeCountry = MutableStateFlow(CountryRules.forIso(Locale.getDefault().country) ?: CountryRules.DEFAULT)
+    
+    /**
+     * Home country as a Flow, for anything that caches keys
+     */
+    val homeCountryFlow: StateFlow<CountryRule> = _homeCountry.asStateFlow()
+    
     /**
-     * Normalize a phone number by removing non-digits and handling UK +44 prefix
+     * Country that national numbers are assumed to belong to.
+     * Set at startup from the SIM (see [initHomeCountry]).
      */
-    fun normalize(phoneNumber: String?): String {
-        if (phoneNumber == null) return ""
+    var homeCountry: CountryRule
+        get() = _homeCountry.value
+        set(value) {
+            _homeCountry.value = value
+        }
+    
+    /**
+     * Pick the home country from the SIM, then the network, then the last
+     * home country, then the locale - so a SIM that isn't readable yet
+     * doesn't switch countries. Call before anything normalizes numbers
+     * (i.e. first thing in Application.onCreate).
+     */
+    fun initHomeCountry(context: Context) {
+        val telephony = context.getSystemService(Context.TELEPHONY_SERVICE) as? TelephonyManager
+        val saved = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).getString(KEY_HOME_COUNTRY, null)
+        val rule = CountryRules.forIso(telephony?.simCountryIso?.ifEmpty { null })
+            ?: CountryRules.forIso(telephony?.networkCountryIso?.ifEmpty { null })
+            ?: CountryRules.forIso(saved)
+            ?: CountryRules.forIso(Locale.getDefault().country)
+            ?: CountryRules.DEFAULT
+        homeCountry = rule
+        Log.d(TAG, "Home country: $rule")
+    }
+    
+    // ========== KEYS ==========
+    
+    /**
+     * Packed key for a phone number, or [NO_KEY]. Allocation-free: the number
+     * is scanned once into a Long, and all prefix checks are arithmetic on it.
+     * 
+     * Digits after ',' or ';' (pauses, extensions) are ignored.
+     */
+    fun numberKey(phoneNumber: CharSequence?, home: CountryRule = homeCountry): Long {
+        if (phoneNumber == null) return NO_KEY
+        
+        var digits = 0L
+        var length = 0
+        var plus = false
+        for (i in 0 until phoneNumber.length) {
+            val c = phoneNumber[i]
+            when {
+                c in '0'..'9' -> {
+                    if (length == MAX_SCAN_DIGITS) return NO_KEY
+                    digits = digits * 10 + (c - '0')
+                    length++
+                }
+                c == '+' && length == 0 -> plus = true
+                c == ',' || c == ';' -> break
+            }
+        }
+        if (length == 0) return NO_KEY
         
-        // Remove all non-digit characters
-        var digits = phoneNumber.replace(Regex("[^0-9]"), "")
+        // Explicit international forms: "+CC..." or "<intl prefix>CC..."
+        if (plus) return internationalKey(digits, length)
+        val ipLength = home.internationalPrefixLength
+        if (length > ipLength && leading(digits, length, ipLength) == home.internationalPrefixValue) {
+            return internationalKey(trailing(digits, length - ipLength), length - ipLength)
+        }
         
-        // Handle UK +44 prefix -> 0
-        if (digits.startsWith("44") && digits.length > 10) {
-            digits = "0" + digits.substring(2)
+        // National with trunk prefix: "0 7597 086211"
+        val tpLength = home.trunkPrefixLength
+        val dropsTrunkPrefix = tpLength > 0 && !home.keepsTrunkPrefix
+        if (dropsTrunkPrefix && length > tpLength &&
+            leading(digits, length, tpLength) == home.trunkPrefixValue &&
+            (length - tpLength) in home.nationalLengths
+        ) {
+            return e164Key(home, trailing(digits, length - tpLength), length - tpLength)
         }
         
-        return digits
+        // Home country code without the "+": "44 7597 086211". Where national
+        // numbers are dialled with a trunk prefix, this wins when the digits
+        // also fit the trunkless form below ("49 30 1234567" in Germany).
+        val callingCodeKey = homeCallingCodeKey(home, digits, length)
+        if (dropsTrunkPrefix && callingCodeKey != NO_KEY) return callingCodeKey
+        
+        // National significant number as-is (countries without a trunk prefix,
+        // or networks that drop it)
+        if (length in home.nationalLengths &&
+            (!dropsTrunkPrefix || leading(digits, length, tpLength) != home.trunkPrefixValue)
+        ) {
+            return e164Key(home, digits, length)
+        }
+        
+        if (callingCodeKey != NO_KEY) return callingCodeKey
+        
+        return rawKey(digits, length)
     }
     
     /**
-     * Check if two phone numbers match
-     * Compares last 10 digits for flexibility with international prefixes
+     * Key for digits that start with the home country code, or [NO_KEY]
      */
-    fun isMatch(number1: String?, number2: String?): Boolean {
-        val clean1 = normalize(number1)
-        val clean2 = normalize(number2)
-        
-        if (clean1.isEmpty() || clean2.isEmpty()) {
-            return false
+    private fun homeCallingCodeKey(home: CountryRule, digits: Long, length: Int): Long {
+        val ccLength = home.callingCodeLength
+        if (length > ccLength && leading(digits, length, ccLength) == home.callingCode.toLong() &&
+            (length - ccLength) in home.nationalLengths
+        ) {
+            return internationalKey(digits, length)
         }
+        return NO_KEY
+    }
+    
+    /**
+     * Digits after the international prefix: country code + national number.
+     */
+    private fun internationalKey(digits: Long, length: Int): Long {
+        for (ccLength in 1..3) {
+            if (length <= ccLength) break
+            val rule = CountryRules.forCallingCode(leading(digits, length, ccLength), ccLength) ?: continue
+            
+            var nsn = trailing(digits, length - ccLength)
+            var nsnLength = length - ccLength
+            // "+44 (0)7597..." - drop the trunk prefix written after the country code
+            val tpLength = rule.trunkPrefixLength
+            if (tpLength > 0 && !rule.keepsTrunkPrefix && nsnLength > tpLength &&
+                leading(nsn, nsnLength, tpLength) == rule.trunkPrefixValue &&
+                (nsnLength - tpLength) in rule.nationalLengths
+            ) {
+                nsnLength -= tpLength
+                nsn = trailing(nsn, nsnLength)
+            }
+            return e164Key(rule, nsn, nsnLength)
+        }
+        // Country not in the table - the digits are already E.164
+        return if (length <= MAX_KEY_DIGITS) pack(digits, length, raw = false) else NO_KEY
+    }
+    
+    private fun e164Key(rule: CountryRule, nsn: Long, nsnLength: Int): Long {
+        val length = rule.callingCodeLength + nsnLength
+        if (length > MAX_KEY_DIGITS) return NO_KEY
+        return pack(rule.callingCode * POW10[nsnLength] + nsn, length, raw = false)
+    }
+    
+    private fun rawKey(digits: Long, length: Int): Long {
+        return if (length <= MAX_KEY_DIGITS) pack(digits, length, raw = true) else NO_KEY
+    }
+    
+    private fun pack(value: Long, length: Int, raw: Boolean): Long {
+        val key = (length.toLong() shl LENGTH_SHIFT) or value
+        return if (raw) key or RAW_FLAG else key
+    }
+    
+    /** First [count] of [length] packed digits */
+    private fun leading(digits: Long, length: Int, count: Int): Long = digits / POW10[length - count]
+    
+    /** Last [count] packed digits */
+    private fun trailing(digits: Long, count: Int): Long = digits % POW10[count]
+    
+    /**
+     * True if the key is a full international number (not raw digits)
+     */
+    fun isInternational(key: Long): Boolean = key != NO_KEY && key and RAW_FLAG == 0L
+    
+    /**
+     * Number of digits in a key (0 for [NO_KEY])
+     */
+    fun keyLength(key: Long): Int = ((key ushr LENGTH_SHIFT) and 0x3FL).toInt()
+    
+    /**
+     * Digits of a key as a number (no leading zeros) - see [keyLength] for the count.
+     * Lets callers walk the digits arithmetically instead of via [keyDigits].
+     */
+    fun keyValue(key: Long): Long = key and VALUE_MASK
+    
+    /**
+     * Digits of a key: E.164 digits (no '+') or the raw digits.
+     * Allocates - for storage and logging, not the call path.
+     */
+    fun keyDigits(key: Long): String {
+        if (key == NO_KEY) return ""
+        return (key and VALUE_MASK).toString().padStart(keyLength(key), '0')
+    }
+    
+    /**
+     * "+447597086211" for international keys, raw digits otherwise.
+     */
+    fun formatKey(key: Long): String {
+        return if (isInternational(key)) "+" + keyDigits(key) else keyDigits(key)
+    }
+    
+    // ========== PREFIXES ==========
+    
+    /**
+     * International digits that a number prefix stands for, e.g. "01632 96"
+     * -> "44163296" with a GB home country, so it can be compared with the
+     * leading digits of a key. Empty if there are no digits or too many.
+     * 
+     * Prefixes are too short for the length checks [numberKey] relies on,
+     * so "+CC" and the international prefix mean international, a leading
+     * trunk prefix means national, and anything else is taken as national
+     * without the trunk prefix. Allocates - for building rules, not the call path.
+     */
+    fun prefixDigits(prefix: CharSequence?, home: CountryRule = homeCountry): String {
+        if (prefix == null) return ""
         
-        // Compare last 10 digits for flexibility
-        val suffix1 = clean1.takeLast(10)
-        val suffix2 = clean2.takeLast(10)
+        val digits = StringBuilder()
+        var plus = false
+        for (c in prefix) {
+            when {
+                c in '0'..'9' -> digits.append(c)
+                c == '+' && digits.isEmpty() -> plus = true
+                c == ',' || c == ';' -> break
+            }
+        }
+        if (digits.isEmpty()) return ""
         
-        return suffix1.endsWith(suffix2) || suffix2.endsWith(suffix1)
+        val international = when {
+            plus -> digits.toString()
+            digits.length > home.internationalPrefixLength && digits.startsWith(home.internationalPrefix) ->
+                digits.substring(home.internationalPrefixLength)
+            else -> null
+        }
+        val result = if (international != null) {
+            dropTrunkAfterCallingCode(international)
+        } else {
+            val national = if (home.trunkPrefixLength > 0 && !home.keepsTrunkPrefix && digits.startsWith(home.trunkPrefix)) {
+                digits.substring(home.trunkPrefixLength)
+            } else {
+                digits.toString()
+            }
+            home.callingCode.toString() + national
+        }
+        return if (result.length <= MAX_KEY_DIGITS) result else ""
+    }
+    
+    /**
+     * "44 (0)1632" -> "441632" for countries whose trunk prefix isn't part of the number
+     */
+    private fun dropTrunkAfterCallingCode(digits: String): String {
+        for (ccLength in 1..3) {
+            if (digits.length <= ccLength) break
+            val rule = CountryRules.forCallingCode(digits.take(ccLength).toLong(), ccLength) ?: continue
+            val rest = digits.substring(ccLength)
+            return if (rule.trunkPrefixLength > 0 && !rule.keepsTrunkPrefix && rest.length > rule.trunkPrefixLength &&
+                rest.startsWith(rule.trunkPrefix)
+            ) {
+                digits.take(ccLength) + rest.substring(rule.trunkPrefixLength)
+            } else {
+                digits
+            }
+        }
+        return digits
+    }
+    
+    // ========== STRING HELPERS ==========
+    
+    /**
+     * Normalized digits of a phone number (see [keyDigits])
+     */
+    fun normalize(phoneNumber: String?): String = keyDigits(numberKey(phoneNumber))
+    
+    /**
+     * Check if two phone numbers match
+     */
+    fun isMatch(number1: String?, number2: String?): Boolean {
+        val key1 = numberKey(number1)
+        return key1 != NO_KEY && key1 == numberKey(number2)
     }
     
     /**
      * Get the last N digits of a phone number for matching
+     * 
+     * The default length is the key stored in ContactEntity.normalizedSuffix.
      */
-    fun getMatchSuffix(phoneNumber: String?, length: Int = 10): String {
+    fun getMatchSuffix(phoneNumber: String?, length: Int = MATCH_SUFFIX_LENGTH): String {
         return normalize(phoneNumber).takeLast(length)
     }
 }
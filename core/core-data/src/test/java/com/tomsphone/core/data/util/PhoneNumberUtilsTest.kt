@@ -0,0 +1,89 @@
+package com.tomsphone.core.data.util
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class PhoneNumberUtilsTest {
+
+    private class Case(val home: CountryRule, val number: String, val expected: String)
+
+    private val corpus: List<Case> by lazy {
+        val stream = checkNotNull(javaClass.getResourceAsStream("/number_keys.tsv")) { "number_keys.tsv missing" }
+        stream.bufferedReader().useLines { lines ->
+            lines.filter { it.isNotBlank() && !it.startsWith("#") }
+                .map { line ->
+                    val (iso, number, expected) = line.split('\t')
+                    Case(checkNotNull(CountryRules.forIso(iso)) { "Unknown country $iso" }, number, expected)
+                }
+                .toList()
+        }
+    }
+
+    @Before
+    fun setUp() {
+        PhoneNumberUtils.homeCountry = CountryRules.forIso("GB")!!
+    }
+
+    @Test
+    fun goldenCorpus() {
+        assertEquals(CountryRules.ALL.map { it.iso }.toSet(), corpus.map { it.home.iso }.toSet())
+        for (case in corpus) {
+            val key = PhoneNumberUtils.numberKey(case.number, case.home)
+            assertEquals("${case.home} \"${case.number}\"", case.expected, PhoneNumberUtils.formatKey(key))
+        }
+    }
+
+    @Test
+    fun noKeyForNothingToMatch() {
+        assertEquals(PhoneNumberUtils.NO_KEY, PhoneNumberUtils.numberKey(null))
+        assertEquals(PhoneNumberUtils.NO_KEY, PhoneNumberUtils.numberKey(""))
+        assertEquals(PhoneNumberUtils.NO_KEY, PhoneNumberUtils.numberKey("Withheld"))
+        assertFalse(PhoneNumberUtils.isMatch("Withheld", "Unknown"))
+    }
+
+    /**
+     * Why stored keys are redone when the home country changes (HomeCountryTracker)
+     */
+    @Test
+    fun nationalNumbersFollowHomeCountry() {
+        val ireland = CountryRules.forIso("IE")!!
+        assertEquals("+35312345678", PhoneNumberUtils.formatKey(PhoneNumberUtils.numberKey("01 234 5678", ireland)))
+        assertNotEquals(
+            PhoneNumberUtils.numberKey("01632 960001"),
+            PhoneNumberUtils.numberKey("01632 960001", ireland)
+        )
+
+        // International numbers don't depend on it
+        assertEquals(
+            PhoneNumberUtils.numberKey("+44 1632 960001"),
+            PhoneNumberUtils.numberKey("+44 1632 960001", ireland)
+        )
+    }
+
+    @Test
+    fun prefixDigits() {
+        assertEquals("44163296", PhoneNumberUtils.prefixDigits("01632 96"))
+        assertEquals("44163296", PhoneNumberUtils.prefixDigits("+44 (0)1632 96"))
+        assertEquals("44163296", PhoneNumberUtils.prefixDigits("0044 1632 96"))
+        assertEquals("3531", PhoneNumberUtils.prefixDigits("01", CountryRules.forIso("IE")!!))
+        assertEquals("", PhoneNumberUtils.prefixDigits("ext"))
+    }
+
+    @Test
+    fun keyParts() {
+        val key = PhoneNumberUtils.numberKey("07597 086211")
+        assertTrue(PhoneNumberUtils.isInternational(key))
+        assertEquals(12, PhoneNumberUtils.keyLength(key))
+        assertEquals(447597086211L, PhoneNumberUtils.keyValue(key))
+        assertEquals("447597086211", PhoneNumberUtils.keyDigits(key))
+        assertEquals("7597086211", PhoneNumberUtils.getMatchSuffix("+44 (0)7597 086211"))
+
+        val shortCode = PhoneNumberUtils.numberKey("999")
+        assertFalse(PhoneNumberUtils.isInternational(shortCode))
+        assertEquals("999", PhoneNumberUtils.keyDigits(shortCode))
+    }
+}
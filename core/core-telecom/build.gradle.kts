@@ -28,6 +28,11 @@ android {
     kotlinOptions {
         jvmTarget = "17"
     }
+    
+    testOptions {
+        // android.util.Log in code under test
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -49,5 +54,8 @@ dependencies {
     // Hilt
     implementation(libs.hilt.android)
     ksp(libs.hilt.compiler)
+    
+    // Testing
+    testImplementation(libs.junit)
 }
 
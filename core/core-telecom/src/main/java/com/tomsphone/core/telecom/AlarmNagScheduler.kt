@@ -0,0 +1,102 @@
+package com.tomsphone.core.telecom
+
+import android.app.AlarmManager
+import android.app.PendingIntent
+import android.content.Context
+import android.content.Intent
+import android.os.Build
+import android.os.SystemClock
+import android.provider.Settings
+import android.util.Log
+import dagger.hilt.android.qualifiers.ApplicationContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * AlarmManager-backed nag timing
+ * 
+ * The alarm wakes the device (also in Doze) and starts the process if it
+ * was killed, via MissedCallNagReceiver. Between reminders no coroutine,
+ * wakelock or foreground service is held.
+ * 
+ * Uses exact alarms where allowed; otherwise falls back to an inexact
+ * allow-while-idle alarm, which the system may defer by a few minutes.
+ * 
+ * The pending reminder (call, due time, boot) is kept in a small prefs
+ * file, so a process started by the alarm knows one is already on its way.
+ * Alarms don't survive a reboot, so a record from an earlier boot - or one
+ * long overdue - no longer counts as scheduled.
+ */
+@Singleton
+class AlarmNagScheduler @Inject constructor(
+    @ApplicationContext private val context: Context
+) : NagScheduler {
+    
+    private companion object {
+        const val TAG = "AlarmNagScheduler"
+        const val REQUEST_CODE = 1001
+        
+        const val PREFS_NAME = "missed_call_nag"
+        const val KEY_CALL_ID = "call_id"
+        const val KEY_DUE_AT = "due_at"
+        const val KEY_BOOT_COUNT = "boot_count"
+        
+        // Longest an inexact alarm is expected to be deferred in Doze
+        const val OVERDUE_LIMIT_MS = 15 * 60 * 1000L
+    }
+    
+    private val alarmManager = context.getSystemService(AlarmManager::class.java)
+    
+    private val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+    
+    override fun schedule(callId: Long, delayMillis: Long) {
+        val triggerAt = SystemClock.elapsedRealtime() + delayMillis
+        val pendingIntent = pendingIntent()
+        
+        prefs.edit()
+            .putLong(KEY_CALL_ID, callId)
+            .putLong(KEY_DUE_AT, System.currentTimeMillis() + delayMillis)
+            .putInt(KEY_BOOT_COUNT, bootCount())
+            .apply()
+        
+        if (canScheduleExact()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent)
+            Log.d(TAG, "Exact nag alarm in ${delayMillis}ms")
+        } else {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerAt, pendingIntent)
+            Log.d(TAG, "Inexact nag alarm in ~${delayMillis}ms (exact alarms not permitted)")
+        }
+    }
+    
+    override fun isScheduled(callId: Long): Boolean {
+        if (!prefs.contains(KEY_CALL_ID) || prefs.getLong(KEY_CALL_ID, 0) != callId) return false
+        if (prefs.getInt(KEY_BOOT_COUNT, -1) != bootCount()) return false
+        return System.currentTimeMillis() < prefs.getLong(KEY_DUE_AT, 0) + OVERDUE_LIMIT_MS
+    }
+    
+    override fun cancel() {
+        alarmManager.cancel(pendingIntent())
+        prefs.edit().clear().apply()
+        Log.d(TAG, "Nag alarm cancelled")
+    }
+    
+    private fun bootCount(): Int {
+        return Settings.Global.getInt(context.contentResolver, Settings.Global.BOOT_COUNT, 0)
+    }
+    
+    private fun canScheduleExact(): Boolean {
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()
+    }
+    
+    // Same request code and intent every time, so a new alarm replaces the pending one
+    private fun pendingIntent(): PendingIntent {
+        val intent = Intent(context, MissedCallNagReceiver::class.java)
+            .setAction(MissedCallNagReceiver.ACTION_NAG_DUE)
+        return PendingIntent.getBroadcast(
+            context,
+            REQUEST_CODE,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT or PendingIntent.FLAG_IMMUTABLE
+        )
+    }
+}
@@ -0,0 +1,142 @@
+package com.tomsphone.core.telecom
+
+import android.util.Log
+import com.tomsphone.core.data.model.AllowRule
+import com.tomsphone.core.data.model.AllowRuleType
+import com.tomsphone.core.data.util.PhoneNumberUtils
+
+/**
+ * Carer allow rules compiled into a digit trie over international (E.164) digits
+ *
+ * A lookup walks the caller's digits from the front, one array read per
+ * digit, so screening costs O(digits) however many rules there are, with
+ * no allocation. Nodes live in flat arrays rather than objects:
+ * - children[node * 10 + digit] is the child node, 0 for none (0 is the root)
+ * - lengthMasks[node] has bit n set if n-digit numbers reaching the node are allowed
+ *
+ * A PREFIX rule allows numbers of any length below its node. A RANGE rule is
+ * split into the few prefixes that exactly cover it (e.g. 441632960000-441632960999
+ * is the single prefix 441632960), each allowing only numbers of the range's length.
+ */
+class AllowRuleTrie private constructor(
+    private val children: IntArray,
+    private val lengthMasks: IntArray,
+    /** Number of rules compiled in */
+    val ruleCount: Int
+) {
+
+    /**
+     * True if [key] (PhoneNumberUtils.numberKey) is allowed by a rule
+     */
+    fun matches(key: Long): Boolean {
+        if (ruleCount == 0 || !PhoneNumberUtils.isInternational(key)) return false
+
+        val length = PhoneNumberUtils.keyLength(key)
+        val value = PhoneNumberUtils.keyValue(key)
+        val lengthBit = 1 shl length
+        var node = ROOT
+        for (place in length - 1 downTo 0) {
+            val digit = ((value / POW10[place]) % RADIX).toInt()
+            node = children[node * RADIX + digit]
+            if (node == ROOT) return false
+            if (lengthMasks[node] and lengthBit != 0) return true
+        }
+        return false
+    }
+
+    override fun toString(): String = "AllowRuleTrie(rules=$ruleCount, nodes=${lengthMasks.size})"
+
+    companion object {
+        private const val TAG = "AllowRuleTrie"
+        private const val RADIX = 10
+        private const val ROOT = 0
+        private const val ANY_LENGTH = -1  // All mask bits
+        private const val MAX_DIGITS = 15
+
+        private val POW10 = LongArray(MAX_DIGITS + 1).also { table ->
+            table[0] = 1L
+            for (i in 1 until table.size) table[i] = table[i - 1] * 10
+        }
+
+        val EMPTY = AllowRuleTrie(IntArray(RADIX), IntArray(1), 0)
+
+        /**
+         * Compile the enabled, valid rules. Rules that no longer validate
+         * (e.g. after a home country change) are skipped.
+         */
+        fun compile(rules: List<AllowRule>): AllowRuleTrie {
+            val builder = Builder()
+            var count = 0
+            for (rule in rules) {
+                if (!rule.enabled) continue
+                if (rule.validationError() != null) {
+                    Log.w(TAG, "Skipping invalid rule ${rule.id}")
+                    continue
+                }
+                when (rule.type) {
+                    AllowRuleType.PREFIX -> builder.insert(PhoneNumberUtils.prefixDigits(rule.startNumber), ANY_LENGTH)
+                    AllowRuleType.RANGE -> {
+                        val start = PhoneNumberUtils.numberKey(rule.startNumber)
+                        val end = PhoneNumberUtils.numberKey(rule.endNumber)
+                        val length = PhoneNumberUtils.keyLength(start)
+                        forEachRangePrefix(PhoneNumberUtils.keyValue(start), PhoneNumberUtils.keyValue(end), length) { prefix ->
+                            builder.insert(prefix, 1 shl length)
+                        }
+                    }
+                }
+                count++
+            }
+            return if (count == 0) EMPTY else builder.build(count)
+        }
+
+        /**
+         * Split [low]..[high] (numbers of [length] digits) into the fewest
+         * prefixes that cover exactly that range.
+         */
+        private inline fun forEachRangePrefix(low: Long, high: Long, length: Int, action: (String) -> Unit) {
+            var current = low
+            while (current <= high) {
+                // Widest aligned block starting at current that stays inside the range
+                var block = 0
+                while (block < length - 1 &&
+                    current % POW10[block + 1] == 0L &&
+                    current + POW10[block + 1] - 1 <= high
+                ) {
+                    block++
+                }
+                action((current / POW10[block]).toString().padStart(length - block, '0'))
+                current += POW10[block]
+            }
+        }
+    }
+
+    private class Builder {
+        private var children = IntArray(RADIX * 64)
+        private var lengthMasks = IntArray(64)
+        private var size = 1  // Root
+
+        fun insert(digits: String, mask: Int) {
+            var node = ROOT
+            for (c in digits) {
+                val slot = node * RADIX + (c - '0')
+                if (children[slot] == ROOT) {
+                    val child = newNode()  // May grow the arrays - read them after
+                    children[slot] = child
+                }
+                node = children[slot]
+            }
+            if (node != ROOT) lengthMasks[node] = lengthMasks[node] or mask
+        }
+
+        private fun newNode(): Int {
+            if (size == lengthMasks.size) {
+                lengthMasks = lengthMasks.copyOf(size * 2)
+                children = children.copyOf(size * 2 * RADIX)
+            }
+            return size++
+        }
+
+        fun build(ruleCount: Int): AllowRuleTrie =
+            AllowRuleTrie(children.copyOf(size * RADIX), lengthMasks.copyOf(size), ruleCount)
+    }
+}
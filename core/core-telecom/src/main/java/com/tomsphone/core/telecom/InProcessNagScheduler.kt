@@ -0,0 +1,49 @@
+package com.tomsphone.core.telecom
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Coroutine-based nag timing - the local stand-in for AlarmNagScheduler
+ * 
+ * Pending reminders are lost if the process dies. Useful on emulators
+ * and while debugging, where alarms are awkward to drive.
+ */
+@Singleton
+class InProcessNagScheduler @Inject constructor(
+    // Lazy - the manager itself depends on NagScheduler
+    private val missedCallNagManager: dagger.Lazy<MissedCallNagManager>
+) : NagScheduler {
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    private var pending: Job? = null
+    private var pendingCallId: Long? = null
+    
+    @Synchronized
+    override fun schedule(callId: Long, delayMillis: Long) {
+        pending?.cancel()
+        pendingCallId = callId
+        pending = scope.launch {
+            delay(delayMillis)
+            missedCallNagManager.get().onNagDue()
+        }
+    }
+    
+    @Synchronized
+    override fun isScheduled(callId: Long): Boolean {
+        return pendingCallId == callId && pending?.isActive == true
+    }
+    
+    @Synchronized
+    override fun cancel() {
+        pending?.cancel()
+        pending = null
+        pendingCallId = null
+    }
+}
@@ -3,13 +3,14 @@ package com.tomsphone.core.telecom
 import android.content.Context
 import android.util.Log
 import com.tomsphone.core.config.SettingsRepository
+import com.tomsphone.core.data.lookup.CallerIdResolver
 import com.tomsphone.core.data.model.CallLogEntry
 import com.tomsphone.core.data.repository.CallLogRepository
-import com.tomsphone.core.data.repository.ContactRepository
 import com.tomsphone.core.tts.TTSScripts
 import com.tomsphone.core.tts.WandasTTS
 import dagger.hilt.android.qualifiers.ApplicationContext
 import com.tomsphone.core.data.model.ContactType
+import com.tomsphone.core.data.util.PhoneNumberUtils
 import kotlinx.coroutines.*
 import kotlinx.coroutines.flow.*
 import javax.inject.Inject
@@ -23,6 +24,9 @@ import javax.inject.Singleton
  * Features:
  * - Tannoy-style bing-bong attention sound before TTS
  * - Repeating TTS reminders at configurable intervals
+ * - Each reminder is scheduled via NagScheduler (an alarm by default), so
+ *   nothing runs between reminders and the nag survives process death
+ *   without restarting its cadence
  * - **Only for CARER contacts** (grey list friends/family do NOT trigger nag)
  * - Stops when: user calls back, carer calls again, or carer dismisses
  * - Enabled by default with "Immediate and every minute" interval
@@ -31,10 +35,11 @@ import javax.inject.Singleton
 class MissedCallNagManager @Inject constructor(
     @ApplicationContext private val context: Context,
     private val callLogRepository: CallLogRepository,
-    private val contactRepository: ContactRepository,
+    private val callerIdResolver: CallerIdResolver,
     private val settingsRepository: SettingsRepository,
     private val tts: WandasTTS,
-    private val ringtonePlayer: RingtonePlayer
+    private val ringtonePlayer: RingtonePlayer,
+    private val nagScheduler: NagScheduler
 ) {
     
     private companion object {
@@ -42,7 +47,6 @@ class MissedCallNagManager @Inject constructor(
     }
     
     private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
-    private var nagJob: Job? = null
     
     // Track which missed calls we're currently nagging about
     private val _activeMissedCalls = MutableStateFlow<List<CallLogEntry>>(emptyList())
@@ -54,87 +58,138 @@ class MissedCallNagManager @Inject constructor(
     // Track if a call is in progress - completely suppress nag while calling
     private var callInProgress: Boolean = false
     
+    // Missed call the scheduled reminders are about
+    @Volatile
+    private var naggingCallId: Long? = null
+    
+    // Re-check after a call ends (see onCallEnded)
+    private var resumeCheckJob: Job? = null
+    
     init {
         // Monitor for new missed calls - only nag for CARER contacts
+        // The carer filter is done in the query, and unrelated call log or
+        // contact writes that leave the result unchanged are ignored
         scope.launch {
-            callLogRepository.getMissedCalls(10)
-                .map { calls -> calls.filter { !it.isRead } }
-                .collect { missedCalls ->
-                    Log.d(TAG, "getMissedCalls returned ${missedCalls.size} unread calls: ${missedCalls.map { "${it.id}:${it.contactName}" }}")
-                    // Filter to only carer contacts for nagging
-                    val carerMissedCalls = missedCalls.filter { call ->
-                        val contact = call.contactId?.let { id ->
-                            contactRepository.getContactById(id).first()
-                        }
-                        contact?.contactType == ContactType.CARER
-                    }
+            callLogRepository.getUnreadCarerMissedCalls(10)
+                .distinctUntilChanged()
+                .collect { carerMissedCalls ->
+                    Log.d(TAG, "Unread carer missed calls changed: ${carerMissedCalls.map { "${it.id}:${it.contactName}" }}")
                     
                     _activeMissedCalls.value = carerMissedCalls
-                    
-                    // Check if nagging is enabled and not suppressed
-                    val settings = settingsRepository.getSettings().first()
-                    val now = System.currentTimeMillis()
-                    
-                    // Don't restart nag while a call is in progress
-                    if (callInProgress) {
-                        Log.d(TAG, "Nag suppressed - call in progress")
-                        return@collect
-                    }
-                    
-                    if (now < nagSuppressedUntil) {
-                        Log.d(TAG, "Nag suppressed for ${nagSuppressedUntil - now}ms more")
-                        return@collect
-                    }
-                    
-                    if (carerMissedCalls.isNotEmpty() && settings.missedCallNagEnabled) {
-                        startNagging(carerMissedCalls.first())
-                    } else {
-                        stopNagging()
-                    }
+                    evaluateNag(carerMissedCalls)
                 }
         }
     }
     
+    /**
+     * Start or stop nagging for the current unread carer missed calls
+     */
+    private suspend fun evaluateNag(carerMissedCalls: List<CallLogEntry>) {
+        // Check if nagging is enabled and not suppressed
+        val settings = settingsRepository.getSettings().first()
+        val now = System.currentTimeMillis()
+        
+        // Don't restart nag while a call is in progress
+        if (callInProgress) {
+            Log.d(TAG, "Nag suppressed - call in progress")
+            return
+        }
+        
+        if (now < nagSuppressedUntil) {
+            Log.d(TAG, "Nag suppressed for ${nagSuppressedUntil - now}ms more")
+            return
+        }
+        
+        if (carerMissedCalls.isNotEmpty() && settings.missedCallNagEnabled) {
+            startNagging(carerMissedCalls.first())
+        } else {
+            stopNagging()
+        }
+    }
+    
     private fun startNagging(missedCall: CallLogEntry) {
-        // Cancel existing nag job
-        nagJob?.cancel()
+        // Already nagging about this call - keep its schedule
+        if (naggingCallId == missedCall.id) {
+            Log.d(TAG, "Already nagging for call ${missedCall.id}")
+            return
+        }
+        
+        naggingCallId = missedCall.id
+        
+        // Process restarted (e.g. by the nag alarm itself) - the next reminder
+        // is already on its way, so keep the cadence instead of starting over
+        if (nagScheduler.isScheduled(missedCall.id)) {
+            Log.d(TAG, "Reminder already scheduled for call ${missedCall.id}")
+            return
+        }
         
         Log.d(TAG, "Starting missed call nag for ${missedCall.contactName}")
         
-        nagJob = scope.launch {
+        scope.launch {
             val settings = settingsRepository.getSettings().first()
-            val nagInterval = settings.missedCallNagInterval
             
-            // Initial delay before first nag
-            delay(nagInterval.initialDelaySeconds * 1000L)
-            
-            while (isActive) {
-                // Play tannoy-style bing-bong attention sound (trimmed version)
-                ringtonePlayer.playAndWait(RingtonePlayer.Ringtone.TANNOY_SHORT)
-                
-                delay(150)  // Brief pause after bing-bong
-                
-                // Speak reminder
-                val message = TTSScripts.missedCallReminder(
-                    callerName = missedCall.contactName ?: "someone",
-                    userName = settings.userName
-                )
-                tts.speak(message, WandasTTS.Priority.HIGH)
-                
-                Log.d(TAG, "Played missed call reminder")
-                
-                // Wait for repeat interval
-                delay(nagInterval.repeatIntervalSeconds * 1000L)
+            // Stopped (or moved on to a newer call) while settings were read
+            if (naggingCallId != missedCall.id) {
+                Log.d(TAG, "Nag for call ${missedCall.id} no longer wanted - not scheduling")
+                return@launch
             }
+            
+            // Initial delay before first nag
+            nagScheduler.schedule(missedCall.id, settings.missedCallNagInterval.initialDelaySeconds * 1000L)
         }
     }
     
     private fun stopNagging() {
-        nagJob?.cancel()
-        nagJob = null
+        nagScheduler.cancel()
+        naggingCallId = null
         Log.d(TAG, "Stopped missed call nagging")
     }
     
+    /**
+     * A scheduled reminder is due (called by the NagScheduler).
+     * 
+     * Plays one reminder and schedules the next. The missed call is read
+     * fresh from the database, as the process may have been restarted
+     * since the nag began.
+     */
+    suspend fun onNagDue() {
+        val missedCall = callLogRepository.getUnreadCarerMissedCalls(1).first().firstOrNull()
+        val settings = settingsRepository.getSettings().first()
+        
+        if (missedCall == null || !settings.missedCallNagEnabled) {
+            Log.d(TAG, "Nag due, but nothing to remind about")
+            stopNagging()
+            return
+        }
+        
+        // Suppressed - nothing is scheduled now, so let go of the call:
+        // onCallEnded re-checks once the window has passed and starts again
+        if (callInProgress || System.currentTimeMillis() < nagSuppressedUntil) {
+            Log.d(TAG, "Nag due, but suppressed")
+            naggingCallId = null
+            return
+        }
+        
+        naggingCallId = missedCall.id
+        
+        // Play tannoy-style bing-bong attention sound (trimmed version)
+        ringtonePlayer.playAndWait(RingtonePlayer.Ringtone.TANNOY_SHORT)
+        
+        delay(150)  // Brief pause after bing-bong
+        
+        // Speak reminder
+        val message = TTSScripts.missedCallReminder(
+            callerName = missedCall.contactName ?: "someone",
+            userName = settings.userName
+        )
+        tts.speak(message, WandasTTS.Priority.HIGH)
+        
+        Log.d(TAG, "Played missed call reminder")
+        
+        // Next reminder after the repeat interval
+        nagScheduler.schedule(missedCall.id, settings.missedCallNagInterval.repeatIntervalSeconds * 1000L)
+    }
+    
     /**
      * Dismiss all missed call reminders and stop all audio immediately
      */
@@ -160,13 +215,13 @@ class MissedCallNagManager @Inject constructor(
             return false
         }
         
-        // Normalize both numbers for comparison
-        val talkingToNormalized = normalizePhoneNumber(phoneNumber)
-        val missedNormalized = normalizePhoneNumber(mostRecentMissedCall.phoneNumber)
+        // Normalize both numbers for comparison (same key the caller ID index uses)
+        val talkingToKey = PhoneNumberUtils.numberKey(phoneNumber)
+        val missedKey = PhoneNumberUtils.numberKey(mostRecentMissedCall.phoneNumber)
         
-        Log.d(TAG, "Call ACTIVE - comparing: talkingTo='$talkingToNormalized' vs missed='$missedNormalized'")
+        Log.d(TAG, "Call ACTIVE - comparing: talkingTo='${PhoneNumberUtils.formatKey(talkingToKey)}' vs missed='${PhoneNumberUtils.formatKey(missedKey)}'")
         
-        if (talkingToNormalized == missedNormalized) {
+        if (talkingToKey != PhoneNumberUtils.NO_KEY && talkingToKey == missedKey) {
             Log.d(TAG, "Now talking to missed caller (${mostRecentMissedCall.contactName}) - DISMISSING nag permanently, id=${mostRecentMissedCall.id}")
             
             // Suppress nag restart permanently for this call (until next missed call)
@@ -203,18 +258,6 @@ class MissedCallNagManager @Inject constructor(
         return false
     }
     
-    /**
-     * Normalize phone number for comparison (UK format)
-     */
-    private fun normalizePhoneNumber(phone: String): String {
-        var digits = phone.replace(Regex("[^0-9]"), "")
-        // Handle UK +44 prefix -> 0
-        if (digits.startsWith("44") && digits.length > 10) {
-            digits = "0" + digits.substring(2)
-        }
-        return digits
-    }
-    
     /**
      * Stop all audio (ringtone + TTS) immediately
      * Call this when user takes action like placing a call
@@ -230,6 +273,7 @@ class MissedCallNagManager @Inject constructor(
      */
     fun onCallStarted() {
         callInProgress = true
+        resumeCheckJob?.cancel()
         stopAllAudio()
         stopNagging()
         Log.d(TAG, "Call started - nag fully suppressed")
@@ -253,6 +297,14 @@ class MissedCallNagManager @Inject constructor(
             nagSuppressedUntil = System.currentTimeMillis() + 3000
             Log.d(TAG, "Call ended - nag suppressed for 3s to allow DB sync")
         }
+        
+        // The missed call list may not change after this call (e.g. talked to
+        // someone else), so re-check once the suppression window has passed
+        resumeCheckJob?.cancel()
+        resumeCheckJob = scope.launch {
+            delay(nagSuppressedUntil - System.currentTimeMillis())
+            evaluateNag(_activeMissedCalls.value)
+        }
     }
     
     /**
@@ -269,7 +321,7 @@ class MissedCallNagManager @Inject constructor(
     fun onMissedCall(phoneNumber: String, contactName: String?) {
         scope.launch {
             // Check if this is a carer contact
-            val contact = contactRepository.getContactByPhone(phoneNumber).first()
+            val contact = callerIdResolver.awaitResolve(phoneNumber)
             
             if (contact?.contactType != ContactType.CARER) {
                 Log.d(TAG, "Missed call from non-carer - no nag")
@@ -0,0 +1,47 @@
+package com.tomsphone.core.telecom
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.util.Log
+import dagger.hilt.android.AndroidEntryPoint
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+
+/**
+ * Receives AlarmNagScheduler alarms and plays the due reminder
+ * 
+ * Also starts the process if it had been killed since the nag began.
+ */
+@AndroidEntryPoint
+class MissedCallNagReceiver : BroadcastReceiver() {
+    
+    companion object {
+        const val ACTION_NAG_DUE = "com.tomsphone.action.MISSED_CALL_NAG_DUE"
+        private const val TAG = "MissedCallNagReceiver"
+    }
+    
+    @Inject
+    lateinit var missedCallNagManager: MissedCallNagManager
+    
+    private val receiverScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    
+    override fun onReceive(context: Context, intent: Intent) {
+        if (intent.action != ACTION_NAG_DUE) return
+        
+        Log.d(TAG, "Nag alarm fired")
+        
+        // Keep the broadcast (and the wakelock the alarm holds) until the reminder has been issued
+        val pendingResult = goAsync()
+        receiverScope.launch {
+            try {
+                missedCallNagManager.onNagDue()
+            } finally {
+                pendingResult.finish()
+            }
+        }
+    }
+}
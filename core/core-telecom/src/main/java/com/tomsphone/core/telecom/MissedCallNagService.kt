@@ -1,76 +0,0 @@
-package com.tomsphone.core.telecom
-
-import android.app.Notification
-import android.app.NotificationChannel
-import android.app.NotificationManager
-import android.app.Service
-import android.content.Intent
-import android.os.Build
-import android.os.IBinder
-import androidx.core.app.NotificationCompat
-import dagger.hilt.android.AndroidEntryPoint
-import javax.inject.Inject
-
-/**
- * Foreground service to keep missed call nagging alive
- * 
- * Required because we need to play audio reminders even when app is in background
- */
-@AndroidEntryPoint
-class MissedCallNagService : Service() {
-    
-    @Inject
-    lateinit var missedCallNagManager: MissedCallNagManager
-    
-    private companion object {
-        const val CHANNEL_ID = "missed_call_reminders"
-        const val NOTIFICATION_ID = 1001
-    }
-    
-    override fun onCreate() {
-        super.onCreate()
-        createNotificationChannel()
-    }
-    
-    override fun onStartCommand(intent: Intent?, flags: Int, startId: Int): Int {
-        // Start as foreground service
-        val notification = createNotification()
-        startForeground(NOTIFICATION_ID, notification)
-        
-        return START_STICKY
-    }
-    
-    override fun onBind(intent: Intent?): IBinder? = null
-    
-    override fun onDestroy() {
-        super.onDestroy()
-        missedCallNagManager.shutdown()
-    }
-    
-    private fun createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            val channel = NotificationChannel(
-                CHANNEL_ID,
-                "Missed Call Reminders",
-                NotificationManager.IMPORTANCE_LOW
-            ).apply {
-                description = "Reminds about missed calls"
-                setSound(null, null)
-            }
-            
-            val notificationManager = getSystemService(NotificationManager::class.java)
-            notificationManager.createNotificationChannel(channel)
-        }
-    }
-    
-    private fun createNotification(): Notification {
-        return NotificationCompat.Builder(this, CHANNEL_ID)
-            .setContentTitle("Wanda's Phone")
-            .setContentText("Monitoring for missed calls")
-            .setSmallIcon(android.R.drawable.ic_menu_call)
-            .setPriority(NotificationCompat.PRIORITY_LOW)
-            .setOngoing(true)
-            .build()
-    }
-}
-
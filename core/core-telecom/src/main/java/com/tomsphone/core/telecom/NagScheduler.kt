@@ -0,0 +1,37 @@
+package com.tomsphone.core.telecom
+
+/**
+ * Schedules the next missed call reminder
+ * 
+ * MissedCallNagManager plays one reminder per firing and then schedules
+ * the next, so nothing has to stay running between reminders.
+ * When the time comes, the scheduler calls MissedCallNagManager.onNagDue().
+ */
+interface NagScheduler {
+    
+    /**
+     * (Re)schedule the next reminder about missed call [callId],
+     * replacing any pending one
+     */
+    fun schedule(callId: Long, delayMillis: Long)
+    
+    /**
+     * True if a reminder about [callId] is pending (or firing right now).
+     * Lets a restarted process pick up the existing cadence instead of
+     * scheduling a second, earlier reminder.
+     */
+    fun isScheduled(callId: Long): Boolean
+    
+    /**
+     * Cancel the pending reminder, if any
+     */
+    fun cancel()
+}
+
+/**
+ * Nag scheduler implementations (selected in TelecomModule)
+ */
+enum class NagSchedulerMode {
+    ALARM,      // AlarmManager - survives process death, CPU can sleep in between
+    IN_PROCESS  // Coroutine delay - only while the process is alive (development/testing)
+}
@@ -0,0 +1,454 @@
+package com.tomsphone.core.telecom
+
+import android.content.Context
+import android.media.MediaCodec
+import android.media.MediaExtractor
+import android.media.MediaFormat
+import android.util.Log
+import androidx.annotation.RawRes
+import com.tomsphone.core.config.SettingsRepository
+import com.tomsphone.core.data.model.ContactType
+import com.tomsphone.core.data.repository.ContactRepository
+import com.tomsphone.core.tts.WandasTTS
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import java.io.BufferedOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.security.MessageDigest
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Pre-renders the whole incoming call ring cycle into one clip per caller
+ * 
+ * The cycle is the one IncomingCallViewModel used to play step by step:
+ * two-bell ring, "[userName]", pause, "That's your phone ringing.", pause,
+ * "[callerName] is calling.", pause.
+ * 
+ * The ring MP3 is decoded to PCM, the spoken parts come from
+ * WandasTTS.renderPhrase, and everything is resampled to one mono 16-bit
+ * format and written as a single WAV. Playing that on a loop needs no
+ * per-cycle player or TTS set-up, so there are no gaps or jitter between
+ * the segments.
+ * 
+ * Cycles for carers (who include every home-button contact) and unknown
+ * callers are built in the background whenever the user name or the
+ * contacts change. Anyone else gets theirs on their first ring (see
+ * [awaitClip]); those are kept within a byte budget, least recently
+ * rung evicted first. The shared segments are held in memory while
+ * composing, so the phrase cache evicting their clips does no harm.
+ */
+@OptIn(FlowPreview::class)
+@Singleton
+class RingAnnouncementComposer @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val tts: WandasTTS,
+    private val settingsRepository: SettingsRepository,
+    contactRepository: ContactRepository
+) {
+    
+    private companion object {
+        const val TAG = "RingComposer"
+        const val DIR_NAME = "ring_cycles"
+        const val PAUSE_MS = 500
+        const val REBUILD_DEBOUNCE_MS = 2_000L
+        const val CODEC_TIMEOUT_US = 10_000L
+        const val MAX_ON_DEMAND_BYTES = 8L * 1024 * 1024  // Roughly 10-15 callers
+        const val RINGING_PHRASE = "That's your phone ringing."
+        const val UNKNOWN_CALLER = ""  // Map key for the cycle without a caller name
+        val RING_RES = RingtonePlayer.Ringtone.SHORT_TWOBELL.resId
+    }
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    
+    private val dir = File(context.cacheDir, DIR_NAME)
+    
+    // Caller name (or UNKNOWN_CALLER) -> composed ring cycle, least recently used first
+    private val clips = LinkedHashMap<String, File>(16, 0.75f, true)
+    
+    // Names composed up front, never evicted
+    @Volatile
+    private var eagerNames: Set<String> = emptySet()
+    
+    // One composition at a time; guards shared
+    private val composeMutex = Mutex()
+    
+    // Segments every cycle starts with, as last decoded
+    private var shared: SharedSegments? = null
+    
+    /**
+     * Mono 16-bit PCM
+     */
+    private class Pcm(val samples: ShortArray, val sampleRate: Int)
+    
+    /**
+     * Ring, "[userName]" and "That's your phone ringing." with the phrase
+     * clip names they came from (which change with the text, voice and speed)
+     */
+    private class SharedSegments(
+        val ring: Pcm,
+        val userKey: String,
+        val user: Pcm,
+        val ringingKey: String,
+        val ringing: Pcm
+    )
+    
+    init {
+        scope.launch {
+            combine(
+                settingsRepository.getUserName(),
+                contactRepository.getContacts(Int.MAX_VALUE)
+                    .map { contacts ->
+                        val carers = contacts.filter { it.contactType == ContactType.CARER }
+                        carers.map { it.name }.toSortedSet() to contacts.map { it.name }.toSortedSet()
+                    }
+                    .distinctUntilChanged()
+            ) { userName, (carerNames, allNames) -> Triple(userName, carerNames, allNames) }
+                .distinctUntilChanged()
+                .debounce(REBUILD_DEBOUNCE_MS)
+                .collect { (userName, carerNames, allNames) ->
+                    try {
+                        rebuild(userName, carerNames, allNames)
+                    } catch (e: Exception) {
+                        Log.e(TAG, "Failed to compose ring cycles", e)
+                    }
+                }
+        }
+    }
+    
+    /**
+     * Ready-made ring cycle for this caller (null name = unknown caller),
+     * or null if it hasn't been composed (yet)
+     */
+    fun clipFor(callerName: String?): File? {
+        return synchronized(clips) { clips[callerName ?: UNKNOWN_CALLER] }?.takeIf { it.exists() }
+    }
+    
+    /**
+     * Ring cycle for this caller, composing it now if there isn't one.
+     * Null if it can't be composed.
+     */
+    suspend fun awaitClip(callerName: String?): File? {
+        clipFor(callerName)?.let { return it }
+        
+        return try {
+            composeMutex.withLock {
+                clipFor(callerName)?.let { return@withLock it }
+                
+                val segments = loadShared(settingsRepository.getUserName().first()) ?: return@withLock null
+                val file = compose(segments, callerName ?: UNKNOWN_CALLER) ?: return@withLock null
+                synchronized(clips) {
+                    clips[callerName ?: UNKNOWN_CALLER] = file
+                    trimOnDemand()
+                }
+                Log.d(TAG, "Ring cycle composed on demand: ${file.name}")
+                file
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to compose ring cycle on demand", e)
+            null
+        }
+    }
+    
+    private suspend fun rebuild(userName: String, carerNames: Set<String>, allNames: Set<String>) = composeMutex.withLock {
+        val previous = shared
+        val segments = loadShared(userName) ?: return@withLock
+        val sameSegments = segments === previous
+        
+        val wanted = HashMap<String, File>()
+        for (name in carerNames + UNKNOWN_CALLER) {
+            wanted[name] = compose(segments, name) ?: continue
+        }
+        
+        synchronized(clips) {
+            eagerNames = wanted.keys.toSet()
+            // On-demand cycles stay if they are still current; the rest are redone on the next ring
+            clips.keys.retainAll { sameSegments && it in allNames }
+            clips.putAll(wanted)
+            trimOnDemand()
+            
+            // Drop cycles for removed contacts or old names
+            val keep = clips.values.toSet()
+            dir.listFiles()?.filter { it !in keep }?.forEach { it.delete() }
+        }
+        
+        Log.d(TAG, "Ring cycles ready for ${wanted.size} callers")
+    }
+    
+    /**
+     * Current shared segments, re-using the decoded ones while their
+     * phrase clips are unchanged. Each clip is read as soon as it is
+     * rendered, before the next render can evict it from the phrase cache.
+     */
+    private suspend fun loadShared(userName: String): SharedSegments? {
+        val previous = shared
+        val ring = previous?.ring ?: decodeRaw(RING_RES) ?: run {
+            Log.e(TAG, "Could not decode ring sound")
+            return null
+        }
+        
+        val userClip = tts.renderPhrase(userName) ?: return null
+        val user = if (userClip.name == previous?.userKey) previous.user else readWav(userClip) ?: return null
+        
+        val ringingClip = tts.renderPhrase(RINGING_PHRASE) ?: return null
+        val ringing = if (ringingClip.name == previous?.ringingKey) previous.ringing else readWav(ringingClip) ?: return null
+        
+        if (previous != null && user === previous.user && ringing === previous.ringing) return previous
+        return SharedSegments(ring, userClip.name, user, ringingClip.name, ringing).also { shared = it }
+    }
+    
+    /**
+     * Write the cycle for [name] (UNKNOWN_CALLER for none), unless it already exists
+     */
+    private suspend fun compose(segments: SharedSegments, name: String): File? {
+        var nameKey: String? = null
+        var namePcm: Pcm? = null
+        if (name != UNKNOWN_CALLER) {
+            val nameClip = tts.renderPhrase("$name is calling.") ?: return null
+            nameKey = nameClip.name
+            namePcm = readWav(nameClip) ?: return null
+        }
+        
+        // Clip files are named by text + voice + speed, so this changes whenever the audio would
+        val file = File(dir, key(listOfNotNull(segments.userKey, segments.ringingKey, nameKey)) + ".wav")
+        if (!file.exists()) {
+            val rate = segments.ring.sampleRate
+            val parts = mutableListOf(segments.ring, segments.user, silence(rate), segments.ringing, silence(rate))
+            if (namePcm != null) {
+                parts += namePcm
+                parts += silence(rate)
+            }
+            if (!writeWav(file, parts.map { resample(it, rate) }, rate)) return null
+        }
+        return file
+    }
+    
+    /**
+     * Evict least recently used on-demand cycles while they are over budget
+     * (caller holds the clips lock)
+     */
+    private fun trimOnDemand() {
+        var bytes = clips.entries.filter { it.key !in eagerNames }.sumOf { it.value.length() }
+        val iterator = clips.entries.iterator()
+        while (bytes > MAX_ON_DEMAND_BYTES && iterator.hasNext()) {
+            val (name, file) = iterator.next()
+            if (name in eagerNames) continue
+            bytes -= file.length()
+            file.delete()
+            iterator.remove()
+            Log.d(TAG, "Evicted ring cycle ${file.name}")
+        }
+    }
+    
+    private fun key(parts: List<String>): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+            .digest("$RING_RES|${parts.joinToString("|")}".toByteArray())
+        return digest.joinToString("") { "%02x".format(it) }
+    }
+    
+    private fun silence(sampleRate: Int) = Pcm(ShortArray(sampleRate * PAUSE_MS / 1000), sampleRate)
+    
+    // ========== DECODING ==========
+    
+    /**
+     * Decode a compressed raw resource (MP3) to mono PCM
+     */
+    private fun decodeRaw(@RawRes resId: Int): Pcm? {
+        val extractor = MediaExtractor()
+        var codec: MediaCodec? = null
+        return try {
+            context.resources.openRawResourceFd(resId).use { afd ->
+                extractor.setDataSource(afd.fileDescriptor, afd.startOffset, afd.length)
+            }
+            val format = extractor.getTrackFormat(0)
+            extractor.selectTrack(0)
+            
+            var sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE)
+            var channels = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT)
+            
+            val decoder = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME)!!)
+            codec = decoder
+            decoder.configure(format, null, null, 0)
+            decoder.start()
+            
+            val out = PcmBuilder()
+            val info = MediaCodec.BufferInfo()
+            var inputDone = false
+            var outputDone = false
+            
+            while (!outputDone) {
+                if (!inputDone) {
+                    val inIndex = decoder.dequeueInputBuffer(CODEC_TIMEOUT_US)
+                    if (inIndex >= 0) {
+                        val size = extractor.readSampleData(decoder.getInputBuffer(inIndex)!!, 0)
+                        if (size < 0) {
+                            decoder.queueInputBuffer(inIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM)
+                            inputDone = true
+                        } else {
+                            decoder.queueInputBuffer(inIndex, 0, size, extractor.sampleTime, 0)
+                            extractor.advance()
+                        }
+                    }
+                }
+                
+                val outIndex = decoder.dequeueOutputBuffer(info, CODEC_TIMEOUT_US)
+                if (outIndex >= 0) {
+                    val buffer = decoder.getOutputBuffer(outIndex)!!
+                    buffer.position(info.offset)
+                    buffer.limit(info.offset + info.size)
+                    out.appendDownmixed(buffer.order(ByteOrder.LITTLE_ENDIAN), channels)
+                    decoder.releaseOutputBuffer(outIndex, false)
+                    if (info.flags and MediaCodec.BUFFER_FLAG_END_OF_STREAM != 0) outputDone = true
+                } else if (outIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    sampleRate = decoder.outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE)
+                    channels = decoder.outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT)
+                }
+            }
+            
+            Pcm(out.toArray(), sampleRate)
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to decode raw resource $resId", e)
+            null
+        } finally {
+            codec?.let {
+                runCatching { it.stop() }
+                it.release()
+            }
+            extractor.release()
+        }
+    }
+    
+    /**
+     * Read a 16-bit PCM WAV (as written by synthesizeToFile) to mono PCM
+     */
+    private fun readWav(file: File): Pcm? {
+        return try {
+            val bytes = ByteBuffer.wrap(file.readBytes()).order(ByteOrder.LITTLE_ENDIAN)
+            if (bytes.getInt(0) != 0x46464952 || bytes.getInt(8) != 0x45564157) return null  // "RIFF" / "WAVE"
+            
+            var channels = 0
+            var sampleRate = 0
+            var bits = 0
+            var position = 12
+            while (position + 8 <= bytes.limit()) {
+                val chunkId = bytes.getInt(position)
+                val chunkSize = bytes.getInt(position + 4)
+                val body = position + 8
+                when (chunkId) {
+                    0x20746d66 -> {  // "fmt "
+                        if (bytes.getShort(body).toInt() != 1) return null  // Not plain PCM
+                        channels = bytes.getShort(body + 2).toInt()
+                        sampleRate = bytes.getInt(body + 4)
+                        bits = bytes.getShort(body + 14).toInt()
+                    }
+                    0x61746164 -> {  // "data"
+                        if (bits != 16 || channels == 0) return null
+                        val end = minOf(body + chunkSize, bytes.limit())
+                        bytes.position(body)
+                        bytes.limit(end)
+                        val out = PcmBuilder()
+                        out.appendDownmixed(bytes.slice().order(ByteOrder.LITTLE_ENDIAN), channels)
+                        return Pcm(out.toArray(), sampleRate)
+                    }
+                }
+                position = body + chunkSize + (chunkSize and 1)
+            }
+            null
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to read ${file.name}", e)
+            null
+        }
+    }
+    
+    /**
+     * Linear-interpolation resample - plenty for speech and a bell
+     */
+    private fun resample(pcm: Pcm, targetRate: Int): ShortArray {
+        if (pcm.sampleRate == targetRate || pcm.samples.isEmpty()) return pcm.samples
+        
+        val ratio = pcm.sampleRate.toDouble() / targetRate
+        val outLength = (pcm.samples.size / ratio).toInt()
+        val out = ShortArray(outLength)
+        for (i in 0 until outLength) {
+            val position = i * ratio
+            val index = position.toInt()
+            val next = minOf(index + 1, pcm.samples.size - 1)
+            val fraction = position - index
+            out[i] = (pcm.samples[index] + (pcm.samples[next] - pcm.samples[index]) * fraction).toInt().toShort()
+        }
+        return out
+    }
+    
+    // ========== WRITING ==========
+    
+    /**
+     * Write via a temp file so the player never sees a half-written cycle.
+     * False if it couldn't be moved into place.
+     */
+    private fun writeWav(file: File, segments: List<ShortArray>, sampleRate: Int): Boolean {
+        dir.mkdirs()
+        val temp = File(dir, file.name + ".tmp")
+        val dataBytes = segments.sumOf { it.size } * 2
+        
+        BufferedOutputStream(FileOutputStream(temp)).use { out ->
+            val header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(0x46464952).putInt(36 + dataBytes).putInt(0x45564157)  // RIFF, size, WAVE
+                .putInt(0x20746d66).putInt(16).putShort(1).putShort(1)           // fmt, PCM, mono
+                .putInt(sampleRate).putInt(sampleRate * 2).putShort(2).putShort(16)
+                .putInt(0x61746164).putInt(dataBytes)                             // data
+            out.write(header.array())
+            
+            for (segment in segments) {
+                val bytes = ByteBuffer.allocate(segment.size * 2).order(ByteOrder.LITTLE_ENDIAN)
+                bytes.asShortBuffer().put(segment)
+                out.write(bytes.array())
+            }
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete()
+            Log.e(TAG, "Failed to move ${file.name} into place")
+            return false
+        }
+        return true
+    }
+    
+    /**
+     * Growable mono sample buffer
+     */
+    private class PcmBuilder {
+        private var data = ShortArray(64 * 1024)
+        private var size = 0
+        
+        fun appendDownmixed(buffer: ByteBuffer, channels: Int) {
+            val shorts = buffer.asShortBuffer()
+            val frames = shorts.remaining() / channels
+            if (size + frames > data.size) {
+                data = data.copyOf(maxOf(data.size * 2, size + frames))
+            }
+            for (i in 0 until frames) {
+                var sum = 0
+                for (c in 0 until channels) sum += shorts.get()
+                data[size++] = (sum / channels).toShort()
+            }
+        }
+        
+        fun toArray(): ShortArray = data.copyOf(size)
+    }
+}
@@ -2,11 +2,20 @@ package com.tomsphone.core.telecom
 
 import android.content.Context
 import android.media.AudioAttributes
+import android.media.MediaMetadataRetriever
 import android.media.MediaPlayer
+import android.media.SoundPool
 import android.util.Log
 import androidx.annotation.RawRes
 import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.suspendCancellableCoroutine
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
 import javax.inject.Singleton
 import kotlin.coroutines.resume
@@ -16,6 +25,13 @@ import kotlin.coroutines.resume
  * 
  * Designed for incoming call announcements where the audio file
  * contains both the ringtone sound and TTS announcement baked in.
+ * 
+ * All Ringtones are decoded once, in the background, when the player is
+ * created (at app start):
+ * - Short cues (bing-bongs) are held as PCM in a SoundPool
+ * - Longer ringtones keep a prepared MediaPlayer that is rewound, not released
+ * Playing them then needs no decoder set-up. Anything not loaded yet
+ * falls back to a one-off MediaPlayer as before.
  */
 @Singleton
 class RingtonePlayer @Inject constructor(
@@ -24,25 +40,117 @@ class RingtonePlayer @Inject constructor(
     
     private companion object {
         const val TAG = "RingtonePlayer"
+        const val MAX_POOLED_STREAMS = 2
     }
     
+    private val audioAttributes = AudioAttributes.Builder()
+        .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE)
+        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+        .build()
+    
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    
+    // ========== PRELOADED AUDIO ==========
+    
+    private val soundPool = SoundPool.Builder()
+        .setMaxStreams(MAX_POOLED_STREAMS)
+        .setAudioAttributes(audioAttributes)
+        .build()
+    
+    // SoundPool sample IDs of short cues, added once fully decoded
+    private val pooledSamples = ConcurrentHashMap<Ringtone, Int>()
+    
+    // Cue durations - SoundPool has no completion callback
+    private val durationsMs = ConcurrentHashMap<Ringtone, Long>()
+    
+    // Prepared players for the longer ringtones, reused for every play
+    private val warmPlayers = ConcurrentHashMap<Ringtone, MediaPlayer>()
+    
+    // ========== CURRENT PLAYBACK ==========
+    
+    // Written from callers' threads and the main-thread player callbacks;
+    // volatile for isPlaying(), changes to "nothing playing" go through
+    // the synchronized stop() / finishPlayer() / finishStream()
+    @Volatile
     private var mediaPlayer: MediaPlayer? = null
+    @Volatile
+    private var poolStreamId: Int = 0
     
     /**
      * Available ringtones and audio alerts
+     * 
+     * [pooled] cues are short enough to keep decoded in a SoundPool.
      */
-    enum class Ringtone(@RawRes val resId: Int) {
+    enum class Ringtone(@RawRes val resId: Int, val pooled: Boolean) {
         /** Main incoming call ringtone with baked-in TTS (legacy) */
-        OLD_TWOBELL(R.raw.old_twobell_ringtone),
+        OLD_TWOBELL(R.raw.old_twobell_ringtone, pooled = false),
         
         /** Short two-bell sound only (no TTS) - used with dynamic TTS */
-        SHORT_TWOBELL(R.raw.short_twobell_ringtone),
+        SHORT_TWOBELL(R.raw.short_twobell_ringtone, pooled = false),
         
         /** Tannoy-style bing-bong for missed call nag attention (original) */
-        TANNOY_BINGBONG(R.raw.tannoy_bingbong),
+        TANNOY_BINGBONG(R.raw.tannoy_bingbong, pooled = true),
         
         /** Tannoy-style bing-bong - trimmed version for nag */
-        TANNOY_SHORT(R.raw.tannoy_short)
+        TANNOY_SHORT(R.raw.tannoy_short, pooled = true);
+        
+        companion object {
+            fun fromResId(@RawRes resId: Int): Ringtone? = entries.find { it.resId == resId }
+        }
+    }
+    
+    // SoundPool sample IDs still decoding
+    private val pendingSamples = ConcurrentHashMap<Int, Ringtone>()
+    
+    init {
+        soundPool.setOnLoadCompleteListener { _, sampleId, status ->
+            val ringtone = pendingSamples.remove(sampleId) ?: return@setOnLoadCompleteListener
+            if (status == 0) {
+                pooledSamples[ringtone] = sampleId
+                Log.d(TAG, "Preloaded $ringtone into SoundPool")
+            } else {
+                Log.e(TAG, "SoundPool failed to load $ringtone (status=$status)")
+            }
+        }
+        scope.launch { preload() }
+    }
+    
+    private fun preload() {
+        for (ringtone in Ringtone.entries) {
+            try {
+                if (ringtone.pooled) {
+                    durationsMs[ringtone] = readDurationMs(ringtone.resId)
+                    pendingSamples[soundPool.load(context, ringtone.resId, 1)] = ringtone
+                } else {
+                    warmPlayers[ringtone] = createPreparedPlayer(ringtone.resId)
+                    Log.d(TAG, "Prepared $ringtone")
+                }
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to preload $ringtone", e)
+            }
+        }
+    }
+    
+    private fun readDurationMs(@RawRes resId: Int): Long {
+        val retriever = MediaMetadataRetriever()
+        return try {
+            context.resources.openRawResourceFd(resId).use { afd ->
+                retriever.setDataSource(afd.fileDescriptor, afd.startOffset, afd.length)
+            }
+            retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION)?.toLongOrNull() ?: 0L
+        } finally {
+            retriever.release()
+        }
+    }
+    
+    private fun createPreparedPlayer(@RawRes resId: Int): MediaPlayer {
+        return MediaPlayer().apply {
+            setAudioAttributes(audioAttributes)
+            context.resources.openRawResourceFd(resId).use { afd ->
+                setDataSource(afd.fileDescriptor, afd.startOffset, afd.length)
+            }
+            prepare()
+        }
     }
     
     /**
@@ -50,39 +158,36 @@ class RingtonePlayer @Inject constructor(
      * Use [playAndWait] if you need to wait for completion.
      */
     fun play(ringtone: Ringtone) {
-        play(ringtone.resId)
+        stop() // Stop any currently playing ringtone
+        
+        val streamId = playPooled(ringtone)
+        if (streamId != 0) {
+            // No completion callback - clear the stream once the cue has played out
+            scope.launch {
+                delay(durationsMs[ringtone] ?: 0L)
+                finishStream(streamId)
+            }
+            return
+        }
+        
+        val warm = warmPlayers[ringtone]
+        if (warm != null) {
+            startWarm(ringtone, warm, onDone = {})
+        } else {
+            playOneOff(ringtone.resId, onDone = {})
+        }
     }
     
     /**
      * Play a raw resource asynchronously.
      */
     fun play(@RawRes resId: Int) {
-        stop() // Stop any currently playing ringtone
-        
-        try {
-            mediaPlayer = MediaPlayer.create(context, resId)?.apply {
-                setAudioAttributes(
-                    AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE)
-                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                        .build()
-                )
-                setOnCompletionListener { 
-                    Log.d(TAG, "Ringtone playback complete")
-                    release()
-                    mediaPlayer = null
-                }
-                setOnErrorListener { _, what, extra ->
-                    Log.e(TAG, "MediaPlayer error: what=$what extra=$extra")
-                    release()
-                    mediaPlayer = null
-                    true
-                }
-                start()
-                Log.d(TAG, "Started ringtone playback")
-            }
-        } catch (e: Exception) {
-            Log.e(TAG, "Failed to play ringtone", e)
+        val ringtone = Ringtone.fromResId(resId)
+        if (ringtone != null) {
+            play(ringtone)
+        } else {
+            stop()
+            playOneOff(resId, onDone = {})
         }
     }
     
@@ -91,64 +196,200 @@ class RingtonePlayer @Inject constructor(
      * Useful for chaining: play ringtone, then speak caller name.
      */
     suspend fun playAndWait(ringtone: Ringtone): Boolean {
-        return playAndWait(ringtone.resId)
+        stop()
+        
+        // Pooled cue: no completion callback, so wait out its known duration
+        val streamId = playPooled(ringtone)
+        if (streamId != 0) {
+            try {
+                delay(durationsMs[ringtone] ?: 0L)
+            } finally {
+                // Also stops the stream if we were cancelled part-way
+                if (poolStreamId == streamId) stop()
+            }
+            Log.d(TAG, "Ringtone playback complete")
+            return true
+        }
+        
+        return suspendCancellableCoroutine { cont ->
+            val onDone: (Boolean) -> Unit = { ok -> if (cont.isActive) cont.resume(ok) }
+            
+            val warm = warmPlayers[ringtone]
+            if (warm != null) {
+                startWarm(ringtone, warm, onDone)
+            } else {
+                playOneOff(ringtone.resId, onDone)
+            }
+            
+            cont.invokeOnCancellation {
+                stop()
+            }
+        }
     }
     
     /**
      * Play a raw resource and suspend until playback completes.
      */
-    suspend fun playAndWait(@RawRes resId: Int): Boolean = suspendCancellableCoroutine { cont ->
+    suspend fun playAndWait(@RawRes resId: Int): Boolean {
+        Ringtone.fromResId(resId)?.let { return playAndWait(it) }
+        
+        stop()
+        return suspendCancellableCoroutine { cont ->
+            playOneOff(resId) { ok -> if (cont.isActive) cont.resume(ok) }
+            cont.invokeOnCancellation {
+                stop()
+            }
+        }
+    }
+    
+    /**
+     * Loop an audio file (e.g. a composed ring cycle) until [stop] is called.
+     * Returns false if the file could not be played.
+     */
+    fun playLooping(file: File): Boolean {
         stop()
         
+        val player = MediaPlayer()
+        return try {
+            player.setAudioAttributes(audioAttributes)
+            player.setDataSource(file.path)
+            player.isLooping = true
+            player.prepare()
+            player.start()
+            mediaPlayer = player
+            Log.d(TAG, "Started looping ${file.name}")
+            true
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to loop ${file.name}", e)
+            player.release()
+            false
+        }
+    }
+    
+    /**
+     * Start a pooled cue. Returns the stream ID, or 0 if the cue isn't pooled or loaded.
+     */
+    private fun playPooled(ringtone: Ringtone): Int {
+        val sampleId = pooledSamples[ringtone] ?: return 0
+        // Started and recorded under the stop() lock, so a stop() from another
+        // thread can't slip in between and miss the new stream
+        val streamId = synchronized(this) {
+            soundPool.play(sampleId, 1f, 1f, 1, 0, 1f).also { if (it != 0) poolStreamId = it }
+        }
+        if (streamId != 0) {
+            Log.d(TAG, "Started ringtone playback (pooled)")
+        }
+        return streamId
+    }
+    
+    /**
+     * Start a prepared, reusable player from the beginning.
+     * A player that fails is released and dropped, and this play (and
+     * later ones of the same ringtone) fall back to a one-off player.
+     */
+    private fun startWarm(ringtone: Ringtone, player: MediaPlayer, onDone: (Boolean) -> Unit) {
+        try {
+            player.setOnCompletionListener {
+                Log.d(TAG, "Ringtone playback complete")
+                finishPlayer(player)
+                onDone(true)
+            }
+            player.setOnErrorListener { _, what, extra ->
+                Log.e(TAG, "Prepared player for $ringtone failed: what=$what extra=$extra")
+                discardWarm(ringtone, player)
+                playOneOff(ringtone.resId, onDone)
+                true
+            }
+            player.seekTo(0)
+            player.start()
+            mediaPlayer = player
+            Log.d(TAG, "Started ringtone playback (prepared)")
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to play prepared $ringtone", e)
+            discardWarm(ringtone, player)
+            playOneOff(ringtone.resId, onDone)
+        }
+    }
+    
+    private fun discardWarm(ringtone: Ringtone, player: MediaPlayer) {
+        warmPlayers.remove(ringtone, player)
+        finishPlayer(player)
+        player.release()
+    }
+    
+    /**
+     * Fallback: decode and play with a single-use MediaPlayer
+     */
+    private fun playOneOff(@RawRes resId: Int, onDone: (Boolean) -> Unit) {
         try {
             mediaPlayer = MediaPlayer.create(context, resId)?.apply {
-                setAudioAttributes(
-                    AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE)
-                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                        .build()
-                )
+                setAudioAttributes(audioAttributes)
                 setOnCompletionListener {
                     Log.d(TAG, "Ringtone playback complete")
+                    finishPlayer(this)
                     release()
-                    mediaPlayer = null
-                    if (cont.isActive) cont.resume(true)
+                    onDone(true)
                 }
                 setOnErrorListener { _, what, extra ->
                     Log.e(TAG, "MediaPlayer error: what=$what extra=$extra")
+                    finishPlayer(this)
                     release()
-                    mediaPlayer = null
-                    if (cont.isActive) cont.resume(false)
+                    onDone(false)
                     true
                 }
                 start()
-                Log.d(TAG, "Started ringtone playback (awaiting completion)")
+                Log.d(TAG, "Started ringtone playback")
             }
             
             if (mediaPlayer == null) {
                 Log.e(TAG, "Failed to create MediaPlayer")
-                cont.resume(false)
+                onDone(false)
             }
         } catch (e: Exception) {
             Log.e(TAG, "Failed to play ringtone", e)
-            cont.resume(false)
-        }
-        
-        cont.invokeOnCancellation {
-            stop()
+            onDone(false)
         }
     }
     
+    /**
+     * A player finished on its own - clear it unless something newer is playing
+     */
+    @Synchronized
+    private fun finishPlayer(player: MediaPlayer) {
+        if (mediaPlayer === player) mediaPlayer = null
+    }
+    
+    /**
+     * A pooled cue played out - clear it unless something newer is playing
+     */
+    @Synchronized
+    private fun finishStream(streamId: Int) {
+        if (poolStreamId == streamId) poolStreamId = 0
+    }
+    
     /**
      * Stop any currently playing ringtone.
      */
+    @Synchronized
     fun stop() {
+        if (poolStreamId != 0) {
+            soundPool.stop(poolStreamId)
+            poolStreamId = 0
+            Log.d(TAG, "Stopped ringtone")
+        }
+        
         mediaPlayer?.let {
             try {
-                if (it.isPlaying) {
-                    it.stop()
+                if (warmPlayers.containsValue(it)) {
+                    // Keep prepared for next time - just pause and rewind
+                    if (it.isPlaying) it.pause()
+                    it.seekTo(0)
+                } else {
+                    if (it.isPlaying) {
+                        it.stop()
+                    }
+                    it.release()
                 }
-                it.release()
                 Log.d(TAG, "Stopped ringtone")
             } catch (e: Exception) {
                 Log.e(TAG, "Error stopping ringtone", e)
@@ -160,5 +401,5 @@ class RingtonePlayer @Inject constructor(
     /**
      * Check if a ringtone is currently playing.
      */
-    fun isPlaying(): Boolean = mediaPlayer?.isPlaying == true
+    fun isPlaying(): Boolean = poolStreamId != 0 || mediaPlayer?.isPlaying == true
 }
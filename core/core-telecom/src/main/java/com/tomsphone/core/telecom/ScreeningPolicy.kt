@@ -0,0 +1,54 @@
+package com.tomsphone.core.telecom
+
+import com.tomsphone.core.data.blocklist.BlocklistIndex
+import com.tomsphone.core.data.util.PhoneNumberUtils
+
+/**
+ * Immutable snapshot of everything needed to screen an incoming call
+ *
+ * Built in the background by ScreeningPolicyProvider, so deciding on a call
+ * never touches DataStore or Room. Contacts are looked up in the caller ID
+ * index, which stays current on its own.
+ */
+data class ScreeningPolicy(
+    val rejectUnknownCalls: Boolean,
+    /** Emergency mode - unknown callers (EMT callbacks etc.) must get through */
+    val isEmergencyMode: Boolean,
+    /** True if a number key (PhoneNumberUtils.numberKey) is a contact's - CallerIdResolver.isKnown */
+    val isKnown: (Long) -> Boolean,
+    /** Carer prefix / range rules for callers without a fixed number */
+    val allowRules: AllowRuleTrie = AllowRuleTrie.EMPTY,
+    /** Imported nuisance-number list, null if none */
+    val blocklist: BlocklistIndex? = null
+) {
+
+    /**
+     * Screening outcome
+     */
+    enum class Decision(val reject: Boolean) {
+        ALLOW_EMERGENCY(reject = false),  // Emergency mode - everything allowed
+        ALLOW_KNOWN(reject = false),      // Caller is a contact
+        ALLOW_RULE(reject = false),       // Caller matches a carer allow rule
+        ALLOW_UNKNOWN(reject = false),    // Unknown, but rejectUnknownCalls is off
+        REJECT_BLOCKED(reject = true),    // On the nuisance-number list
+        REJECT_UNKNOWN(reject = true)     // Unknown and rejectUnknownCalls is on
+    }
+
+    /**
+     * Decide on a call. Pure memory read with no allocation - safe on the binder thread.
+     *
+     * Contacts and allow rules always get through, even if the number is also on the blocklist.
+     */
+    fun decide(phoneNumber: String): Decision {
+        if (isEmergencyMode) return Decision.ALLOW_EMERGENCY
+
+        val key = PhoneNumberUtils.numberKey(phoneNumber)
+        if (key != PhoneNumberUtils.NO_KEY && isKnown(key)) return Decision.ALLOW_KNOWN
+
+        if (allowRules.matches(key)) return Decision.ALLOW_RULE
+
+        if (blocklist?.contains(key) == true) return Decision.REJECT_BLOCKED
+
+        return if (rejectUnknownCalls) Decision.REJECT_UNKNOWN else Decision.ALLOW_UNKNOWN
+    }
+}
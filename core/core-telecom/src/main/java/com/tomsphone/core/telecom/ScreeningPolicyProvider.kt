@@ -0,0 +1,100 @@
+package com.tomsphone.core.telecom
+
+import android.util.Log
+import com.tomsphone.core.config.SettingsRepository
+import com.tomsphone.core.data.blocklist.NuisanceBlocklist
+import com.tomsphone.core.data.lookup.CallerIdResolver
+import com.tomsphone.core.data.repository.AllowRuleRepository
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Keeps a warm ScreeningPolicy snapshot for the incoming-call path
+ *
+ * WandasCallScreeningService.onScreenCall and WandasInCallService.onCallAdded
+ * both run on threads that must answer straight away. Instead of reading
+ * DataStore and Room there, the policy is rebuilt in the background whenever
+ * the settings, the allow rules, the nuisance blocklist, emergency mode or
+ * the home country change, and the services only ever read the latest
+ * snapshot. Contacts come from the CallerIdResolver index, which keeps
+ * itself up to date, so contact edits don't rebuild the policy.
+ */
+@Singleton
+class ScreeningPolicyProvider @Inject constructor(
+    settingsRepository: SettingsRepository,
+    private val callerIdResolver: CallerIdResolver,
+    callManager: CallManager,
+    nuisanceBlocklist: NuisanceBlocklist,
+    allowRuleRepository: AllowRuleRepository
+) {
+
+    private companion object {
+        const val TAG = "ScreeningPolicy"
+    }
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    // Null until the first settings + contacts emission has arrived
+    private val _policy = MutableStateFlow<ScreeningPolicy?>(null)
+
+    /**
+     * Latest policy snapshot, or null while still loading after process start
+     */
+    val policy: StateFlow<ScreeningPolicy?> = _policy.asStateFlow()
+
+    init {
+        scope.launch {
+            combine(
+                settingsRepository.getSettings()
+                    .map { it.rejectUnknownCalls }
+                    .distinctUntilChanged(),
+                callManager.isEmergencyMode,
+                // No policy until the contacts are indexed
+                callerIdResolver.isReady.filter { it },
+                nuisanceBlocklist.index,
+                // Rules are compiled with the home country's dialling rules
+                combine(allowRuleRepository.getRules().distinctUntilChanged(), PhoneNumberUtils.homeCountryFlow) { rules, _ ->
+                    AllowRuleTrie.compile(rules)
+                }
+            ) { rejectUnknown, emergency, _, blocklist, allowRules ->
+                ScreeningPolicy(
+                    rejectUnknownCalls = rejectUnknown,
+                    isEmergencyMode = emergency,
+                    isKnown = callerIdResolver::isKnown,
+                    allowRules = allowRules,
+                    blocklist = blocklist
+                )
+            }.collect { newPolicy ->
+                _policy.value = newPolicy
+                Log.d(TAG, "Policy rebuilt: rejectUnknown=${newPolicy.rejectUnknownCalls}, emergency=${newPolicy.isEmergencyMode}, contacts=${callerIdResolver.size}, rules=${newPolicy.allowRules.ruleCount}, blocked=${newPolicy.blocklist?.size ?: 0}")
+            }
+        }
+    }
+
+    /**
+     * Current snapshot without waiting (null if not loaded yet)
+     */
+    fun current(): ScreeningPolicy? = _policy.value
+
+    /**
+     * Wait for the first snapshot. Only suspends on a cold process start,
+     * e.g. when an incoming call is what launched the app.
+     */
+    suspend fun awaitPolicy(): ScreeningPolicy {
+        return _policy.value ?: _policy.filterNotNull().first()
+    }
+}
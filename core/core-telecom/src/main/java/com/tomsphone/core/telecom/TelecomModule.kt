@@ -2,8 +2,10 @@ package com.tomsphone.core.telecom
 
 import dagger.Binds
 import dagger.Module
+import dagger.Provides
 import dagger.hilt.InstallIn
 import dagger.hilt.components.SingletonComponent
+import javax.inject.Provider
 import javax.inject.Singleton
 
 @Module
@@ -15,5 +17,21 @@ abstract class TelecomModule {
     abstract fun bindCallManager(
         impl: CallManagerImpl
     ): CallManager
+    
+    companion object {
+        /**
+         * How missed call reminders are timed
+         */
+        val NAG_SCHEDULER_MODE = NagSchedulerMode.ALARM
+        
+        @Provides
+        @Singleton
+        fun provideNagScheduler(
+            alarm: Provider<AlarmNagScheduler>,
+            inProcess: Provider<InProcessNagScheduler>
+        ): NagScheduler = when (NAG_SCHEDULER_MODE) {
+            NagSchedulerMode.ALARM -> alarm.get()
+            NagSchedulerMode.IN_PROCESS -> inProcess.get()
+        }
+    }
 }
-
@@ -1,15 +1,15 @@
 package com.tomsphone.core.telecom
 
 import android.os.Build
+import android.os.SystemClock
 import android.telecom.Call
 import android.telecom.CallScreeningService
 import android.util.Log
 import androidx.annotation.RequiresApi
-import com.tomsphone.core.config.SettingsRepository
+import com.tomsphone.core.data.lookup.CallerIdResolver
 import com.tomsphone.core.data.model.CallLogEntry
 import com.tomsphone.core.data.model.CallType
 import com.tomsphone.core.data.repository.CallLogRepository
-import com.tomsphone.core.data.repository.ContactRepository
 import com.tomsphone.core.tts.TTSScripts
 import com.tomsphone.core.tts.WandasTTS
 import dagger.hilt.android.AndroidEntryPoint
@@ -17,7 +17,6 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.delay
-import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.withTimeout
@@ -29,7 +28,8 @@ import javax.inject.Inject
  * 
  * This service screens incoming calls before they reach the user:
  * - Auto-answer known contacts after N rings
- * - Silently reject unknown callers (optional)
+ * - Silently reject unknown callers (optional, except carer allow rules) and
+ *   blocklisted nuisance numbers
  * - Log all calls
  * - Announce incoming calls via TTS
  */
@@ -42,10 +42,10 @@ class WandasCallScreeningService : CallScreeningService() {
     }
     
     @Inject
-    lateinit var settingsRepository: SettingsRepository
+    lateinit var screeningPolicyProvider: ScreeningPolicyProvider
     
     @Inject
-    lateinit var contactRepository: ContactRepository
+    lateinit var callerIdResolver: CallerIdResolver
     
     @Inject
     lateinit var callLogRepository: CallLogRepository
@@ -53,9 +53,6 @@ class WandasCallScreeningService : CallScreeningService() {
     @Inject
     lateinit var tts: WandasTTS
     
-    @Inject
-    lateinit var callManager: CallManagerImpl
-    
     @Inject
     lateinit var ringtonePlayer: RingtonePlayer
     
@@ -69,79 +66,73 @@ class WandasCallScreeningService : CallScreeningService() {
         Log.d(TAG, "Phone number: $phoneNumber")
         
         // SYNCHRONOUS screening - must respond before returning
+        // Steady state is a memory read of the warm policy snapshot (no I/O)
+        val startNanos = SystemClock.elapsedRealtimeNanos()
         val response = try {
-            runBlocking {
-                withTimeout(3000) { // 3 second timeout
-                    screenCall(phoneNumber)
-                }
-            }
+            screenCall(phoneNumber, currentPolicy())
         } catch (e: Exception) {
             Log.e(TAG, "Screening error: ${e.message}", e)
             // On any error, allow call through
-            CallScreeningService.CallResponse.Builder()
-                .setRejectCall(false)
-                .setSkipCallLog(false)
-                .setSkipNotification(false)
-                .build()
+            allowResponse()
         }
+        val decisionMicros = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000
         
         // Respond BEFORE returning
         respondToCall(callDetails, response)
-        Log.d(TAG, "onScreenCall END - responded")
+        Log.d(TAG, "onScreenCall END - responded (decision took ${decisionMicros}us)")
         Log.d(TAG, "========================================")
     }
     
     /**
-     * Perform the actual screening logic
+     * Get the policy snapshot.
+     * 
+     * Only on a cold process start (the incoming call launched the app) is
+     * there no snapshot yet - then wait for the first one, bounded by the
+     * same 3 second budget the old storage path had.
      */
-    private suspend fun screenCall(phoneNumber: String): CallScreeningService.CallResponse {
-        val settings = settingsRepository.getSettings().first()
-        val isEmergencyMode = callManager.isEmergencyMode.value
+    private fun currentPolicy(): ScreeningPolicy {
+        screeningPolicyProvider.current()?.let { return it }
         
-        Log.d(TAG, "Settings: rejectUnknown=${settings.rejectUnknownCalls}, emergencyMode=$isEmergencyMode")
-        
-        // EMERGENCY MODE: Allow ALL calls through (EMT callback, other services)
-        if (isEmergencyMode) {
-            Log.d(TAG, ">>> EMERGENCY MODE - allowing call from $phoneNumber")
-            return CallScreeningService.CallResponse.Builder()
-                .setRejectCall(false)
-                .setSkipCallLog(false)
-                .setSkipNotification(false)
-                .build()
-        }
-        
-        // Find contact
-        val normalizedNumber = normalizePhoneNumber(phoneNumber)
-        var contact = contactRepository.getContactByPhone(phoneNumber).first()
-        if (contact == null && normalizedNumber != phoneNumber) {
-            contact = contactRepository.getContactByPhone(normalizedNumber).first()
+        Log.w(TAG, "Policy not warm yet - waiting for first snapshot")
+        return runBlocking {
+            withTimeout(3000) { // 3 second timeout
+                screeningPolicyProvider.awaitPolicy()
+            }
         }
-        Log.d(TAG, "Contact: ${contact?.name ?: "NOT FOUND"}")
-        
-        val isKnownContact = contact != null
-        val shouldReject = !isKnownContact && settings.rejectUnknownCalls
+    }
+    
+    /**
+     * Perform the actual screening logic against the policy snapshot
+     */
+    private fun screenCall(phoneNumber: String, policy: ScreeningPolicy): CallScreeningService.CallResponse {
+        Log.d(TAG, "Policy: rejectUnknown=${policy.rejectUnknownCalls}, emergencyMode=${policy.isEmergencyMode}")
         
-        Log.d(TAG, "Decision: known=$isKnownContact, reject=$shouldReject")
+        val decision = policy.decide(phoneNumber)
+        Log.d(TAG, "Decision: $decision")
         
-        return if (shouldReject) {
-            Log.d(TAG, ">>> REJECTING unknown call")
+        return if (decision.reject) {
+            Log.d(TAG, ">>> REJECTING call ($decision)")
             CallScreeningService.CallResponse.Builder()
                 .setRejectCall(true)
                 .setSkipCallLog(false)
                 .setSkipNotification(true)
                 .build()
         } else {
-            Log.d(TAG, ">>> ALLOWING call from ${contact?.name ?: phoneNumber}")
-            CallScreeningService.CallResponse.Builder()
-                .setRejectCall(false)
-                .setSkipCallLog(false)
-                .setSkipNotification(false)
-                .build()
+            Log.d(TAG, ">>> ALLOWING call from $phoneNumber")
+            allowResponse()
         }
     }
     
+    private fun allowResponse(): CallScreeningService.CallResponse {
+        return CallScreeningService.CallResponse.Builder()
+            .setRejectCall(false)
+            .setSkipCallLog(false)
+            .setSkipNotification(false)
+            .build()
+    }
+    
     private suspend fun logMissedCall(phoneNumber: String, contactName: String?) {
-        val contact = contactRepository.getContactByPhone(phoneNumber).first()
+        val contact = callerIdResolver.awaitResolve(phoneNumber)
         
         val entry = CallLogEntry(
             id = 0,
@@ -156,21 +147,5 @@ class WandasCallScreeningService : CallScreeningService() {
         
         callLogRepository.logCall(entry)
     }
-    
-    /**
-     * Normalize phone number for matching
-     * Handles UK numbers: +44 prefix, leading 0, etc.
-     */
-    private fun normalizePhoneNumber(phone: String): String {
-        // Remove all non-digit characters
-        var digits = phone.replace(Regex("[^0-9]"), "")
-        
-        // Handle UK +44 prefix -> 0
-        if (digits.startsWith("44") && digits.length > 10) {
-            digits = "0" + digits.substring(2)
-        }
-        
-        return digits
-    }
 }
 
@@ -8,7 +8,8 @@ import android.telecom.InCallService
 import android.util.Log
 import com.tomsphone.core.config.FeatureLevel
 import com.tomsphone.core.config.SettingsRepository
-import com.tomsphone.core.data.repository.ContactRepository
+import com.tomsphone.core.data.local.CallLogWriter
+import com.tomsphone.core.data.lookup.CallerIdResolver
 import com.tomsphone.core.tts.TTSScripts
 import com.tomsphone.core.tts.WandasTTS
 import dagger.hilt.android.AndroidEntryPoint
@@ -18,7 +19,6 @@ import kotlinx.coroutines.SupervisorJob
 import kotlinx.coroutines.cancel
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
-import kotlinx.coroutines.runBlocking
 import javax.inject.Inject
 
 /**
@@ -48,11 +48,17 @@ class WandasInCallService : InCallService() {
     lateinit var settingsRepository: SettingsRepository
     
     @Inject
-    lateinit var contactRepository: ContactRepository
+    lateinit var callerIdResolver: CallerIdResolver
+    
+    @Inject
+    lateinit var screeningPolicyProvider: ScreeningPolicyProvider
     
     @Inject
     lateinit var missedCallNagManager: dagger.Lazy<MissedCallNagManager>
     
+    @Inject
+    lateinit var callLogWriter: CallLogWriter
+    
     private val serviceScope = CoroutineScope(SupervisorJob() + Dispatchers.Main)
     
     private var currentCall: Call? = null
@@ -116,28 +122,16 @@ class WandasInCallService : InCallService() {
             }
         }
         
-        // BACKUP: If CallScreeningService didn't reject unknown caller, check here
+        // BACKUP: If CallScreeningService didn't reject an unknown or blocklisted caller, check here
+        // Non-blocking: reads the in-memory policy snapshot, no DataStore/Room I/O.
+        // If the snapshot isn't loaded yet, allow - screening is the primary gate.
         if (isIncoming) {
-            // Synchronously check if caller is allowed
-            val isAllowed = runBlocking {
-                try {
-                    val settings = settingsRepository.getSettings().first()
-                    if (!settings.rejectUnknownCalls) {
-                        Log.d(TAG, "rejectUnknownCalls is disabled, allowing")
-                        true
-                    } else {
-                        val contact = findContactByPhone(phoneNumber)
-                        Log.d(TAG, "Contact lookup: ${contact ?: "NOT FOUND"}")
-                        contact != null
-                    }
-                } catch (e: Exception) {
-                    Log.e(TAG, "Error checking caller: ${e.message}")
-                    true // Allow on error
-                }
-            }
+            val isAllowed = screeningPolicyProvider.current()
+                ?.decide(phoneNumber)
+                ?.reject != true
             
             if (!isAllowed) {
-                Log.d(TAG, ">>> REJECTING unknown caller in InCallService")
+                Log.d(TAG, ">>> REJECTING unknown/blocklisted caller in InCallService")
                 call.reject(false, null)
                 Log.d(TAG, "========================================")
                 return // Don't process further
@@ -197,6 +191,9 @@ class WandasInCallService : InCallService() {
         wasIncomingCall = false
         lastIncomingPhoneNumber = null
         lastIncomingContactName = null
+        
+        // Don't hold this call's log rows for the batch window
+        callLogWriter.requestFlush()
     }
     
     override fun onCallAudioStateChanged(audioState: CallAudioState?) {
@@ -411,33 +408,10 @@ class WandasInCallService : InCallService() {
     }
     
     /**
-     * Find contact by phone number (with flexible matching)
+     * Find contact name by phone number (shared in-memory caller ID index)
      */
     private suspend fun findContactByPhone(phoneNumber: String): String? {
-        // Try exact match first
-        var contact = contactRepository.getContactByPhone(phoneNumber).first()
-        if (contact != null) return contact.name
-        
-        // Try normalized match
-        val normalizedNumber = normalizePhoneNumber(phoneNumber)
-        if (normalizedNumber != phoneNumber) {
-            contact = contactRepository.getContactByPhone(normalizedNumber).first()
-            if (contact != null) return contact.name
-        }
-        
-        return null
-    }
-    
-    /**
-     * Normalize phone number for matching (UK format)
-     */
-    private fun normalizePhoneNumber(phone: String): String {
-        var digits = phone.replace(Regex("[^0-9]"), "")
-        // Handle UK +44 prefix -> 0
-        if (digits.startsWith("44") && digits.length > 10) {
-            digits = "0" + digits.substring(2)
-        }
-        return digits
+        return callerIdResolver.awaitResolve(phoneNumber)?.name
     }
     
     private fun updateCallInfo() {
@@ -474,6 +448,8 @@ class WandasInCallService : InCallService() {
     
     override fun onDestroy() {
         super.onDestroy()
+        // Last call over - the process may be killed soon after
+        callLogWriter.requestFlush()
         serviceScope.cancel()
         Log.d(TAG, "Service destroyed")
     }
@@ -0,0 +1,147 @@
+package com.tomsphone.core.telecom
+
+import com.tomsphone.core.data.blocklist.BlocklistIndex
+import com.tomsphone.core.data.model.AllowRule
+import com.tomsphone.core.data.model.AllowRuleType
+import com.tomsphone.core.data.util.CountryRules
+import com.tomsphone.core.data.util.PhoneNumberUtils
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class ScreeningPolicyTest {
+
+    @get:Rule
+    val temp = TemporaryFolder()
+
+    private val contacts = listOf("07700 900123", "+44 1632 960001", "01632 960002")
+
+    @Before
+    fun setUp() {
+        PhoneNumberUtils.homeCountry = CountryRules.forIso("GB")!!
+    }
+
+    private fun policy(
+        rejectUnknownCalls: Boolean = true,
+        isEmergencyMode: Boolean = false,
+        allowRules: AllowRuleTrie = AllowRuleTrie.EMPTY,
+        blocklist: BlocklistIndex? = null
+    ) = ScreeningPolicy(
+        rejectUnknownCalls = rejectUnknownCalls,
+        isEmergencyMode = isEmergencyMode,
+        isKnown = contacts.map { PhoneNumberUtils.numberKey(it) }.toSet()::contains,
+        allowRules = allowRules,
+        blocklist = blocklist
+    )
+
+    @Test
+    fun contactIsAllowedInAnyFormat() {
+        val policy = policy()
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("+447700900123"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("00447700900123"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("01632960001"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("+44 (0)1632 960002"))
+    }
+
+    @Test
+    fun unknownFollowsRejectSetting() {
+        assertEquals(ScreeningPolicy.Decision.REJECT_UNKNOWN, policy().decide("07700 900999"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_UNKNOWN, policy(rejectUnknownCalls = false).decide("07700 900999"))
+    }
+
+    @Test
+    fun withheldNumberIsUnknown() {
+        assertEquals(ScreeningPolicy.Decision.REJECT_UNKNOWN, policy().decide(""))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_UNKNOWN, policy(rejectUnknownCalls = false).decide(""))
+    }
+
+    @Test
+    fun emergencyModeAllowsEveryone() {
+        val policy = policy(isEmergencyMode = true)
+        assertEquals(ScreeningPolicy.Decision.ALLOW_EMERGENCY, policy.decide("07700 900999"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_EMERGENCY, policy.decide(""))
+    }
+
+    @Test
+    fun allowRulesLetGroupsThrough() {
+        val rules = AllowRuleTrie.compile(
+            listOf(
+                AllowRule(id = 1, label = "Surgery", type = AllowRuleType.PREFIX, startNumber = "01632 97"),
+                AllowRule(
+                    id = 2, label = "Pharmacy", type = AllowRuleType.RANGE,
+                    startNumber = "01632 980000", endNumber = "01632 980999"
+                ),
+                AllowRule(id = 3, label = "Off", type = AllowRuleType.PREFIX, startNumber = "01632 99", enabled = false)
+            )
+        )
+        val policy = policy(allowRules = rules)
+
+        assertEquals(ScreeningPolicy.Decision.ALLOW_RULE, policy.decide("01632 971234"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_RULE, policy.decide("+44 1632 980500"))
+        assertEquals(ScreeningPolicy.Decision.REJECT_UNKNOWN, policy.decide("01632 981000"))
+        assertEquals(ScreeningPolicy.Decision.REJECT_UNKNOWN, policy.decide("01632 991234"))
+        // Contacts win over rules
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("01632 960001"))
+    }
+
+    @Test
+    fun blockedNumberIsRejectedEvenIfUnknownCallsAreAllowed() {
+        val policy = policy(rejectUnknownCalls = false, blocklist = blocklist("07700 900666"))
+        assertEquals(ScreeningPolicy.Decision.REJECT_BLOCKED, policy.decide("+44 7700 900666"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_UNKNOWN, policy.decide("07700 900667"))
+        // Withheld numbers have no key, so can't be on the list
+        assertEquals(ScreeningPolicy.Decision.ALLOW_UNKNOWN, policy.decide(""))
+    }
+
+    /**
+     * Emergency mode, then contacts, then allow rules, then the blocklist -
+     * a number on the blocklist that is also a contact or matches a rule
+     * still gets through.
+     */
+    @Test
+    fun decisionsTakePrecedenceInOrder() {
+        val rules = AllowRuleTrie.compile(
+            listOf(AllowRule(id = 1, label = "Surgery", type = AllowRuleType.PREFIX, startNumber = "01632 96"))
+        )
+        val blocked = blocklist("07700 900123", "01632 960001", "01632 965555", "07700 900666")
+        val policy = policy(allowRules = rules, blocklist = blocked)
+
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("07700 900123"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_KNOWN, policy.decide("01632 960001"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_RULE, policy.decide("01632 965555"))
+        assertEquals(ScreeningPolicy.Decision.REJECT_BLOCKED, policy.decide("07700 900666"))
+        assertEquals(ScreeningPolicy.Decision.REJECT_UNKNOWN, policy.decide("07700 900999"))
+
+        val emergency = policy(isEmergencyMode = true, allowRules = rules, blocklist = blocked)
+        assertEquals(ScreeningPolicy.Decision.ALLOW_EMERGENCY, emergency.decide("07700 900666"))
+        assertEquals(ScreeningPolicy.Decision.ALLOW_EMERGENCY, emergency.decide("07700 900123"))
+    }
+
+    /**
+     * A list file holding [numbers], with every Bloom filter bit set so
+     * lookups always fall through to the binary search (see BlocklistIndex)
+     */
+    private fun blocklist(vararg numbers: String): BlocklistIndex {
+        val keys = numbers.map { PhoneNumberUtils.numberKey(it) }.distinct().sorted()
+        val buffer = ByteBuffer.allocate(HEADER_BYTES + 8 + keys.size * 8).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.putInt(0, 0x4C425057)  // Magic
+        buffer.putInt(4, 1)           // Version
+        buffer.putLong(8, keys.size.toLong())
+        buffer.putLong(16, 64)        // Bloom filter bits
+        buffer.putInt(24, 1)          // Hashes
+        buffer.putLong(HEADER_BYTES, -1L)
+        keys.forEachIndexed { i, key -> buffer.putLong(HEADER_BYTES + 8 + i * 8, key) }
+
+        val file = temp.newFile()
+        file.writeBytes(buffer.array())
+        return BlocklistIndex.open(file)
+    }
+
+    private companion object {
+        const val HEADER_BYTES = 64
+    }
+}
@@ -1,14 +1,28 @@
 package com.tomsphone.core.tts
 
 import android.content.Context
+import android.os.SystemClock
 import android.speech.tts.TextToSpeech
 import android.speech.tts.UtteranceProgressListener
 import android.util.Log
 import dagger.hilt.android.qualifiers.ApplicationContext
-import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
+import java.io.File
 import java.util.Locale
 import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
@@ -17,91 +31,214 @@ import kotlin.coroutines.resume
 
 /**
  * Android TextToSpeech implementation
+ * 
+ * Requests go through a scheduler (TTSScheduler) instead of straight to
+ * the engine: the engine only ever gets one utterance at a time, picked
+ * by priority (then age), and IMMEDIATE interrupts whatever is playing.
+ * So a burst of status messages can't delay an urgent one.
+ * 
+ * The engine is started in the background by warmUp() (at app start) and
+ * restarted with backoff if it fails to initialize. Anything asked for
+ * before it is ready is held and spoken, in priority order, once it is.
+ * 
+ * Phrases that are spoken repeatedly are rendered to a WAV clip once
+ * (TTSPhraseRenderer, TTSPhraseCache) and from then on played from that
+ * clip (TTSClipPlayer), so the engine no longer re-synthesizes them. The
+ * clip is looked up each time it is spoken: if it has been evicted or the
+ * cache was cleared, the engine speaks the phrase and it is rendered again.
+ * 
+ * Spoken text (caller names among it) is not logged; utterances are
+ * identified by their request number.
  */
 @Singleton
 class AndroidTTSImpl @Inject constructor(
-    @ApplicationContext private val context: Context
+    @ApplicationContext private val context: Context,
+    phraseCache: TTSPhraseCache
 ) : WandasTTS {
     
     private companion object {
         const val TAG = "WandasTTS"
+        const val UTTERANCE_TIMEOUT_MS = 60_000L  // Safety net if the engine never reports back
+        const val MAX_INIT_ATTEMPTS = 6
+        const val INIT_RETRY_BASE_MS = 1_000L     // Doubles per attempt: 1s, 2s, 4s...
+        const val INIT_TIMEOUT_MS = 20_000L       // Some engines never call back on failure
     }
     
-    private var textToSpeech: TextToSpeech? = null
-    private var isInitialized = false
+    @Volatile private var textToSpeech: TextToSpeech? = null
+    private val initialized = MutableStateFlow(false)
+    private val isInitialized: Boolean get() = initialized.value
+    
+    override val ready: StateFlow<Boolean> = initialized.asStateFlow()
+    
+    // ========== ENGINE LIFECYCLE ==========
+    
+    private var startJob: Job? = null
+    
+    // elapsedRealtime when warm-up began / the engine became ready (0 = not yet)
+    @Volatile private var warmUpStartedAt = 0L
+    @Volatile private var readyAt = 0L
+    @Volatile private var firstSpeechReported = false
     
     private val _isSpeaking = MutableStateFlow(false)
     val isSpeaking: StateFlow<Boolean> = _isSpeaking
     
-    private val utteranceQueue = Channel<UtteranceItem>(Channel.UNLIMITED)
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+    
+    // Map of utteranceId -> completion callback (true = finished, false = error/stopped)
+    private val utteranceCallbacks = ConcurrentHashMap<String, (Boolean) -> Unit>()
+    
+    // ========== UTTERANCE SCHEDULER ==========
+    
+    private val _metrics = MutableStateFlow(TTSMetrics())
+    val metrics: StateFlow<TTSMetrics> = _metrics.asStateFlow()
+    
+    private val scheduler = TTSScheduler(_metrics) { readyAt }
     
-    // Map of utteranceId -> completion callback for speakAndWait
-    private val utteranceCallbacks = ConcurrentHashMap<String, () -> Unit>()
+    // Request being spoken (null between utterances)
+    private val current = MutableStateFlow<UtteranceItem?>(null)
+    
+    // utteranceId -> request time, for latency on start
+    private val requestTimes = ConcurrentHashMap<String, Long>()
+    
+    // ========== PHRASE CACHE ==========
+    
+    // Current speech rate and voice - part of the phrase cache key
+    @Volatile private var speechRate = 1.0f
+    @Volatile private var voiceName: String? = null
+    @Volatile private var voiceLocale: Locale = Locale.getDefault()
+    
+    private val clipPlayer = TTSClipPlayer()
+    
+    private val renderer = TTSPhraseRenderer(
+        phraseCache = phraseCache,
+        engine = { textToSpeech },
+        utteranceCallbacks = utteranceCallbacks,
+        phraseKey = { message -> phraseCache.keyFor(message, speechRate, voiceName, voiceLocale) },
+        // Nothing handed over and nothing audible
+        speechIdle = combine(current, _isSpeaking) { item, speaking -> item == null && !speaking },
+        scope = scope
+    )
     
     init {
-        initializeTTS()
-    }
-    
-    private fun initializeTTS() {
-        textToSpeech = TextToSpeech(context) { status ->
-            if (status == TextToSpeech.SUCCESS) {
-                textToSpeech?.apply {
-                    language = Locale.getDefault()
-                    setSpeechRate(1.0f)
-                    setPitch(1.0f)
-                    
-                    setOnUtteranceProgressListener(object : UtteranceProgressListener() {
-                        override fun onStart(utteranceId: String?) {
-                            _isSpeaking.value = true
-                            Log.d(TAG, "Started speaking: $utteranceId")
-                        }
-                        
-                        override fun onDone(utteranceId: String?) {
-                            _isSpeaking.value = false
-                            Log.d(TAG, "Finished speaking: $utteranceId")
-                            // Notify any waiting coroutine
-                            utteranceId?.let { id ->
-                                utteranceCallbacks.remove(id)?.invoke()
-                            }
-                        }
-                        
-                        override fun onError(utteranceId: String?) {
-                            _isSpeaking.value = false
-                            Log.e(TAG, "Error speaking: $utteranceId")
-                            // Notify any waiting coroutine (even on error)
-                            utteranceId?.let { id ->
-                                utteranceCallbacks.remove(id)?.invoke()
-                            }
-                        }
-                    })
-                }
-                isInitialized = true
-                Log.d(TAG, "TTS initialized successfully")
-            } else {
-                Log.e(TAG, "TTS initialization failed")
-            }
+        scope.launch { dispatchUtterances() }
+    }
+    
+    override fun warmUp() {
+        synchronized(this) {
+            if (isInitialized || startJob?.isActive == true) return
+            warmUpStartedAt = SystemClock.elapsedRealtime()
+            startJob = scope.launch { startEngine() }
         }
     }
     
-    override fun speak(message: String, priority: WandasTTS.Priority) {
-        if (!isInitialized) {
-            Log.w(TAG, "TTS not initialized, cannot speak: $message")
-            return
+    /**
+     * Start the engine, retrying with backoff. Gives up (and drops anything
+     * held for it) after MAX_INIT_ATTEMPTS; the next warmUp() tries again.
+     */
+    private suspend fun startEngine() {
+        repeat(MAX_INIT_ATTEMPTS) { attempt ->
+            if (attempt > 0) {
+                delay(INIT_RETRY_BASE_MS shl (attempt - 1))
+            }
+            
+            val engine = createEngine()
+            if (engine != null) {
+                configureEngine(engine)
+                textToSpeech = engine
+                readyAt = SystemClock.elapsedRealtime()
+                initialized.value = true
+                
+                val initMs = readyAt - warmUpStartedAt
+                _metrics.update { it.copy(initMs = initMs, initAttempts = attempt + 1) }
+                Log.d(TAG, "TTS initialized successfully in ${initMs}ms (attempt ${attempt + 1})")
+                return
+            }
+            Log.w(TAG, "TTS initialization failed (attempt ${attempt + 1}/$MAX_INIT_ATTEMPTS)")
         }
         
-        val queueMode = when (priority) {
-            WandasTTS.Priority.IMMEDIATE -> TextToSpeech.QUEUE_FLUSH
-            else -> TextToSpeech.QUEUE_ADD
+        Log.e(TAG, "TTS initialization failed, giving up")
+        _metrics.update { it.copy(initAttempts = MAX_INIT_ATTEMPTS) }
+        stop()
+    }
+    
+    /**
+     * Create an engine and wait for it to initialize. Null (and shut down) on failure.
+     */
+    private suspend fun createEngine(): TextToSpeech? {
+        val initStatus = CompletableDeferred<Int>()
+        
+        // Created on the main thread, where its callbacks arrive
+        val engine = withContext(Dispatchers.Main) {
+            TextToSpeech(context) { status -> initStatus.complete(status) }
         }
         
-        textToSpeech?.speak(
-            message,
-            queueMode,
-            null,
-            "utterance_${System.currentTimeMillis()}"
-        )
+        val status = withTimeoutOrNull(INIT_TIMEOUT_MS) { initStatus.await() }
+        if (status == TextToSpeech.SUCCESS) return engine
         
-        Log.d(TAG, "Speaking ($priority): $message")
+        withContext(Dispatchers.Main) { engine.shutdown() }
+        return null
+    }
+    
+    private fun configureEngine(engine: TextToSpeech) {
+        engine.apply {
+            language = Locale.getDefault()
+            setSpeechRate(speechRate)  // setSpeed may have been called before we were ready
+            setPitch(1.0f)
+            
+            voiceName = voice?.name
+            voiceLocale = voice?.locale ?: Locale.getDefault()
+            
+            setOnUtteranceProgressListener(object : UtteranceProgressListener() {
+                override fun onStart(utteranceId: String?) {
+                    if (utteranceId == null || renderer.isRender(utteranceId)) return
+                    onUtteranceStarted(utteranceId)
+                }
+                
+                override fun onDone(utteranceId: String?) {
+                    if (!renderer.isRender(utteranceId)) {
+                        _isSpeaking.value = false
+                        Log.d(TAG, "Finished speaking: $utteranceId")
+                    }
+                    // Notify any waiting coroutine
+                    utteranceId?.let { id ->
+                        utteranceCallbacks.remove(id)?.invoke(true)
+                    }
+                }
+                
+                override fun onError(utteranceId: String?) {
+                    if (!renderer.isRender(utteranceId)) {
+                        _isSpeaking.value = false
+                        Log.e(TAG, "Error speaking: $utteranceId")
+                    }
+                    // Notify any waiting coroutine (even on error)
+                    utteranceId?.let { id ->
+                        utteranceCallbacks.remove(id)?.invoke(false)
+                    }
+                }
+                
+                override fun onStop(utteranceId: String?, interrupted: Boolean) {
+                    if (!renderer.isRender(utteranceId)) {
+                        _isSpeaking.value = false
+                    }
+                    // Flushed by stop() - release any waiting coroutine
+                    utteranceId?.let { id ->
+                        utteranceCallbacks.remove(id)?.invoke(false)
+                    }
+                }
+            })
+        }
+    }
+    
+    override fun speak(message: String, priority: WandasTTS.Priority) {
+        if (!isInitialized) {
+            // Held until the engine is ready (see dispatchUtterances)
+            Log.d(TAG, "TTS not ready yet, holding request")
+            warmUp()
+        }
+        
+        val item = scheduler.enqueue(message, priority)
+        preemptFor(item)
+        Log.d(TAG, "Queued ($priority): #${item.seq}")
     }
     
     override fun speakNow(message: String) {
@@ -110,59 +247,226 @@ class AndroidTTSImpl @Inject constructor(
     
     override suspend fun speakAndWait(message: String) {
         if (!isInitialized) {
-            Log.w(TAG, "TTS not initialized, cannot speak: $message")
-            return
+            Log.d(TAG, "TTS not ready yet, holding request")
+            warmUp()
         }
         
+        // Interrupts like it always has (IMMEDIATE), then resumes once spoken.
+        // A phrase render in progress is waited for, not stopped: this is
+        // sequenced speech (the step-by-step ring cycle), and the render is
+        // often the caller's ring cycle that will replace it.
         suspendCancellableCoroutine { cont ->
-            val utteranceId = "await_${System.currentTimeMillis()}"
+            val waiter = Waiter { if (cont.isActive) cont.resume(Unit) }
+            val item = scheduler.enqueue(message, WandasTTS.Priority.IMMEDIATE, interruptsRender = false, waiter = waiter)
+            preemptFor(item)
             
-            // Register callback before speaking
-            utteranceCallbacks[utteranceId] = {
-                if (cont.isActive) cont.resume(Unit)
-            }
-            
-            textToSpeech?.speak(
-                message,
-                TextToSpeech.QUEUE_FLUSH,
-                null,
-                utteranceId
-            )
-            
-            Log.d(TAG, "Speaking (and waiting): $message")
+            Log.d(TAG, "Speaking (and waiting): #${item.seq}")
             
+            // Only this request is withdrawn - other queued speech stays
             cont.invokeOnCancellation {
-                utteranceCallbacks.remove(utteranceId)
-                textToSpeech?.stop()
+                withdraw(waiter)
             }
         }
     }
     
     override fun stop() {
-        textToSpeech?.stop()
+        scheduler.clear()
+        stopEngine()
+        clipPlayer.stop()
         _isSpeaking.value = false
         Log.d(TAG, "Stopped speaking")
     }
     
     override fun isSpeaking(): Boolean {
-        return textToSpeech?.isSpeaking ?: false
+        return textToSpeech?.isSpeaking == true || clipPlayer.isPlaying
     }
     
     override fun setSpeed(speed: Float) {
         val clampedSpeed = speed.coerceIn(0.5f, 2.0f)
         textToSpeech?.setSpeechRate(clampedSpeed)
+        
+        if (clampedSpeed != speechRate) {
+            speechRate = clampedSpeed
+            renderer.rerenderCached()
+        }
         Log.d(TAG, "Set speed to $clampedSpeed")
     }
     
+    override suspend fun renderPhrase(message: String): File? {
+        initialized.first { it }
+        return renderer.render(message)
+    }
+    
+    // ========== UTTERANCE SCHEDULER ==========
+    
+    /**
+     * IMMEDIATE pre-empts - stopping the engine releases the current utterance.
+     * If the scheduler is just handing over an older one, speakItem stops it.
+     */
+    private fun preemptFor(item: UtteranceItem) {
+        if (item.priority != WandasTTS.Priority.IMMEDIATE) return
+        
+        val playing = current.value
+        if (playing != null && playing.seq < item.seq) {
+            stopEngine()
+            clipPlayer.stop()
+        }
+    }
+    
+    /**
+     * A speakAndWait caller gave up: drop its utterance, unless someone
+     * else asked for the same message too, and stop it if it is playing
+     */
+    private fun withdraw(waiter: Waiter) {
+        waiter.withdrawn = true
+        
+        val playing = current.value
+        if (playing != null && waiter in playing.waiters && playing.isAbandoned) {
+            stopEngine()
+            clipPlayer.stop()
+        }
+        scheduler.dropWithdrawn()
+    }
+    
+    /**
+     * Feed the engine one utterance at a time, best first.
+     * Requests made before the engine is ready wait in the queue.
+     */
+    private suspend fun dispatchUtterances() {
+        initialized.first { it }
+        Log.d(TAG, "TTS ready - speaking held requests")
+        
+        while (true) {
+            speakItem(scheduler.next())
+        }
+    }
+    
+    private suspend fun speakItem(item: UtteranceItem) {
+        val engine = textToSpeech
+        if (engine == null) {
+            item.finish()
+            return
+        }
+        
+        val utteranceId = "utterance_${System.nanoTime()}"
+        requestTimes[utteranceId] = item.requestedAt
+        val clip = renderer.clipFor(item.message)
+        
+        current.value = item
+        if (item.priority >= WandasTTS.Priority.HIGH && item.interruptsRender) {
+            interruptRender()
+        }
+        withTimeoutOrNull(UTTERANCE_TIMEOUT_MS) {
+            if (clip == null || !playClip(clip, item, utteranceId)) {
+                speakWithEngine(engine, item, utteranceId)
+            }
+        }
+        
+        current.value = null
+        requestTimes.remove(utteranceId)
+        item.finish()
+    }
+    
+    private suspend fun speakWithEngine(engine: TextToSpeech, item: UtteranceItem, utteranceId: String) {
+        suspendCancellableCoroutine { cont ->
+            utteranceCallbacks[utteranceId] = {
+                if (cont.isActive) cont.resume(Unit)
+            }
+            
+            val result = engine.speak(item.message, TextToSpeech.QUEUE_ADD, null, utteranceId)
+            Log.d(TAG, "Speaking (${item.priority}): #${item.seq}")
+            if (result != TextToSpeech.SUCCESS) {
+                utteranceCallbacks.remove(utteranceId)
+                cont.resume(Unit)
+            } else if (scheduler.isPreempted(item)) {
+                stopEngine()
+            }
+            
+            cont.invokeOnCancellation {
+                utteranceCallbacks.remove(utteranceId)
+            }
+        }
+    }
+    
+    /**
+     * Play a cached clip in place of the engine and wait for it to end.
+     * False if the clip can't be played - the caller then has the engine
+     * speak the message.
+     */
+    private suspend fun playClip(clip: File, item: UtteranceItem, utteranceId: String): Boolean {
+        val played = clipPlayer.play(clip) {
+            onUtteranceStarted(utteranceId)
+            Log.d(TAG, "Speaking (${item.priority}, cached): #${item.seq}")
+            if (scheduler.isPreempted(item)) {
+                clipPlayer.stop()
+            }
+        }
+        if (played) {
+            _isSpeaking.value = false
+            Log.d(TAG, "Finished speaking: $utteranceId")
+        }
+        return played
+    }
+    
+    private fun onUtteranceStarted(utteranceId: String) {
+        _isSpeaking.value = true
+        Log.d(TAG, "Started speaking: $utteranceId")
+        requestTimes.remove(utteranceId)?.let { recordStart(it) }
+        if (!firstSpeechReported) reportFirstSpeech()
+    }
+    
+    private fun recordStart(requestedAt: Long) {
+        val latency = SystemClock.elapsedRealtime() - requestedAt
+        _metrics.update {
+            it.copy(
+                lastLatencyMs = latency,
+                maxLatencyMs = maxOf(it.maxLatencyMs, latency),
+                spoken = it.spoken + 1
+            )
+        }
+    }
+    
+    /**
+     * Report how long after boot (and after warm-up) the first speech started
+     */
+    private fun reportFirstSpeech() {
+        firstSpeechReported = true
+        val now = SystemClock.elapsedRealtime()
+        val sinceBootMs = now  // elapsedRealtime counts from boot
+        val sinceWarmUpMs = if (warmUpStartedAt > 0) now - warmUpStartedAt else 0L
+        _metrics.update { it.copy(firstSpeechSinceBootMs = sinceBootMs, firstSpeechSinceWarmUpMs = sinceWarmUpMs) }
+        Log.i(TAG, "Time to first speech: ${sinceBootMs}ms after boot, ${sinceWarmUpMs}ms after warm-up")
+    }
+    
+    // ========== PHRASE CACHE ==========
+    
+    /**
+     * Urgent speech must not wait behind a render in the engine's queue.
+     * Renders share that queue, and the scheduler only hands over one
+     * utterance at a time, so stopping the engine here only drops the
+     * render - TTSPhraseRenderer runs it again once speech is done.
+     */
+    private fun interruptRender() {
+        if (!renderer.isRendering) return
+        stopEngine()
+        Log.d(TAG, "Stopped phrase render for urgent speech")
+    }
+    
+    /**
+     * Stop (flush) the engine. A render flushed with it is retried,
+     * not reported as failed.
+     */
+    private fun stopEngine() {
+        renderer.onEngineStop()
+        textToSpeech?.stop()
+    }
+    
     fun shutdown() {
+        startJob?.cancel()
+        initialized.value = false
         textToSpeech?.stop()
         textToSpeech?.shutdown()
+        textToSpeech = null
         Log.d(TAG, "TTS shutdown")
     }
-    
-    private data class UtteranceItem(
-        val message: String,
-        val priority: WandasTTS.Priority
-    )
 }
-
@@ -0,0 +1,90 @@
+package com.tomsphone.core.tts
+
+import android.media.AudioAttributes
+import android.media.MediaPlayer
+import android.util.Log
+import kotlinx.coroutines.suspendCancellableCoroutine
+import java.io.File
+import kotlin.coroutines.resume
+
+/**
+ * Plays cached phrase clips (see TTSPhraseCache) in place of the engine
+ * 
+ * One clip at a time, on the stream the engine speaks on by default.
+ * [stop] ends it the way TextToSpeech.stop() ends speech.
+ */
+internal class TTSClipPlayer {
+    
+    private companion object {
+        const val TAG = "TTSClipPlayer"
+    }
+    
+    private val audioAttributes = AudioAttributes.Builder()
+        .setUsage(AudioAttributes.USAGE_MEDIA)
+        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+        .build()
+    
+    // Clip being played and how to release its caller (guarded by lock)
+    private val lock = Any()
+    private var player: MediaPlayer? = null
+    private var release: (() -> Unit)? = null
+    
+    val isPlaying: Boolean get() = synchronized(lock) { player != null }
+    
+    /**
+     * Play [clip] and wait for it to end or be stopped; [onStarted] runs
+     * once it is playing. False if the clip can't be played (e.g. deleted
+     * since it was looked up) - the caller then has the engine speak instead.
+     */
+    suspend fun play(clip: File, onStarted: () -> Unit): Boolean {
+        val player = MediaPlayer()
+        try {
+            player.setAudioAttributes(audioAttributes)
+            player.setDataSource(clip.path)
+            player.prepare()
+        } catch (e: Exception) {
+            Log.w(TAG, "Cached clip unusable: ${clip.name}", e)
+            player.release()
+            return false
+        }
+        
+        try {
+            suspendCancellableCoroutine { cont ->
+                val done = { if (cont.isActive) cont.resume(Unit) }
+                player.setOnCompletionListener { done() }
+                player.setOnErrorListener { _, what, extra ->
+                    Log.e(TAG, "Error playing cached clip: what=$what extra=$extra")
+                    done()
+                    true
+                }
+                
+                synchronized(lock) {
+                    this.player = player
+                    release = done
+                }
+                player.start()
+                onStarted()
+            }
+        } finally {
+            synchronized(lock) {
+                if (this.player === player) {
+                    this.player = null
+                    release = null
+                }
+            }
+            player.release()
+        }
+        return true
+    }
+    
+    /**
+     * Stop the clip being played, if any, and release whoever is waiting on it
+     */
+    fun stop() {
+        val done = synchronized(lock) {
+            player?.let { runCatching { it.stop() } }
+            release
+        } ?: return
+        done()
+    }
+}
@@ -0,0 +1,17 @@
+package com.tomsphone.core.tts
+
+/**
+ * Utterance scheduler and engine start-up metrics (see AndroidTTSImpl.metrics)
+ */
+data class TTSMetrics(
+    val queueDepth: Int = 0,        // Utterances waiting to be spoken
+    val lastLatencyMs: Long = 0,    // Request -> audio start, most recent utterance
+    val maxLatencyMs: Long = 0,     // Worst request -> audio start so far
+    val spoken: Int = 0,            // Utterances that started playing
+    val coalesced: Int = 0,         // Requests merged into an identical pending one
+    val dropped: Int = 0,           // LOW/NORMAL utterances dropped as stale
+    val initMs: Long = 0,           // Warm-up -> engine ready
+    val initAttempts: Int = 0,      // Engine start attempts (retried with backoff)
+    val firstSpeechSinceBootMs: Long = 0,    // Device boot -> first audio (0 = not yet)
+    val firstSpeechSinceWarmUpMs: Long = 0   // Warm-up -> first audio
+)
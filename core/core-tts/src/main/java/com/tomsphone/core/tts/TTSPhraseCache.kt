@@ -0,0 +1,125 @@
+package com.tomsphone.core.tts
+
+import android.content.Context
+import android.util.Log
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.File
+import java.security.MessageDigest
+import java.util.Locale
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Disk cache of pre-synthesized phrases (WAV files)
+ * 
+ * Phrases such as the missed call reminder or "That's your phone ringing."
+ * are spoken again and again. Rendering them once with synthesizeToFile
+ * and replaying the clip saves the engine's synthesis work each time.
+ * 
+ * A clip is keyed by text + speed + voice + locale, so a change to any of
+ * them renders a new clip. Least recently used clips are evicted once the
+ * cache is over its byte budget. Recency is tracked in memory; after a
+ * restart the oldest files go first.
+ */
+@Singleton
+class TTSPhraseCache @Inject constructor(
+    @ApplicationContext context: Context
+) {
+    
+    private companion object {
+        const val TAG = "TTSPhraseCache"
+        const val DIR_NAME = "tts_phrases"
+        const val CLIP_SUFFIX = ".wav"
+        const val TEMP_SUFFIX = ".tmp"
+        const val MAX_BYTES = 8L * 1024 * 1024  // Roughly 2-3 minutes of speech
+    }
+    
+    private val dir = File(context.cacheDir, DIR_NAME)
+    
+    // key -> clip size in bytes, in access order (eldest first)
+    private val entries = LinkedHashMap<String, Long>(16, 0.75f, true)
+    private var totalBytes = 0L
+    private var loaded = false
+    
+    /**
+     * Cache key for a phrase as it would be spoken right now
+     */
+    fun keyFor(text: String, speed: Float, voice: String?, locale: Locale): String {
+        val digest = MessageDigest.getInstance("SHA-256")
+            .digest("$locale|$voice|$speed|$text".toByteArray())
+        return digest.joinToString("") { "%02x".format(it) }
+    }
+    
+    /**
+     * Cached clip for [key], or null if not rendered yet
+     */
+    @Synchronized
+    fun get(key: String): File? {
+        ensureLoaded()
+        if (entries[key] == null) return null
+        
+        val file = clipFile(key)
+        if (!file.exists()) {
+            // Deleted behind our back (e.g. system cleared the cache dir)
+            totalBytes -= entries.remove(key) ?: 0L
+            return null
+        }
+        return file
+    }
+    
+    /**
+     * File to synthesize into before [commit]
+     */
+    fun tempFile(key: String): File {
+        dir.mkdirs()
+        return File(dir, key + TEMP_SUFFIX)
+    }
+    
+    /**
+     * Add a rendered clip to the cache, evicting older clips if over budget
+     */
+    @Synchronized
+    fun commit(key: String, temp: File): File? {
+        ensureLoaded()
+        val file = clipFile(key)
+        if (temp.length() == 0L || !temp.renameTo(file)) {
+            temp.delete()
+            return null
+        }
+        
+        totalBytes -= entries.put(key, file.length()) ?: 0L
+        totalBytes += file.length()
+        evict(keep = key)
+        Log.d(TAG, "Cached phrase clip ($key), total ${totalBytes / 1024}KB")
+        return file
+    }
+    
+    private fun evict(keep: String) {
+        val iterator = entries.entries.iterator()
+        while (totalBytes > MAX_BYTES && iterator.hasNext()) {
+            val (key, bytes) = iterator.next()
+            if (key == keep) continue
+            clipFile(key).delete()
+            iterator.remove()
+            totalBytes -= bytes
+            Log.d(TAG, "Evicted phrase clip ($key)")
+        }
+    }
+    
+    private fun ensureLoaded() {
+        if (loaded) return
+        loaded = true
+        
+        val files = dir.listFiles() ?: return
+        files.filter { it.name.endsWith(TEMP_SUFFIX) }.forEach { it.delete() }  // Interrupted renders
+        files.filter { it.name.endsWith(CLIP_SUFFIX) }
+            .sortedBy { it.lastModified() }
+            .forEach { file ->
+                entries[file.name.removeSuffix(CLIP_SUFFIX)] = file.length()
+                totalBytes += file.length()
+            }
+        Log.d(TAG, "Loaded ${entries.size} phrase clips (${totalBytes / 1024}KB)")
+    }
+    
+    private fun clipFile(key: String) = File(dir, key + CLIP_SUFFIX)
+}
@@ -0,0 +1,168 @@
+package com.tomsphone.core.tts
+
+import android.speech.tts.TextToSpeech
+import android.util.Log
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.suspendCancellableCoroutine
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withTimeoutOrNull
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.coroutines.resume
+
+/**
+ * Renders phrases to WAV clips with the engine, for TTSPhraseCache
+ * 
+ * A phrase is queued for rendering once it has been spoken
+ * RENDER_AFTER_USES times, and renders run one at a time, only while
+ * nothing is being spoken ([speechIdle]). Renders share the engine's
+ * queue with speech, so urgent speech stops the render in flight; it is
+ * rendered again once the speech is over.
+ */
+internal class TTSPhraseRenderer(
+    private val phraseCache: TTSPhraseCache,
+    private val engine: () -> TextToSpeech?,
+    private val utteranceCallbacks: ConcurrentHashMap<String, (Boolean) -> Unit>,
+    private val phraseKey: (String) -> String,  // Depends on the current speed and voice
+    private val speechIdle: Flow<Boolean>,
+    scope: CoroutineScope
+) {
+    
+    private companion object {
+        const val TAG = "TTSPhraseRenderer"
+        const val SYNTH_PREFIX = "synth_"
+        const val RENDER_AFTER_USES = 2       // Render a phrase once it is spoken a second time
+        const val MAX_TRACKED_PHRASES = 64
+        const val RENDER_TIMEOUT_MS = 15_000L
+        const val MAX_RENDER_RETRIES = 3      // Renders interrupted by urgent speech
+    }
+    
+    // Phrase text -> cache key of its last rendered clip
+    private val cachedPhrases = ConcurrentHashMap<String, String>()
+    
+    // How often recent phrases were spoken (bounded, most recent kept)
+    private val phraseUses = object : LinkedHashMap<String, Int>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Int>?) = size > MAX_TRACKED_PHRASES
+    }
+    
+    // Phrases waiting to be rendered to a clip
+    private val renderQueue = Channel<String>(Channel.UNLIMITED)
+    
+    // One render at a time (background queue and render() callers)
+    private val renderMutex = Mutex()
+    
+    // Utterance ID of the render in the engine, and whether speech cut it short
+    @Volatile private var renderingId: String? = null
+    @Volatile private var interrupted = false
+    
+    val isRendering: Boolean get() = renderingId != null
+    
+    init {
+        scope.launch {
+            for (message in renderQueue) {
+                if (render(message) == null) {
+                    Log.w(TAG, "Could not render queued phrase")
+                }
+            }
+        }
+    }
+    
+    fun isRender(utteranceId: String?) = utteranceId?.startsWith(SYNTH_PREFIX) == true
+    
+    /**
+     * The cached clip for [message], if there is one and its file still exists.
+     * Otherwise count the use and queue the phrase for rendering once it repeats.
+     */
+    fun clipFor(message: String): File? {
+        val key = phraseKey(message)
+        val clip = phraseCache.get(key)
+        
+        if (clip != null) {
+            cachedPhrases[message] = key
+            return clip
+        }
+        
+        val uses = synchronized(phraseUses) {
+            val count = (phraseUses[message] ?: 0) + 1
+            phraseUses[message] = count
+            count
+        }
+        // Had a clip (old speed/voice, or evicted) - render a fresh one as soon as possible
+        if (uses >= RENDER_AFTER_USES || cachedPhrases.containsKey(message)) {
+            renderQueue.trySend(message)
+        }
+        return null
+    }
+    
+    /**
+     * Cached clips are at the old speed or voice - re-render them straight away
+     */
+    fun rerenderCached() {
+        cachedPhrases.keys.forEach { renderQueue.trySend(it) }
+    }
+    
+    /**
+     * The engine is being stopped: a render in flight is retried, not failed
+     */
+    fun onEngineStop() {
+        if (renderingId != null) interrupted = true
+    }
+    
+    /**
+     * Render [message] to a cached clip (or return the one already cached).
+     * The engine must be ready. Null if rendering failed.
+     */
+    suspend fun render(message: String): File? = renderMutex.withLock {
+        val key = phraseKey(message)
+        phraseCache.get(key)?.let { return@withLock it }
+        
+        repeat(MAX_RENDER_RETRIES + 1) {
+            // Don't compete with live speech for the engine
+            speechIdle.first { it }
+            
+            val temp = phraseCache.tempFile(key)
+            interrupted = false
+            val rendered = withTimeoutOrNull(RENDER_TIMEOUT_MS) { synthesizeToFile(message, temp) } ?: false
+            if (rendered) {
+                return@withLock phraseCache.commit(key, temp)
+            }
+            temp.delete()
+            
+            if (!interrupted) return@withLock null
+            Log.d(TAG, "Render interrupted by speech, retrying")
+        }
+        null
+    }
+    
+    private suspend fun synthesizeToFile(message: String, file: File): Boolean {
+        val engine = engine() ?: return false
+        
+        val utteranceId = "$SYNTH_PREFIX${System.nanoTime()}"
+        renderingId = utteranceId
+        try {
+            return suspendCancellableCoroutine { cont ->
+                utteranceCallbacks[utteranceId] = { finished ->
+                    // A stopped render may have left a partial file
+                    if (cont.isActive) cont.resume(finished && file.length() > 0)
+                }
+                
+                val result = engine.synthesizeToFile(message, null, file, utteranceId)
+                if (result != TextToSpeech.SUCCESS) {
+                    utteranceCallbacks.remove(utteranceId)
+                    cont.resume(false)
+                }
+                
+                cont.invokeOnCancellation {
+                    utteranceCallbacks.remove(utteranceId)
+                }
+            }
+        } finally {
+            renderingId = null
+        }
+    }
+}
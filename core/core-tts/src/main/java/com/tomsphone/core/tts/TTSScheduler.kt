@@ -0,0 +1,222 @@
+package com.tomsphone.core.tts
+
+import android.os.SystemClock
+import android.util.Log
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.update
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Priority queue in front of the speech engine (see AndroidTTSImpl)
+ * 
+ * The engine only ever gets one utterance at a time, picked by priority
+ * (then age). Identical pending messages are merged, LOW/NORMAL messages
+ * that waited too long are dropped, and a request whose speakAndWait
+ * callers all gave up is withdrawn. IMMEDIATE requests are tracked so the
+ * one being handed over can be stopped if a newer one arrives meanwhile.
+ */
+internal class TTSScheduler(
+    private val metrics: MutableStateFlow<TTSMetrics>,
+    private val readyAt: () -> Long  // Time spent before the engine was ready doesn't count as waiting
+) {
+    
+    private companion object {
+        const val TAG = "TTSScheduler"
+    }
+    
+    // New requests, picked up by next()
+    private val queue = Channel<UtteranceItem>(Channel.UNLIMITED)
+    
+    // Requests waiting for the engine (guarded by itself)
+    private val pending = ArrayList<UtteranceItem>()
+    
+    // Request order, the newest IMMEDIATE request (see enqueue), and the
+    // newest one already queued when next() picked the current item
+    private val nextSeq = AtomicLong()
+    @Volatile private var latestImmediateSeq = 0L
+    private var pickedAfterImmediateSeq = 0L
+    
+    fun enqueue(
+        message: String,
+        priority: WandasTTS.Priority,
+        interruptsRender: Boolean = true,
+        waiter: Waiter? = null
+    ): UtteranceItem {
+        val item = UtteranceItem(
+            message = message,
+            priority = priority,
+            seq = nextSeq.incrementAndGet(),
+            interruptsRender = interruptsRender,
+            wanted = waiter == null,
+            waiters = listOfNotNull(waiter)
+        )
+        queue.trySend(item)
+        // After queueing: next() must find the request once it has seen this
+        if (priority == WandasTTS.Priority.IMMEDIATE) {
+            latestImmediateSeq = item.seq
+        }
+        return item
+    }
+    
+    /**
+     * The highest-priority (then oldest) request, waiting for one if none is pending
+     */
+    suspend fun next(): UtteranceItem {
+        while (true) {
+            // Anything up to here is in the queue, so it is considered in this pick
+            pickedAfterImmediateSeq = latestImmediateSeq
+            take()?.let { return it }
+            
+            // Nothing pending - wait for the next request
+            absorb(queue.receive())
+        }
+    }
+    
+    /**
+     * A newer IMMEDIATE request arrived, or the caller gave up, while
+     * [item] was being handed over. A withdrawn IMMEDIATE request from
+     * before the pick doesn't count - it was passed over, not missed.
+     */
+    fun isPreempted(item: UtteranceItem): Boolean {
+        return latestImmediateSeq > maxOf(item.seq, pickedAfterImmediateSeq) || item.isAbandoned
+    }
+    
+    /**
+     * Drop pending requests nobody is waiting for any more (see Waiter)
+     */
+    fun dropWithdrawn() {
+        val dropped = synchronized(pending) {
+            pending.filter { it.isAbandoned }.also { pending.removeAll(it.toSet()) }
+        }
+        if (dropped.isNotEmpty()) {
+            Log.d(TAG, "Withdrawn: ${dropped.joinToString { "#${it.seq}" }}")
+            publishQueueDepth()
+        }
+    }
+    
+    /**
+     * Drop everything not yet handed to the engine, releasing its waiters
+     */
+    fun clear() {
+        val cleared = synchronized(pending) {
+            val items = pending.toList()
+            pending.clear()
+            items
+        }
+        // Requests not yet picked up by next() are cleared too
+        generateSequence { queue.tryReceive().getOrNull() }.forEach { it.finish() }
+        cleared.forEach { it.finish() }
+        publishQueueDepth()
+    }
+    
+    /**
+     * Add a request to the pending set, merging it into an identical one
+     */
+    private fun absorb(item: UtteranceItem) {
+        val merged = synchronized(pending) {
+            val index = pending.indexOfFirst { it.message == item.message }
+            if (index >= 0) {
+                val existing = pending[index]
+                pending[index] = existing.copy(
+                    priority = maxOf(existing.priority, item.priority),
+                    seq = item.seq,
+                    interruptsRender = existing.interruptsRender || item.interruptsRender,
+                    wanted = existing.wanted || item.wanted,
+                    requestedAt = item.requestedAt,  // Asked for again - fresh
+                    waiters = existing.waiters + item.waiters
+                )
+                true
+            } else {
+                pending.add(item)
+                false
+            }
+        }
+        if (merged) {
+            metrics.update { it.copy(coalesced = it.coalesced + 1) }
+            Log.d(TAG, "Coalesced duplicate: #${item.seq}")
+        }
+        publishQueueDepth()
+    }
+    
+    /**
+     * Take the highest-priority (then oldest) request, dropping stale ones
+     */
+    private fun take(): UtteranceItem? {
+        while (true) {
+            val item = queue.tryReceive().getOrNull() ?: break
+            absorb(item)
+        }
+        
+        val now = SystemClock.elapsedRealtime()
+        val (next, stale) = synchronized(pending) {
+            // Withdrawn while still in the queue
+            pending.removeAll { it.isAbandoned }
+            val stale = pending.filter { it.isStale(now, readyAt()) }
+            pending.removeAll(stale.toSet())
+            
+            val next = pending.minWithOrNull(
+                compareByDescending<UtteranceItem> { it.priority }.thenBy { it.requestedAt }
+            )
+            if (next != null) pending.remove(next)
+            next to stale
+        }
+        
+        if (stale.isNotEmpty()) {
+            stale.forEach {
+                Log.d(TAG, "Dropped stale (${it.priority}): #${it.seq}")
+                it.finish()
+            }
+            metrics.update { it.copy(dropped = it.dropped + stale.size) }
+        }
+        publishQueueDepth()
+        return next
+    }
+    
+    private fun publishQueueDepth() {
+        val depth = synchronized(pending) { pending.size }
+        metrics.update { it.copy(queueDepth = depth) }
+    }
+}
+
+/**
+ * A speech request, as queued by TTSScheduler
+ */
+internal data class UtteranceItem(
+    val message: String,
+    val priority: WandasTTS.Priority,
+    val seq: Long,
+    val interruptsRender: Boolean = true,  // False for speakAndWait (see there)
+    val wanted: Boolean = true,            // Asked for with speak(), not only by speakAndWait callers
+    val requestedAt: Long = SystemClock.elapsedRealtime(),
+    val waiters: List<Waiter> = emptyList()  // speakAndWait callers
+) {
+    
+    private companion object {
+        const val LOW_STALE_MS = 15_000L
+        const val NORMAL_STALE_MS = 30_000L
+    }
+    
+    // Nobody wants it any more: only speakAndWait callers asked, and all gave up
+    val isAbandoned: Boolean get() = !wanted && waiters.all { it.withdrawn }
+    
+    // Time spent waiting for the engine to start doesn't count
+    fun isStale(now: Long, readyAt: Long): Boolean {
+        val waited = now - maxOf(requestedAt, readyAt)
+        return when (priority) {
+            WandasTTS.Priority.LOW -> waited > LOW_STALE_MS
+            WandasTTS.Priority.NORMAL -> waited > NORMAL_STALE_MS
+            else -> false
+        }
+    }
+    
+    // Spoken, dropped or cleared - release anyone waiting on it
+    fun finish() = waiters.forEach { it.onDone() }
+}
+
+/**
+ * A speakAndWait caller, released when its utterance is done
+ */
+internal class Waiter(val onDone: () -> Unit) {
+    @Volatile var withdrawn = false
+}
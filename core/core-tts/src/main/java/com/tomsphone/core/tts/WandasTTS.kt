@@ -1,5 +1,8 @@
 package com.tomsphone.core.tts
 
+import kotlinx.coroutines.flow.StateFlow
+import java.io.File
+
 /**
  * Text-to-speech interface for WandasPhone
  * 
@@ -8,6 +11,18 @@ package com.tomsphone.core.tts
  */
 interface WandasTTS {
     
+    /**
+     * True once the speech engine is initialized.
+     * Speech requested before then is held and spoken when it is.
+     */
+    val ready: StateFlow<Boolean>
+    
+    /**
+     * Start the speech engine in the background (call at app start).
+     * Safe to call repeatedly; speaking also starts it if needed.
+     */
+    fun warmUp()
+    
     /**
      * Speak a message with given priority
      */
@@ -39,6 +54,12 @@ interface WandasTTS {
      */
     fun setSpeed(speed: Float)
     
+    /**
+     * Render a phrase to a WAV clip (cached), for mixing into other audio.
+     * Waits for the engine to be ready; null if rendering failed.
+     */
+    suspend fun renderPhrase(message: String): File?
+    
     /**
      * Speech priority levels
      */
@@ -1,7 +1,9 @@
 package com.tomsphone.core.ui.components
 
+import androidx.compose.foundation.Image
 import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.shape.CircleShape
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material3.Button
 import androidx.compose.material3.ButtonDefaults
@@ -10,10 +12,14 @@ import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.ImageBitmap
+import androidx.compose.ui.layout.ContentScale
 import androidx.compose.ui.text.TextStyle
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
+import androidx.compose.ui.unit.TextUnit
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import com.tomsphone.core.ui.theme.ScaledDimensions
@@ -27,6 +33,7 @@ import com.tomsphone.core.ui.theme.wandasColors
  * Supports:
  * - Custom background/text colors
  * - Optional warning badge at bottom (e.g., "Auto-Answer")
+ * - Optional round photo to the left of the label (contact face)
  * - Full-width or half-width layouts
  * - Scales with user text size setting
  * 
@@ -40,7 +47,8 @@ fun ConfigurableButton(
     backgroundColor: Color = MaterialTheme.wandasColors.primaryButton,
     textColor: Color = MaterialTheme.wandasColors.onPrimaryButton,
     warningText: String? = null,
-    enabled: Boolean = true
+    enabled: Boolean = true,
+    photo: ImageBitmap? = null
 ) {
     // Use scaled dimensions
     val buttonHeight = ScaledDimensions.contactButtonHeight
@@ -67,34 +75,57 @@ fun ConfigurableButton(
             defaultElevation = WandasDimensions.ElevationMedium
         )
     ) {
-        if (warningText != null) {
-            // Two-line layout: main label + warning at bottom
-            Column(
-                horizontalAlignment = Alignment.CenterHorizontally,
-                verticalArrangement = Arrangement.Center,
-                modifier = Modifier.fillMaxHeight()
+        if (photo != null) {
+            // Face on the left, label beside it. The photo never takes more
+            // than about a third of the width, so half-width buttons keep their text.
+            Row(
+                verticalAlignment = Alignment.CenterVertically,
+                modifier = Modifier.fillMaxSize()
             ) {
-                // Main label
-                Text(
-                    text = label,
-                    style = TextStyle(
-                        fontSize = textSize,
-                        fontWeight = FontWeight.SemiBold
-                    ),
-                    color = textColor,
-                    textAlign = TextAlign.Center
+                Image(
+                    bitmap = photo,
+                    contentDescription = null,
+                    contentScale = ContentScale.Crop,
+                    modifier = Modifier
+                        .weight(0.5f, fill = false)
+                        .fillMaxHeight()
+                        .aspectRatio(1f, matchHeightConstraintsFirst = true)
+                        .clip(CircleShape)
                 )
                 
-                Spacer(modifier = Modifier.height(4.dp))
+                Spacer(modifier = Modifier.width(WandasDimensions.SpacingMedium))
                 
-                // Warning badge
-                WarningBadge(
-                    text = warningText,
-                    modifier = Modifier.padding(horizontal = WandasDimensions.SpacingSmall)
-                )
+                Box(
+                    modifier = Modifier.weight(1f),
+                    contentAlignment = Alignment.Center
+                ) {
+                    ButtonLabel(label, warningText, textSize, textColor)
+                }
             }
         } else {
-            // Single label, centered
+            ButtonLabel(label, warningText, textSize, textColor)
+        }
+    }
+}
+
+/**
+ * Button label, with the warning badge underneath when there is one.
+ */
+@Composable
+private fun ButtonLabel(
+    label: String,
+    warningText: String?,
+    textSize: TextUnit,
+    textColor: Color
+) {
+    if (warningText != null) {
+        // Two-line layout: main label + warning at bottom
+        Column(
+            horizontalAlignment = Alignment.CenterHorizontally,
+            verticalArrangement = Arrangement.Center,
+            modifier = Modifier.fillMaxHeight()
+        ) {
+            // Main label
             Text(
                 text = label,
                 style = TextStyle(
@@ -104,7 +135,26 @@ fun ConfigurableButton(
                 color = textColor,
                 textAlign = TextAlign.Center
             )
+            
+            Spacer(modifier = Modifier.height(4.dp))
+            
+            // Warning badge
+            WarningBadge(
+                text = warningText,
+                modifier = Modifier.padding(horizontal = WandasDimensions.SpacingSmall)
+            )
         }
+    } else {
+        // Single label, centered
+        Text(
+            text = label,
+            style = TextStyle(
+                fontSize = textSize,
+                fontWeight = FontWeight.SemiBold
+            ),
+            color = textColor,
+            textAlign = TextAlign.Center
+        )
     }
 }
 
@@ -46,6 +46,7 @@ dependencies {
     implementation(project(":core:core-data"))
     
     // Compose
+    implementation(libs.androidx.activity.compose)
     implementation(platform(libs.compose.bom))
     implementation(libs.compose.ui)
     implementation(libs.compose.material3)
@@ -19,9 +19,11 @@ object CarerRoutes {
     const val CONTACTS = "carer_contacts"
     const val CONTACT_EDIT = "carer_contact_edit/{contactId}/{contactType}"
     const val CALL_HANDLING = "carer_call_handling"
+    const val ALLOW_RULES = "carer_allow_rules"
     const val APPEARANCE = "carer_appearance"
     const val FEATURE_LEVEL = "carer_feature_level"
     const val ALWAYS_ON = "carer_always_on"
+    const val CALL_STATS = "carer_call_stats"
     const val FACTORY_RESET = "carer_factory_reset"
     
     fun contactEdit(contactId: Long, contactType: ContactType) = 
@@ -54,6 +56,7 @@ fun CarerNavigation(
                 onNavigateToAppearance = { navController.navigate(CarerRoutes.APPEARANCE) },
                 onNavigateToFeatureLevel = { navController.navigate(CarerRoutes.FEATURE_LEVEL) },
                 onNavigateToAlwaysOn = { navController.navigate(CarerRoutes.ALWAYS_ON) },
+                onNavigateToCallStats = { navController.navigate(CarerRoutes.CALL_STATS) },
                 onNavigateToFactoryReset = { navController.navigate(CarerRoutes.FACTORY_RESET) },
                 onExitApp = onExitApp,
                 onBack = onExitCarerSettings
@@ -112,6 +115,15 @@ fun CarerNavigation(
         // Call Handling
         composable(CarerRoutes.CALL_HANDLING) {
             CallHandlingScreen(
+                featureLevel = featureLevel,
+                onNavigateToAllowRules = { navController.navigate(CarerRoutes.ALLOW_RULES) },
+                onBack = { navController.popBackStack() }
+            )
+        }
+        
+        // Allowed Callers (prefix / range rules)
+        composable(CarerRoutes.ALLOW_RULES) {
+            AllowRulesScreen(
                 featureLevel = featureLevel,
                 onBack = { navController.popBackStack() }
             )
@@ -141,6 +153,14 @@ fun CarerNavigation(
             )
         }
         
+        // Call Statistics
+        composable(CarerRoutes.CALL_STATS) {
+            CallStatsScreen(
+                featureLevel = featureLevel,
+                onBack = { navController.popBackStack() }
+            )
+        }
+        
         // Factory Reset
         composable(CarerRoutes.FACTORY_RESET) {
             FactoryResetScreen(
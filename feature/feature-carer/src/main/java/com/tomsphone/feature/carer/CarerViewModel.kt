@@ -1,19 +1,32 @@
 package com.tomsphone.feature.carer
 
 import android.content.Context
+import android.net.Uri
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
 import com.tomsphone.core.config.CarerSettings
 import com.tomsphone.core.config.FeatureLevel
+import com.tomsphone.core.config.SettingsFields
 import com.tomsphone.core.config.SettingsRepository
+import com.tomsphone.core.data.blocklist.BlocklistImportProgress
+import com.tomsphone.core.data.blocklist.BlocklistIndex
+import com.tomsphone.core.data.blocklist.NuisanceBlocklist
+import com.tomsphone.core.data.importer.ContactImportProgress
+import com.tomsphone.core.data.model.AllowRule
+import com.tomsphone.core.data.model.CallStats
 import com.tomsphone.core.data.model.Contact
+import com.tomsphone.core.data.photo.PhotoStore
+import com.tomsphone.core.data.repository.AllowRuleRepository
+import com.tomsphone.core.data.repository.CallLogRepository
 import com.tomsphone.core.data.repository.ContactRepository
 import com.tomsphone.core.config.ThemeOption
 import dagger.hilt.android.lifecycle.HiltViewModel
 import dagger.hilt.android.qualifiers.ApplicationContext
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
+import java.io.File
 import java.security.MessageDigest
+import java.util.concurrent.Executor
 import javax.inject.Inject
 
 /**
@@ -31,7 +44,11 @@ import javax.inject.Inject
 class CarerSettingsViewModel @Inject constructor(
     @ApplicationContext private val context: Context,
     private val settingsRepository: SettingsRepository,
-    private val contactRepository: ContactRepository
+    private val contactRepository: ContactRepository,
+    private val callLogRepository: CallLogRepository,
+    private val photoStore: PhotoStore,
+    private val nuisanceBlocklist: NuisanceBlocklist,
+    private val allowRuleRepository: AllowRuleRepository
 ) : ViewModel() {
     
     // Current settings
@@ -50,6 +67,40 @@ class CarerSettingsViewModel @Inject constructor(
             initialValue = emptyList()
         )
     
+    // Call statistics (read from daily aggregates, only while a screen shows them)
+    val callStatsByContact: StateFlow<List<CallStats>> = callLogRepository.getCallStatsByContact(CALL_STATS_DAYS)
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = emptyList()
+        )
+    
+    val dailyCallStats: StateFlow<List<CallStats>> = callLogRepository.getDailyCallStats(CALL_STATS_DAYS)
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = emptyList()
+        )
+    
+    // Contact import in progress / last result (null = none) - the import
+    // itself runs in the repository, so it survives leaving this screen
+    val importProgress: StateFlow<ContactImportProgress?> = contactRepository.getImportProgress()
+    
+    // Prefix / range rules that let institutional callers through screening
+    val allowRules: StateFlow<List<AllowRule>> = allowRuleRepository.getRules()
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = emptyList()
+        )
+    
+    // Nuisance-number list currently used for screening (null = none)
+    val blocklist: StateFlow<BlocklistIndex?> = nuisanceBlocklist.index
+    
+    // Blocklist import in progress / last result (null = none)
+    private val _blocklistImportProgress = MutableStateFlow<BlocklistImportProgress?>(null)
+    val blocklistImportProgress: StateFlow<BlocklistImportProgress?> = _blocklistImportProgress.asStateFlow()
+    
     // PIN verification state
     private val _isPinVerified = MutableStateFlow(false)
     val isPinVerified: StateFlow<Boolean> = _isPinVerified.asStateFlow()
@@ -97,10 +148,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setTheme(theme: ThemeOption) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(
-                current.copy(ui = current.ui.copy(theme = theme))
-            )
+            settingsRepository.updateField(SettingsFields.UI) { it.copy(theme = theme) }
         }
     }
     
@@ -109,10 +157,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserTextSize(textSize: com.tomsphone.core.config.UserTextSize) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(
-                current.copy(ui = current.ui.copy(userTextSize = textSize))
-            )
+            settingsRepository.updateField(SettingsFields.UI) { it.copy(userTextSize = textSize) }
         }
     }
     
@@ -121,8 +166,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserName(name: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userName = name))
+            settingsRepository.updateField(SettingsFields.USER_NAME, name)
         }
     }
     
@@ -172,6 +216,17 @@ class CarerSettingsViewModel @Inject constructor(
         }
     }
     
+    /**
+     * Import contacts (vCard / CSV) into the grey list
+     */
+    fun importContacts(uri: Uri) {
+        contactRepository.importContacts(uri)  // Ignored if one is already running
+    }
+    
+    fun clearImportResult() {
+        contactRepository.clearImportResult()
+    }
+    
     // ========== ALWAYS ON MODE SETTINGS ==========
     
     /**
@@ -179,8 +234,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setPinnedMode(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(pinnedModeEnabled = enabled))
+            settingsRepository.updateField(SettingsFields.PINNED_MODE_ENABLED, enabled)
         }
     }
     
@@ -189,8 +243,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setScreenAlwaysOn(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(screenAlwaysOn = enabled))
+            settingsRepository.updateField(SettingsFields.SCREEN_ALWAYS_ON, enabled)
         }
     }
     
@@ -199,8 +252,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setLockVolumeButtons(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(lockVolumeButtons = enabled))
+            settingsRepository.updateField(SettingsFields.LOCK_VOLUME_BUTTONS, enabled)
         }
     }
     
@@ -211,8 +263,56 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setRejectUnknownCalls(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(rejectUnknownCalls = enabled))
+            settingsRepository.updateField(SettingsFields.REJECT_UNKNOWN_CALLS, enabled)
+        }
+    }
+    
+    /**
+     * Add (id 0) or update an allow rule. [onResult] gets null once saved,
+     * or the reason the rule was refused.
+     */
+    fun saveAllowRule(rule: AllowRule, onResult: (String?) -> Unit) {
+        viewModelScope.launch {
+            allowRuleRepository.saveRule(rule)
+                .onSuccess { onResult(null) }
+                .onFailure { e -> onResult(e.message ?: "Rule could not be saved") }
+        }
+    }
+    
+    fun setAllowRuleEnabled(id: Long, enabled: Boolean) {
+        viewModelScope.launch {
+            allowRuleRepository.setRuleEnabled(id, enabled)
+        }
+    }
+    
+    fun removeAllowRule(id: Long) {
+        viewModelScope.launch {
+            allowRuleRepository.removeRule(id)
+        }
+    }
+    
+    /**
+     * Replace the nuisance-number list with one from a text file
+     */
+    fun importBlocklist(uri: Uri) {
+        if (_blocklistImportProgress.value?.finished == false) return  // One import at a time
+        viewModelScope.launch {
+            nuisanceBlocklist.import(uri).collect { progress ->
+                _blocklistImportProgress.value = progress
+            }
+        }
+    }
+    
+    fun clearBlocklistImportResult() {
+        _blocklistImportProgress.value = null
+    }
+    
+    /**
+     * Stop using the nuisance-number list
+     */
+    fun removeBlocklist() {
+        viewModelScope.launch {
+            nuisanceBlocklist.clear()
         }
     }
     
@@ -221,8 +321,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setSpeakerphoneAlwaysOn(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(speakerphoneAlwaysOn = enabled))
+            settingsRepository.updateField(SettingsFields.SPEAKERPHONE_ALWAYS_ON, enabled)
         }
     }
     
@@ -231,8 +330,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setMissedCallNagEnabled(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(missedCallNagEnabled = enabled))
+            settingsRepository.updateField(SettingsFields.MISSED_CALL_NAG_ENABLED, enabled)
         }
     }
     
@@ -241,8 +339,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setMissedCallNagInterval(interval: com.tomsphone.core.config.MissedCallNagInterval) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(missedCallNagInterval = interval))
+            settingsRepository.updateField(SettingsFields.MISSED_CALL_NAG_INTERVAL, interval)
         }
     }
     
@@ -253,8 +350,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setEmergencyNumber(number: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(emergencyNumber = number))
+            settingsRepository.updateField(SettingsFields.EMERGENCY_NUMBER, number)
         }
     }
     
@@ -263,8 +359,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setEmergencyTestMode(enabled: Boolean) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(emergencyTestMode = enabled))
+            settingsRepository.updateField(SettingsFields.EMERGENCY_TEST_MODE, enabled)
         }
     }
     
@@ -273,8 +368,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserAddress(address: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userAddress = address))
+            settingsRepository.updateField(SettingsFields.USER_ADDRESS, address)
         }
     }
     
@@ -283,8 +377,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserBloodType(bloodType: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userBloodType = bloodType))
+            settingsRepository.updateField(SettingsFields.USER_BLOOD_TYPE, bloodType)
         }
     }
     
@@ -293,8 +386,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserAllergies(allergies: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userAllergies = allergies))
+            settingsRepository.updateField(SettingsFields.USER_ALLERGIES, allergies)
         }
     }
     
@@ -303,8 +395,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserMedications(medications: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userMedications = medications))
+            settingsRepository.updateField(SettingsFields.USER_MEDICATIONS, medications)
         }
     }
     
@@ -313,8 +404,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserMedicalConditions(conditions: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userMedicalConditions = conditions))
+            settingsRepository.updateField(SettingsFields.USER_MEDICAL_CONDITIONS, conditions)
         }
     }
     
@@ -323,8 +413,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserEmergencyNotes(notes: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userEmergencyNotes = notes))
+            settingsRepository.updateField(SettingsFields.USER_EMERGENCY_NOTES, notes)
         }
     }
     
@@ -333,8 +422,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserSurname(surname: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userSurname = surname))
+            settingsRepository.updateField(SettingsFields.USER_SURNAME, surname)
         }
     }
     
@@ -343,8 +431,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setEmergencyContact1Name(name: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(emergencyContact1Name = name))
+            settingsRepository.updateField(SettingsFields.EMERGENCY_CONTACT_1_NAME, name)
         }
     }
     
@@ -353,8 +440,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setEmergencyContact1Phone(phone: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(emergencyContact1Phone = phone))
+            settingsRepository.updateField(SettingsFields.EMERGENCY_CONTACT_1_PHONE, phone)
         }
     }
     
@@ -363,8 +449,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setEmergencyContact2Name(name: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(emergencyContact2Name = name))
+            settingsRepository.updateField(SettingsFields.EMERGENCY_CONTACT_2_NAME, name)
         }
     }
     
@@ -373,8 +458,7 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setEmergencyContact2Phone(phone: String) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(emergencyContact2Phone = phone))
+            settingsRepository.updateField(SettingsFields.EMERGENCY_CONTACT_2_PHONE, phone)
         }
     }
     
@@ -383,8 +467,37 @@ class CarerSettingsViewModel @Inject constructor(
      */
     fun setUserPhotoUri(uri: String?) {
         viewModelScope.launch {
-            val current = settings.first()
-            settingsRepository.updateSettings(current.copy(userPhotoUri = uri))
+            settingsRepository.updateField(SettingsFields.USER_PHOTO_URI, uri)
+        }
+    }
+    
+    /**
+     * Background executor for camera capture callbacks and photo processing
+     */
+    val photoExecutor: Executor
+        get() = photoStore.executor
+    
+    /**
+     * Turn a freshly captured photo into the pre-sized variants and save it
+     * as the user photo. Blocking - call on [photoExecutor].
+     * 
+     * @return Path stored in settings (the full-screen variant)
+     */
+    fun storeUserPhoto(captured: File): Result<String> {
+        return photoStore.store(captured, PhotoStore.USER_PHOTO)
+            .map { it.absolutePath }
+            .onSuccess { setUserPhotoUri(it) }
+    }
+    
+    /**
+     * Delete all sizes of the user photo and clear the setting
+     */
+    fun removeUserPhoto() {
+        photoExecutor.execute {
+            photoStore.remove(PhotoStore.USER_PHOTO)
+            // Photo saved before pre-sizing existed
+            settings.value.userPhotoUri?.let { File(it).delete() }
+            setUserPhotoUri(null)
         }
     }
     
@@ -423,6 +536,9 @@ class CarerSettingsViewModel @Inject constructor(
                 // Database name must match DataModule.kt
                 context.deleteDatabase("toms_phone_db_v5")
                 
+                // Imported nuisance-number list
+                nuisanceBlocklist.clear()
+                
                 // 3. TODO: Delete remote data when carer portal is implemented
                 // When the cloud carer portal is added, call the server API here:
                 // carerPortalApi.deleteUserData(userId)
@@ -438,5 +554,8 @@ class CarerSettingsViewModel @Inject constructor(
             }
         }
     }
+    
+    companion object {
+        const val CALL_STATS_DAYS = 30
+    }
 }
-
@@ -0,0 +1,300 @@
+package com.tomsphone.feature.carer.screens
+
+import androidx.compose.foundation.clickable
+import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.selection.selectable
+import androidx.compose.foundation.text.KeyboardOptions
+import androidx.compose.material.icons.Icons
+import androidx.compose.material.icons.filled.Delete
+import androidx.compose.material3.*
+import androidx.compose.runtime.*
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.text.input.KeyboardCapitalization
+import androidx.compose.ui.text.input.KeyboardType
+import androidx.compose.ui.unit.dp
+import androidx.hilt.navigation.compose.hiltViewModel
+import com.tomsphone.core.config.FeatureLevel
+import com.tomsphone.core.data.model.AllowRule
+import com.tomsphone.core.data.model.AllowRuleType
+import com.tomsphone.core.ui.theme.WandasDimensions
+import com.tomsphone.core.ui.theme.wandasColors
+import com.tomsphone.feature.carer.CarerSettingsViewModel
+import com.tomsphone.feature.carer.components.*
+
+/**
+ * Allowed callers screen.
+ * 
+ * Carer-managed rules that let callers without a fixed number through
+ * screening while unknown calls are rejected:
+ * - Prefix: every number starting with e.g. 01632 96
+ * - Range: every number from e.g. 01632 960000 to 01632 960999
+ * 
+ * Tap a rule to edit it; the switch turns it off without deleting it.
+ */
+@Composable
+fun AllowRulesScreen(
+    featureLevel: FeatureLevel,
+    onBack: () -> Unit,
+    viewModel: CarerSettingsViewModel = hiltViewModel()
+) {
+    val rules by viewModel.allowRules.collectAsState()
+    val saveToastState = rememberSaveToastState()
+    
+    // Rule being edited (id 0 = new)
+    var editing by remember { mutableStateOf(newAllowRule()) }
+    var error by remember { mutableStateOf<String?>(null) }
+    
+    Surface(
+        modifier = Modifier.fillMaxSize(),
+        color = MaterialTheme.wandasColors.background
+    ) {
+        Box(modifier = Modifier.fillMaxSize()) {
+            Column(
+                modifier = Modifier.fillMaxSize()
+            ) {
+                // Dev level indicator
+                DevLevelIndicator(level = featureLevel)
+                
+                // Breadcrumb
+                CarerBreadcrumb(
+                    title = "Allowed Callers",
+                    parentTitle = "Call Handling",
+                    onBack = onBack
+                )
+                
+                // Content
+                LazyColumn(
+                    modifier = Modifier
+                        .fillMaxSize()
+                        .padding(WandasDimensions.SpacingMedium),
+                    verticalArrangement = Arrangement.spacedBy(WandasDimensions.SpacingSmall)
+                ) {
+                    item {
+                        AllowRuleForm(
+                            rule = editing,
+                            error = error,
+                            onChange = {
+                                editing = it
+                                error = null
+                            },
+                            onSave = {
+                                val rule = editing
+                                viewModel.saveAllowRule(rule) { problem ->
+                                    error = problem
+                                    if (problem == null) {
+                                        saveToastState.show("${rule.label.trim()} saved")
+                                        editing = newAllowRule()
+                                    }
+                                }
+                            },
+                            onCancel = {
+                                editing = newAllowRule()
+                                error = null
+                            }
+                        )
+                    }
+                    
+                    item {
+                        Spacer(modifier = Modifier.height(8.dp))
+                        Text(
+                            text = if (rules.isEmpty()) "No rules yet" else "Rules",
+                            style = MaterialTheme.typography.titleMedium,
+                            color = MaterialTheme.wandasColors.onSurface
+                        )
+                    }
+                    
+                    items(rules, key = { it.id }) { rule ->
+                        AllowRuleListItem(
+                            rule = rule,
+                            onClick = {
+                                editing = rule
+                                error = null
+                            },
+                            onEnabledChange = { enabled ->
+                                viewModel.setAllowRuleEnabled(rule.id, enabled)
+                                saveToastState.show("${rule.label} ${if (enabled) "enabled" else "disabled"}")
+                            },
+                            onDelete = {
+                                viewModel.removeAllowRule(rule.id)
+                                if (editing.id == rule.id) {
+                                    editing = newAllowRule()
+                                }
+                                saveToastState.show("${rule.label} removed")
+                            }
+                        )
+                    }
+                    
+                    item {
+                        Spacer(modifier = Modifier.height(32.dp))
+                    }
+                }
+            }
+            
+            // Save toast
+            SaveToast(
+                message = saveToastState.message,
+                modifier = Modifier.align(Alignment.BottomCenter)
+            )
+        }
+    }
+}
+
+private fun newAllowRule() = AllowRule(label = "", type = AllowRuleType.PREFIX, startNumber = "")
+
+@Composable
+private fun AllowRuleForm(
+    rule: AllowRule,
+    error: String?,
+    onChange: (AllowRule) -> Unit,
+    onSave: () -> Unit,
+    onCancel: () -> Unit
+) {
+    SettingCard(title = if (rule.id == 0L) "Add Rule" else "Edit Rule") {
+        OutlinedTextField(
+            value = rule.label,
+            onValueChange = { onChange(rule.copy(label = it)) },
+            label = { Text("Who is calling (e.g. GP surgery)") },
+            singleLine = true,
+            keyboardOptions = KeyboardOptions(capitalization = KeyboardCapitalization.Words),
+            modifier = Modifier.fillMaxWidth()
+        )
+        
+        Spacer(modifier = Modifier.height(8.dp))
+        
+        AllowRuleType.entries.forEach { type ->
+            Row(
+                modifier = Modifier
+                    .fillMaxWidth()
+                    .selectable(
+                        selected = rule.type == type,
+                        onClick = { onChange(rule.copy(type = type)) }
+                    ),
+                verticalAlignment = Alignment.CenterVertically
+            ) {
+                RadioButton(
+                    selected = rule.type == type,
+                    onClick = { onChange(rule.copy(type = type)) }
+                )
+                
+                Spacer(modifier = Modifier.width(8.dp))
+                
+                Text(
+                    text = when (type) {
+                        AllowRuleType.PREFIX -> "Numbers starting with..."
+                        AllowRuleType.RANGE -> "Numbers between..."
+                    },
+                    style = MaterialTheme.typography.bodyMedium,
+                    color = MaterialTheme.wandasColors.onSurface
+                )
+            }
+        }
+        
+        Spacer(modifier = Modifier.height(8.dp))
+        
+        OutlinedTextField(
+            value = rule.startNumber,
+            onValueChange = { value -> onChange(rule.copy(startNumber = value.filter { it.isDigit() || it in " +-" })) },
+            label = { Text(if (rule.type == AllowRuleType.PREFIX) "Start of number (e.g. 01632 96)" else "First number") },
+            singleLine = true,
+            keyboardOptions = KeyboardOptions(keyboardType = KeyboardType.Phone),
+            modifier = Modifier.fillMaxWidth()
+        )
+        
+        if (rule.type == AllowRuleType.RANGE) {
+            Spacer(modifier = Modifier.height(8.dp))
+            OutlinedTextField(
+                value = rule.endNumber.orEmpty(),
+                onValueChange = { value -> onChange(rule.copy(endNumber = value.filter { it.isDigit() || it in " +-" })) },
+                label = { Text("Last number") },
+                singleLine = true,
+                keyboardOptions = KeyboardOptions(keyboardType = KeyboardType.Phone),
+                modifier = Modifier.fillMaxWidth()
+            )
+        }
+        
+        if (error != null) {
+            Spacer(modifier = Modifier.height(8.dp))
+            Text(
+                text = error,
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.colorScheme.error
+            )
+        }
+        
+        Spacer(modifier = Modifier.height(12.dp))
+        
+        Row(
+            modifier = Modifier.fillMaxWidth(),
+            horizontalArrangement = Arrangement.spacedBy(8.dp)
+        ) {
+            Button(
+                onClick = onSave,
+                modifier = Modifier.weight(1f)
+            ) {
+                Text(if (rule.id == 0L) "Add Rule" else "Save Rule")
+            }
+            if (rule.id != 0L) {
+                OutlinedButton(
+                    onClick = onCancel,
+                    modifier = Modifier.weight(1f)
+                ) {
+                    Text("Cancel")
+                }
+            }
+        }
+    }
+}
+
+@Composable
+private fun AllowRuleListItem(
+    rule: AllowRule,
+    onClick: () -> Unit,
+    onEnabledChange: (Boolean) -> Unit,
+    onDelete: () -> Unit
+) {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .clickable(onClick = onClick),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.wandasColors.surface
+        )
+    ) {
+        Row(
+            modifier = Modifier.padding(WandasDimensions.SpacingMedium),
+            verticalAlignment = Alignment.CenterVertically
+        ) {
+            Column(modifier = Modifier.weight(1f)) {
+                Text(
+                    text = rule.label,
+                    style = MaterialTheme.typography.bodyLarge,
+                    color = MaterialTheme.wandasColors.onSurface
+                )
+                Text(
+                    text = when (rule.type) {
+                        AllowRuleType.PREFIX -> "${rule.startNumber}..."
+                        AllowRuleType.RANGE -> "${rule.startNumber} to ${rule.endNumber.orEmpty()}"
+                    },
+                    style = MaterialTheme.typography.bodySmall,
+                    color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+                )
+            }
+            
+            Switch(
+                checked = rule.enabled,
+                onCheckedChange = onEnabledChange
+            )
+            
+            IconButton(onClick = onDelete) {
+                Icon(
+                    imageVector = Icons.Default.Delete,
+                    contentDescription = "Remove ${rule.label}",
+                    tint = MaterialTheme.colorScheme.error
+                )
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.tomsphone.feature.carer.screens
 
+import androidx.activity.compose.rememberLauncherForActivityResult
+import androidx.activity.result.contract.ActivityResultContracts
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.verticalScroll
@@ -11,16 +13,21 @@ import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 import com.tomsphone.core.config.FeatureLevel
 import com.tomsphone.core.config.MissedCallNagInterval
+import com.tomsphone.core.data.blocklist.BlocklistImportProgress
+import com.tomsphone.core.data.blocklist.BlocklistIndex
 import com.tomsphone.core.ui.theme.WandasDimensions
 import com.tomsphone.core.ui.theme.wandasColors
 import com.tomsphone.feature.carer.CarerSettingsViewModel
 import com.tomsphone.feature.carer.components.*
+import java.text.DateFormat
+import java.util.Date
 
 /**
  * Call handling settings screen.
  * 
  * Contains:
- * - Reject unknown calls
+ * - Reject unknown calls, with prefix / range allow rules
+ * - Nuisance-number blocklist (imported from a file)
  * - Speakerphone settings
  * - Auto-answer settings (Level 2+ per-contact)
  * - Missed call nag settings
@@ -28,12 +35,20 @@ import com.tomsphone.feature.carer.components.*
 @Composable
 fun CallHandlingScreen(
     featureLevel: FeatureLevel,
+    onNavigateToAllowRules: () -> Unit,
     onBack: () -> Unit,
     viewModel: CarerSettingsViewModel = hiltViewModel()
 ) {
     val settings by viewModel.settings.collectAsState()
+    val allowRules by viewModel.allowRules.collectAsState()
+    val blocklist by viewModel.blocklist.collectAsState()
+    val blocklistImportProgress by viewModel.blocklistImportProgress.collectAsState()
     val saveToastState = rememberSaveToastState()
     
+    val blocklistLauncher = rememberLauncherForActivityResult(ActivityResultContracts.OpenDocument()) { uri ->
+        uri?.let { viewModel.importBlocklist(it) }
+    }
+    
     Surface(
         modifier = Modifier.fillMaxSize(),
         color = MaterialTheme.wandasColors.background
@@ -71,6 +86,58 @@ fun CallHandlingScreen(
                                 saveToastState.show("Unknown call handling saved")
                             }
                         )
+                        
+                        Spacer(modifier = Modifier.height(12.dp))
+                        
+                        OutlinedButton(
+                            onClick = onNavigateToAllowRules,
+                            modifier = Modifier.fillMaxWidth()
+                        ) {
+                            Text(
+                                if (allowRules.isEmpty()) "Allowed Callers"
+                                else "Allowed Callers (${allowRules.count { it.enabled }} active)"
+                            )
+                        }
+                        Text(
+                            text = "Let surgeries, pharmacies and care agencies through by number prefix or range",
+                            style = MaterialTheme.typography.bodySmall,
+                            color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+                        )
+                    }
+                    
+                    // Nuisance Callers
+                    SettingCard(title = "Nuisance Callers") {
+                        BlocklistSummary(blocklist = blocklist)
+                        
+                        Spacer(modifier = Modifier.height(12.dp))
+                        
+                        OutlinedButton(
+                            onClick = { blocklistLauncher.launch(BLOCKLIST_MIME_TYPES) },
+                            modifier = Modifier.fillMaxWidth(),
+                            enabled = blocklistImportProgress?.finished != false
+                        ) {
+                            Text(if (blocklist == null) "Import List from File" else "Replace List from File")
+                        }
+                        
+                        if (blocklist != null) {
+                            TextButton(
+                                onClick = {
+                                    viewModel.removeBlocklist()
+                                    saveToastState.show("Nuisance list removed")
+                                },
+                                enabled = blocklistImportProgress?.finished != false
+                            ) {
+                                Text("Remove List")
+                            }
+                        }
+                        
+                        blocklistImportProgress?.let { progress ->
+                            Spacer(modifier = Modifier.height(8.dp))
+                            BlocklistImportStatus(
+                                progress = progress,
+                                onDismiss = { viewModel.clearBlocklistImportResult() }
+                            )
+                        }
                     }
                     
                     // Speakerphone
@@ -196,3 +263,67 @@ fun CallHandlingScreen(
         }
     }
 }
+
+private val BLOCKLIST_MIME_TYPES = arrayOf(
+    "text/plain",
+    "text/csv",
+    "text/comma-separated-values"
+)
+
+@Composable
+private fun BlocklistSummary(blocklist: BlocklistIndex?) {
+    Text(
+        text = if (blocklist == null) {
+            "No nuisance list loaded"
+        } else {
+            "%,d numbers blocked (imported %s)".format(
+                blocklist.size,
+                DateFormat.getDateInstance(DateFormat.MEDIUM).format(Date(blocklist.importedAt))
+            )
+        },
+        style = MaterialTheme.typography.bodyMedium,
+        color = MaterialTheme.wandasColors.onSurface
+    )
+    Text(
+        text = "Calls from listed numbers are rejected even when unknown calls are allowed. Contacts and allowed callers are never blocked.",
+        style = MaterialTheme.typography.bodySmall,
+        color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+    )
+}
+
+@Composable
+private fun BlocklistImportStatus(
+    progress: BlocklistImportProgress,
+    onDismiss: () -> Unit
+) {
+    Column(verticalArrangement = Arrangement.spacedBy(8.dp)) {
+        if (!progress.finished) {
+            LinearProgressIndicator(modifier = Modifier.fillMaxWidth())
+        }
+        
+        Text(
+            text = when {
+                progress.error != null -> "Import stopped: ${progress.error}"
+                progress.finished -> "Import complete"
+                else -> "Importing... (%,d lines read)".format(progress.linesRead)
+            },
+            style = MaterialTheme.typography.bodyMedium,
+            color = if (progress.error != null) MaterialTheme.colorScheme.error else MaterialTheme.wandasColors.onSurface
+        )
+        if (progress.finished && progress.error == null) {
+            Text(
+                text = "%,d numbers, %,d duplicates, %,d lines skipped".format(
+                    progress.entries, progress.duplicates, progress.invalid
+                ),
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+            )
+        }
+        
+        if (progress.finished) {
+            TextButton(onClick = onDismiss) {
+                Text("OK")
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.tomsphone.feature.carer.screens
+
+import androidx.compose.foundation.layout.*
+import androidx.compose.foundation.rememberScrollState
+import androidx.compose.foundation.verticalScroll
+import androidx.compose.material3.*
+import androidx.compose.runtime.*
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.unit.dp
+import androidx.hilt.navigation.compose.hiltViewModel
+import com.tomsphone.core.config.FeatureLevel
+import com.tomsphone.core.data.model.CallStats
+import com.tomsphone.core.ui.theme.WandasDimensions
+import com.tomsphone.core.ui.theme.wandasColors
+import com.tomsphone.feature.carer.CarerSettingsViewModel
+import com.tomsphone.feature.carer.components.*
+import java.time.format.DateTimeFormatter
+
+/**
+ * Call statistics screen.
+ * 
+ * Answered, missed and rejected calls and talk time, per contact and
+ * per day, for the last CALL_STATS_DAYS days.
+ */
+@Composable
+fun CallStatsScreen(
+    featureLevel: FeatureLevel,
+    onBack: () -> Unit,
+    viewModel: CarerSettingsViewModel = hiltViewModel()
+) {
+    val byContact by viewModel.callStatsByContact.collectAsState()
+    val daily by viewModel.dailyCallStats.collectAsState()
+    val dayFormat = remember { DateTimeFormatter.ofPattern("EEE d MMM") }
+    
+    Surface(
+        modifier = Modifier.fillMaxSize(),
+        color = MaterialTheme.wandasColors.background
+    ) {
+        Column(
+            modifier = Modifier.fillMaxSize()
+        ) {
+            // Dev level indicator
+            DevLevelIndicator(level = featureLevel)
+            
+            // Breadcrumb
+            CarerBreadcrumb(
+                title = "Call Statistics",
+                parentTitle = "Settings",
+                onBack = onBack
+            )
+            
+            // Content
+            Column(
+                modifier = Modifier
+                    .fillMaxSize()
+                    .verticalScroll(rememberScrollState())
+                    .padding(WandasDimensions.SpacingMedium),
+                verticalArrangement = Arrangement.spacedBy(WandasDimensions.SpacingMedium)
+            ) {
+                Text(
+                    text = "Calls in the last ${CarerSettingsViewModel.CALL_STATS_DAYS} days.",
+                    style = MaterialTheme.typography.bodyMedium,
+                    color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.7f)
+                )
+                
+                if (byContact.isEmpty()) {
+                    SettingCard(title = "No calls yet") {
+                        Text(
+                            text = "Statistics appear here once calls are made or received.",
+                            style = MaterialTheme.typography.bodySmall,
+                            color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+                        )
+                    }
+                } else {
+                    // Totals per contact
+                    SettingCard(title = "By Contact") {
+                        byContact.forEach { stats ->
+                            CallStatsRow(label = stats.displayName(), stats = stats)
+                        }
+                    }
+                    
+                    // Per day, newest first
+                    daily.groupBy { it.day }.forEach { (day, rows) ->
+                        SettingCard(title = day?.format(dayFormat) ?: "") {
+                            rows.forEach { stats ->
+                                CallStatsRow(label = stats.displayName(), stats = stats)
+                            }
+                        }
+                    }
+                }
+                
+                Spacer(modifier = Modifier.height(32.dp))
+            }
+        }
+    }
+}
+
+/**
+ * One contact's totals: name, then answered / missed / rejected / talk time.
+ */
+@Composable
+private fun CallStatsRow(
+    label: String,
+    stats: CallStats
+) {
+    Column(modifier = Modifier.fillMaxWidth().padding(vertical = 4.dp)) {
+        Text(
+            text = label,
+            style = MaterialTheme.typography.bodyMedium,
+            color = MaterialTheme.wandasColors.onSurface
+        )
+        Text(
+            text = "Answered ${stats.answered} · Made ${stats.outgoing} · Missed ${stats.missed} · " +
+                "Rejected ${stats.rejected} · Talk ${formatTalkTime(stats.talkTimeMs)}",
+            style = MaterialTheme.typography.bodySmall,
+            color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+        )
+    }
+}
+
+private fun CallStats.displayName(): String = when {
+    contactId == null -> "Unknown numbers"
+    contactName != null -> contactName
+    else -> "Deleted contact"
+}
+
+private fun formatTalkTime(ms: Long): String {
+    val minutes = ms / 60_000
+    return if (minutes >= 60) "${minutes / 60}h ${minutes % 60}m" else "${minutes}m"
+}
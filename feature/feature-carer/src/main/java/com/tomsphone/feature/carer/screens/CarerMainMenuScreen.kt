@@ -31,6 +31,7 @@ fun CarerMainMenuScreen(
     onNavigateToAppearance: () -> Unit,
     onNavigateToFeatureLevel: () -> Unit,
     onNavigateToAlwaysOn: () -> Unit,
+    onNavigateToCallStats: () -> Unit,
     onNavigateToFactoryReset: () -> Unit,
     onExitApp: () -> Unit,
     onBack: () -> Unit
@@ -107,6 +108,14 @@ fun CarerMainMenuScreen(
                     currentLevel = featureLevel
                 )
                 
+                // Call Statistics - always visible
+                CarerMenuButton(
+                    title = "Call Statistics",
+                    description = "Answered, missed and talk time per contact",
+                    onClick = onNavigateToCallStats,
+                    currentLevel = featureLevel
+                )
+                
                 Spacer(modifier = Modifier.height(32.dp))
                 
                 // Factory Reset - always visible, red to indicate danger
@@ -1,5 +1,7 @@
 package com.tomsphone.feature.carer.screens
 
+import androidx.activity.compose.rememberLauncherForActivityResult
+import androidx.activity.result.contract.ActivityResultContracts
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.items
@@ -13,6 +15,7 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 import com.tomsphone.core.config.FeatureLevel
+import com.tomsphone.core.data.importer.ContactImportProgress
 import com.tomsphone.core.data.model.Contact
 import com.tomsphone.core.data.model.ContactType
 import com.tomsphone.core.ui.theme.WandasDimensions
@@ -27,6 +30,7 @@ import com.tomsphone.feature.carer.components.*
  * - View/edit existing contacts
  * - Add new contacts
  * - Set primary contact
+ * - Import a vCard / CSV address book into the grey list (EXTENDED)
  */
 /**
  * @param onNavigateToContactEdit (contactId, contactType) - contactId 0 for new, type for new contacts
@@ -39,6 +43,11 @@ fun ContactsScreen(
     viewModel: CarerSettingsViewModel = hiltViewModel()
 ) {
     val contacts by viewModel.contacts.collectAsState()
+    val importProgress by viewModel.importProgress.collectAsState()
+    
+    val importLauncher = rememberLauncherForActivityResult(ActivityResultContracts.OpenDocument()) { uri ->
+        uri?.let { viewModel.importContacts(it) }
+    }
     
     // Max carers based on feature level
     val maxCarers = when (featureLevel) {
@@ -169,6 +178,28 @@ fun ContactsScreen(
                             Text("Add to Grey List")
                         }
                     }
+                    
+                    // Bulk import - for provisioning a handset (EXTENDED only)
+                    if (featureLevel.level >= FeatureLevel.EXTENDED.level) {
+                        item {
+                            OutlinedButton(
+                                onClick = { importLauncher.launch(IMPORT_MIME_TYPES) },
+                                modifier = Modifier.fillMaxWidth(),
+                                enabled = importProgress?.finished != false
+                            ) {
+                                Text("Import from File (vCard / CSV)")
+                            }
+                        }
+                        
+                        importProgress?.let { progress ->
+                            item {
+                                ContactImportStatus(
+                                    progress = progress,
+                                    onDismiss = { viewModel.clearImportResult() }
+                                )
+                            }
+                        }
+                    }
                 }
                 
                 item {
@@ -179,6 +210,62 @@ fun ContactsScreen(
     }
 }
 
+private val IMPORT_MIME_TYPES = arrayOf(
+    "text/vcard",
+    "text/x-vcard",
+    "text/csv",
+    "text/comma-separated-values",
+    "text/plain"
+)
+
+@Composable
+private fun ContactImportStatus(
+    progress: ContactImportProgress,
+    onDismiss: () -> Unit
+) {
+    Card(
+        modifier = Modifier.fillMaxWidth(),
+        colors = CardDefaults.cardColors(
+            containerColor = MaterialTheme.wandasColors.surface
+        )
+    ) {
+        Column(
+            modifier = Modifier.padding(WandasDimensions.SpacingMedium),
+            verticalArrangement = Arrangement.spacedBy(8.dp)
+        ) {
+            if (!progress.finished) {
+                val fraction = progress.fraction
+                if (fraction != null) {
+                    LinearProgressIndicator(progress = { fraction }, modifier = Modifier.fillMaxWidth())
+                } else {
+                    LinearProgressIndicator(modifier = Modifier.fillMaxWidth())
+                }
+            }
+            
+            Text(
+                text = when {
+                    progress.error != null -> "Import stopped: ${progress.error}"
+                    progress.finished -> "Import complete"
+                    else -> "Importing..."
+                },
+                style = MaterialTheme.typography.bodyMedium,
+                color = if (progress.error != null) MaterialTheme.colorScheme.error else MaterialTheme.wandasColors.onSurface
+            )
+            Text(
+                text = "${progress.imported} added, ${progress.duplicates} already present, ${progress.skipped} skipped",
+                style = MaterialTheme.typography.bodySmall,
+                color = MaterialTheme.wandasColors.onSurface.copy(alpha = 0.6f)
+            )
+            
+            if (progress.finished) {
+                TextButton(onClick = onDismiss) {
+                    Text("OK")
+                }
+            }
+        }
+    }
+}
+
 @Composable
 private fun ContactListItem(
     contact: Contact,
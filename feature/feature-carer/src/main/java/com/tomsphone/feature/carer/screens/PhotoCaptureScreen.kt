@@ -76,11 +76,10 @@ fun PhotoCaptureScreen(
                 // Camera permission granted - show camera
                 CameraPreviewContent(
                     context = context,
-                    onPhotoCaptured = { photoUri ->
-                        // Save URI to settings
-                        viewModel.setUserPhotoUri(photoUri)
-                        onPhotoCaptured(photoUri)
-                    },
+                    photoExecutor = viewModel.photoExecutor,
+                    // Sizes the photo and saves its path to settings
+                    storePhoto = viewModel::storeUserPhoto,
+                    onPhotoCaptured = onPhotoCaptured,
                     onCancel = onCancel
                 )
             }
@@ -102,6 +101,8 @@ fun PhotoCaptureScreen(
 @Composable
 private fun CameraPreviewContent(
     context: Context,
+    photoExecutor: Executor,
+    storePhoto: (File) -> Result<String>,
     onPhotoCaptured: (String) -> Unit,
     onCancel: () -> Unit
 ) {
@@ -229,6 +230,8 @@ private fun CameraPreviewContent(
                         capturePhoto(
                             context = context,
                             imageCapture = imageCapture,
+                            executor = photoExecutor,
+                            storePhoto = storePhoto,
                             onSuccess = { uri ->
                                 Log.d(TAG, "Capture success, calling onPhotoCaptured")
                                 isCapturing = false
@@ -360,10 +363,16 @@ private fun PermissionDenied(onCancel: () -> Unit) {
 
 /**
  * Capture photo and save to app-private storage.
+ * 
+ * The camera writes the full-resolution image to a scratch file; [storePhoto]
+ * then turns it into the pre-sized variants. Both happen on [executor] so the
+ * UI thread never touches the 12 MP JPEG. Results are posted back to the main thread.
  */
 private fun capturePhoto(
     context: Context,
     imageCapture: ImageCapture?,
+    executor: Executor,
+    storePhoto: (File) -> Result<String>,
     onSuccess: (String) -> Unit,
     onError: (Exception) -> Unit
 ) {
@@ -372,25 +381,31 @@ private fun capturePhoto(
         return
     }
     
-    // Save to app-private files directory
+    // Scratch file in app-private storage, removed once the variants are written
     val photoFile = File(context.filesDir, "emergency_photo.jpg")
     
     val outputOptions = ImageCapture.OutputFileOptions.Builder(photoFile).build()
-    val executor: Executor = ContextCompat.getMainExecutor(context)
+    val mainExecutor: Executor = ContextCompat.getMainExecutor(context)
     
     capture.takePicture(
         outputOptions,
         executor,
         object : ImageCapture.OnImageSavedCallback {
             override fun onImageSaved(outputFileResults: ImageCapture.OutputFileResults) {
-                val savedUri = photoFile.absolutePath
-                Log.d(TAG, "Photo saved: $savedUri, exists=${photoFile.exists()}, size=${photoFile.length()}")
-                onSuccess(savedUri)
+                Log.d(TAG, "Photo saved: ${photoFile.absolutePath}, size=${photoFile.length()}")
+                storePhoto(photoFile)
+                    .onSuccess { storedUri ->
+                        Log.d(TAG, "Photo stored: $storedUri")
+                        mainExecutor.execute { onSuccess(storedUri) }
+                    }
+                    .onFailure { e ->
+                        mainExecutor.execute { onError(e as? Exception ?: RuntimeException(e)) }
+                    }
             }
             
             override fun onError(exception: ImageCaptureException) {
                 Log.e(TAG, "Photo capture error: ${exception.message}", exception)
-                onError(exception)
+                mainExecutor.execute { onError(exception) }
             }
         }
     )
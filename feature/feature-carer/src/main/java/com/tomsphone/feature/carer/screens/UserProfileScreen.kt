@@ -13,16 +13,18 @@ import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.layout.ContentScale
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.LocalDensity
 import androidx.compose.ui.unit.dp
 import androidx.hilt.navigation.compose.hiltViewModel
 import coil.compose.AsyncImage
 import coil.request.ImageRequest
 import com.tomsphone.core.config.FeatureLevel
+import com.tomsphone.core.data.photo.PhotoStore
+import com.tomsphone.core.data.photo.PhotoVariant
 import com.tomsphone.core.ui.theme.WandasDimensions
 import com.tomsphone.core.ui.theme.wandasColors
 import com.tomsphone.feature.carer.CarerSettingsViewModel
 import com.tomsphone.feature.carer.components.*
-import java.io.File
 
 /**
  * User profile settings screen.
@@ -395,16 +397,11 @@ fun UserProfileScreen(
                             modifier = Modifier.padding(bottom = 12.dp)
                         )
                         
-                        // Check if photo exists - track with state for reactivity
-                        val photoFile = File(context.filesDir, "emergency_photo.jpg")
-                        var hasPhoto by remember { mutableStateOf(photoFile.exists()) }
-                        var photoTimestamp by remember { mutableStateOf(photoFile.lastModified()) }
-                        
-                        // Re-check when settings.userPhotoUri changes (triggered after capture)
-                        LaunchedEffect(settings.userPhotoUri) {
-                            hasPhoto = photoFile.exists()
-                            photoTimestamp = photoFile.lastModified()
-                            android.util.Log.d("UserProfile", "Photo check: exists=${photoFile.exists()}, uri=${settings.userPhotoUri}, path=${photoFile.absolutePath}")
+                        // Pre-sized variant for the 240dp circle. Stored names are content
+                        // hashes, so a retake changes settings.userPhotoUri and reloads this.
+                        val photoSizePx = with(LocalDensity.current) { 240.dp.roundToPx() }
+                        val photoFile = remember(settings.userPhotoUri, photoSizePx) {
+                            PhotoStore.variantOf(settings.userPhotoUri, PhotoVariant.forSize(photoSizePx))
                         }
                         
                         Column(
@@ -412,27 +409,22 @@ fun UserProfileScreen(
                             horizontalAlignment = Alignment.CenterHorizontally
                         ) {
                             // Photo display - 240dp for better visibility
-                            if (hasPhoto) {
-                                // Use key to force reload when photo changes
-                                key(photoTimestamp) {
-                                    Box(
-                                        modifier = Modifier
-                                            .size(240.dp)
-                                            .clip(CircleShape)
-                                            .background(MaterialTheme.wandasColors.surface)
-                                    ) {
-                                        AsyncImage(
-                                            model = ImageRequest.Builder(context)
-                                                .data(photoFile)
-                                                .crossfade(true)
-                                                // Add timestamp to bust cache
-                                                .setParameter("timestamp", photoTimestamp)
-                                                .build(),
-                                            contentDescription = "User photo",
-                                            contentScale = ContentScale.Crop,
-                                            modifier = Modifier.fillMaxSize()
-                                        )
-                                    }
+                            if (photoFile != null) {
+                                Box(
+                                    modifier = Modifier
+                                        .size(240.dp)
+                                        .clip(CircleShape)
+                                        .background(MaterialTheme.wandasColors.surface)
+                                ) {
+                                    AsyncImage(
+                                        model = ImageRequest.Builder(context)
+                                            .data(photoFile)
+                                            .crossfade(true)
+                                            .build(),
+                                        contentDescription = "User photo",
+                                        contentScale = ContentScale.Crop,
+                                        modifier = Modifier.fillMaxSize()
+                                    )
                                 }
                                 
                                 Spacer(modifier = Modifier.height(16.dp))
@@ -451,8 +443,7 @@ fun UserProfileScreen(
                                     
                                     OutlinedButton(
                                         onClick = {
-                                            photoFile.delete()
-                                            viewModel.setUserPhotoUri(null)
+                                            viewModel.removeUserPhoto()
                                             saveToastState.show("Photo removed")
                                         },
                                         modifier = Modifier.width(200.dp),
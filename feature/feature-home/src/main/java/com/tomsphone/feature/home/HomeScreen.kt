@@ -1,5 +1,6 @@
 package com.tomsphone.feature.home
 
+import android.graphics.Bitmap
 import android.util.Log
 import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.*
@@ -10,6 +11,7 @@ import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.asImageBitmap
 import androidx.compose.ui.text.TextStyle
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
@@ -58,6 +60,7 @@ fun HomeScreen(
     val callingContact by viewModel.callingContact.collectAsState()
     val emergencyTestMode by viewModel.emergencyTestMode.collectAsState()
     val unknownCallsAllowed by viewModel.unknownCallsAllowed.collectAsState()
+    val contactPhotos by viewModel.contactPhotos.collectAsState()
     
     // Also observe currentCall directly to prevent standby flash
     val currentCall by viewModel.currentCallForUI.collectAsState()
@@ -187,7 +190,8 @@ fun HomeScreen(
                             contactButtons.filter { !it.isHalfWidth }.forEach { button ->
                                 RenderContactButton(
                                     button = button,
-                                    onClick = { viewModel.onContactButtonTap(button) }
+                                    onClick = { viewModel.onContactButtonTap(button) },
+                                    photo = button.photoUri?.let { contactPhotos[it] }
                                 )
                             }
                             
@@ -200,14 +204,16 @@ fun HomeScreen(
                                             RenderContactButton(
                                                 button = pair[0],
                                                 onClick = { viewModel.onContactButtonTap(pair[0]) },
-                                                modifier = modifier
+                                                modifier = modifier,
+                                                photo = pair[0].photoUri?.let { contactPhotos[it] }
                                             )
                                         },
                                         rightButton = { modifier ->
                                             RenderContactButton(
                                                 button = pair[1],
                                                 onClick = { viewModel.onContactButtonTap(pair[1]) },
-                                                modifier = modifier
+                                                modifier = modifier,
+                                                photo = pair[1].photoUri?.let { contactPhotos[it] }
                                             )
                                         }
                                     )
@@ -215,7 +221,8 @@ fun HomeScreen(
                                     RenderContactButton(
                                         button = pair[0],
                                         onClick = { viewModel.onContactButtonTap(pair[0]) },
-                                        modifier = Modifier.fillMaxWidth()
+                                        modifier = Modifier.fillMaxWidth(),
+                                        photo = pair[0].photoUri?.let { contactPhotos[it] }
                                     )
                                 }
                             }
@@ -289,15 +296,22 @@ fun HomeScreen(
 
 /**
  * Render a contact button from HomeButtonConfig
+ * 
+ * [photo] comes already decoded from the ViewModel's photo cache -
+ * nothing is decoded here, however often this recomposes.
  */
 @Composable
 private fun RenderContactButton(
     button: HomeButtonConfig.ContactButton,
     onClick: () -> Unit,
-    modifier: Modifier = Modifier
+    modifier: Modifier = Modifier,
+    photo: Bitmap? = null
 ) {
+    val image = remember(photo) { photo?.asImageBitmap() }
+    
     ConfigurableButton(
         label = button.name,
+        photo = image,
         onClick = onClick,
         modifier = modifier.fillMaxWidth(),
         backgroundColor = button.color?.let { Color(it) } 
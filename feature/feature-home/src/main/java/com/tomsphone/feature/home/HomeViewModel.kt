@@ -1,5 +1,6 @@
 package com.tomsphone.feature.home
 
+import android.graphics.Bitmap
 import android.util.Log
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
@@ -8,6 +9,7 @@ import com.tomsphone.core.config.FeatureLevel
 import com.tomsphone.core.config.HomeButtonConfig
 import com.tomsphone.core.config.SettingsRepository
 import com.tomsphone.core.data.model.Contact
+import com.tomsphone.core.data.photo.ContactPhotoCache
 import com.tomsphone.core.data.repository.ContactRepository
 import com.tomsphone.core.telecom.CallManager
 import com.tomsphone.core.telecom.CallState
@@ -39,7 +41,8 @@ class HomeViewModel @Inject constructor(
     private val contactRepository: ContactRepository,
     private val callManager: CallManager,
     private val missedCallNagManager: MissedCallNagManager,
-    private val tts: WandasTTS
+    private val tts: WandasTTS,
+    private val contactPhotoCache: ContactPhotoCache
 ) : ViewModel() {
     
     companion object {
@@ -81,6 +84,17 @@ class HomeViewModel @Inject constructor(
             initialValue = emptyList()
         )
     
+    // Decoded contact photos by photoUri - prefetched whenever the contacts change
+    val contactPhotos: StateFlow<Map<String, Bitmap>> = contacts
+        .map { list -> list.mapNotNull { it.photoUri }.distinct() }
+        .distinctUntilChanged()
+        .mapLatest { uris -> contactPhotoCache.prefetch(uris) }
+        .stateIn(
+            scope = viewModelScope,
+            started = SharingStarted.WhileSubscribed(5000),
+            initialValue = emptyMap()
+        )
+    
     // Settings for building home buttons
     private val settings: StateFlow<CarerSettings> = settingsRepository.getSettings()
         .stateIn(
@@ -146,7 +160,8 @@ class HomeViewModel @Inject constructor(
                     phoneNumber = contact.phoneNumber,
                     color = contact.buttonColor,
                     showAutoAnswerWarning = contact.autoAnswerEnabled,
-                    isHalfWidth = contact.isHalfWidth
+                    isHalfWidth = contact.isHalfWidth,
+                    photoUri = contact.photoUri
                 )
             )
         }
@@ -363,7 +378,7 @@ class HomeViewModel @Inject constructor(
             id = button.contactId,
             name = button.name,
             phoneNumber = button.phoneNumber,
-            photoUri = null,
+            photoUri = button.photoUri,
             priority = 0,
             isPrimary = false,
             contactType = com.tomsphone.core.data.model.ContactType.CARER,
@@ -1,5 +1,6 @@
 package com.tomsphone.feature.phone
 
+import android.content.Context
 import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.rememberScrollState
@@ -14,17 +15,24 @@ import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.layout.ContentScale
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.LocalDensity
 import androidx.compose.ui.text.TextStyle
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextAlign
 import androidx.compose.ui.unit.dp
 import coil.compose.AsyncImage
+import coil.imageLoader
 import coil.request.ImageRequest
+import com.tomsphone.core.data.photo.PhotoStore
+import com.tomsphone.core.data.photo.PhotoVariant
 import com.tomsphone.core.ui.theme.ScaledDimensions
 import com.tomsphone.core.ui.theme.WandasDimensions
 import com.tomsphone.core.ui.theme.wandasColors
 import java.io.File
 
+// Size of the user photo on the emergency call screen
+private val EMERGENCY_PHOTO_SIZE = 240.dp
+
 /**
  * Emergency confirm screen - shown after 3 taps on emergency button.
  * 
@@ -33,18 +41,30 @@ import java.io.File
  * - 2 lines of instruction text above
  * - Test mode indicator at top
  * - Cancel option
+ * 
+ * Also warms the image cache with the user photo, so the emergency call
+ * screen that follows can show it on its first frame.
  */
 @Composable
 fun EmergencyConfirmScreen(
     emergencyNumber: String,
     isTestMode: Boolean,
     onConfirm: () -> Unit,
-    onCancel: () -> Unit
+    onCancel: () -> Unit,
+    userPhotoUri: String? = null
 ) {
     val emergencyRed = Color(0xFFD32F2F)
     val buttonSize = 180.dp
     val textSize = ScaledDimensions.statusTextSize
     
+    val context = LocalContext.current
+    val photoSizePx = with(LocalDensity.current) { EMERGENCY_PHOTO_SIZE.roundToPx() }
+    LaunchedEffect(userPhotoUri, photoSizePx) {
+        PhotoStore.variantOf(userPhotoUri, PhotoVariant.forSize(photoSizePx))?.let { file ->
+            context.imageLoader.enqueue(emergencyPhotoRequest(context, file, photoSizePx))
+        }
+    }
+    
     Surface(
         modifier = Modifier.fillMaxSize(),
         color = emergencyRed
@@ -263,23 +283,25 @@ fun EmergencyCallScreen(
             }
             
             // User photo - large for EMT visibility
+            // Pre-sized variant, normally already decoded in memory by the confirm screen
             val context = LocalContext.current
-            val photoFile = remember { File(context.filesDir, "emergency_photo.jpg") }
-            val hasPhoto = photoFile.exists()
+            val photoSizePx = with(LocalDensity.current) { EMERGENCY_PHOTO_SIZE.roundToPx() }
+            val photoFile = remember(userPhotoUri, photoSizePx) {
+                PhotoStore.variantOf(userPhotoUri, PhotoVariant.forSize(photoSizePx))
+            }
             
             Box(
                 modifier = Modifier
-                    .size(240.dp)
+                    .size(EMERGENCY_PHOTO_SIZE)
                     .clip(CircleShape)
                     .background(MaterialTheme.wandasColors.surface),
                 contentAlignment = Alignment.Center
             ) {
-                if (hasPhoto) {
+                if (photoFile != null) {
                     AsyncImage(
-                        model = ImageRequest.Builder(context)
-                            .data(photoFile)
-                            .crossfade(true)
-                            .build(),
+                        model = remember(photoFile, photoSizePx) {
+                            emergencyPhotoRequest(context, photoFile, photoSizePx)
+                        },
                         contentDescription = "User photo",
                         contentScale = ContentScale.Crop,
                         modifier = Modifier.fillMaxSize()
@@ -431,3 +453,14 @@ private fun InfoSection(
         }
     }
 }
+
+/**
+ * Image request for the emergency photo. Confirm and call screens must build
+ * identical requests (same size, no crossfade) so the prefetch is a memory-cache hit.
+ */
+private fun emergencyPhotoRequest(context: Context, file: File, sizePx: Int): ImageRequest =
+    ImageRequest.Builder(context)
+        .data(file)
+        .size(sizePx)
+        .memoryCacheKey("emergency_photo:${file.name}:$sizePx")
+        .build()
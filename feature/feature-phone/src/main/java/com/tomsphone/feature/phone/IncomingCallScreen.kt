@@ -25,6 +25,7 @@ import com.tomsphone.core.data.model.ContactType
 import com.tomsphone.core.data.repository.ContactRepository
 import com.tomsphone.core.telecom.CallManager
 import com.tomsphone.core.telecom.MissedCallNagManager
+import com.tomsphone.core.telecom.RingAnnouncementComposer
 import com.tomsphone.core.telecom.RingtonePlayer
 import com.tomsphone.core.tts.TTSScripts
 import com.tomsphone.core.tts.WandasTTS
@@ -191,6 +192,7 @@ class IncomingCallViewModel @Inject constructor(
     private val callManager: CallManager,
     private val tts: WandasTTS,
     private val ringtonePlayer: RingtonePlayer,
+    private val ringAnnouncementComposer: RingAnnouncementComposer,
     private val contactRepository: ContactRepository,
     private val missedCallNagManager: MissedCallNagManager,
     private val settingsRepository: com.tomsphone.core.config.SettingsRepository
@@ -232,6 +234,13 @@ class IncomingCallViewModel @Inject constructor(
     /**
      * Start ringtone and TTS announcement loop
      * 
+     * Normally plays the pre-composed ring cycle for this caller on a loop
+     * (see RingAnnouncementComposer). Until that is ready it plays the steps
+     * one by one, switching over at the end of a cycle. When the caller's
+     * name turns up mid-ring it moves on to that caller's cycle.
+     * 
+     * The job runs until stopRingtone() cancels it.
+     * 
      * Pattern:
      * 1. Play short_twobell_ringtone.mp3
      * 2. TTS: "[userName]"
@@ -247,46 +256,82 @@ class IncomingCallViewModel @Inject constructor(
         ringtoneJob = viewModelScope.launch {
             Log.d(TAG, "Starting ringtone loop")
             
-            // Get userName from settings
-            val userName = settingsRepository.getUserName().first()
-            
             // Wait briefly for contact lookup to complete before first announcement
-            delay(300)
+            // (usually already known from the warm caller ID index)
+            if (callerName.value == null) {
+                withTimeoutOrNull(300) { callerName.filterNotNull().first() }
+            }
             
-            while (isActive) {
-                try {
-                    // 1. Play short two-bell ringtone sound
-                    ringtonePlayer.playAndWait(RingtonePlayer.Ringtone.SHORT_TWOBELL)
-                    
-                    // 2. TTS: "[userName]"
-                    tts.speakAndWait(userName)
-                    
-                    // 3. 500ms pause
-                    delay(500)
-                    
-                    // 4. TTS: "That's your phone ringing."
-                    tts.speakAndWait("That's your phone ringing.")
-                    
-                    // 5. 500ms pause
-                    delay(500)
-                    
-                    // 6. Announce caller (if known)
-                    val name = callerName.value
-                    if (name != null) {
-                        tts.speakAndWait("$name is calling.")
-                        delay(500)
+            val userName = settingsRepository.getUserName().first()
+            
+            // Restarts with the right cycle if the name arrives after ringing has started
+            callerName.collectLatest { name ->
+                var cycle = ringAnnouncementComposer.clipFor(name)
+                
+                if (cycle == null) {
+                    // Ring step by step while the cycle is composed
+                    val composing = async { ringAnnouncementComposer.awaitClip(name) }
+                    try {
+                        while (!composing.isCompleted || composing.await() == null) {
+                            playCycleSteps(userName, name)
+                        }
+                    } finally {
+                        tts.stop()
                     }
-                    
-                } catch (e: CancellationException) {
-                    throw e
-                } catch (e: Exception) {
-                    Log.e(TAG, "Error in ringtone loop: ${e.message}")
-                    delay(2000)
+                    cycle = composing.await()
+                }
+                
+                // Pre-composed cycle: one gapless loop, no per-cycle set-up
+                if (cycle != null && ringtonePlayer.playLooping(cycle)) {
+                    Log.d(TAG, "Playing composed ring cycle")
+                    try {
+                        awaitCancellation()
+                    } finally {
+                        ringtonePlayer.stop()
+                    }
+                }
+                
+                while (true) {
+                    playCycleSteps(userName, name)
                 }
             }
         }
     }
     
+    /**
+     * One ring cycle played step by step
+     */
+    private suspend fun playCycleSteps(userName: String, callerName: String?) {
+        try {
+            // 1. Play short two-bell ringtone sound
+            ringtonePlayer.playAndWait(RingtonePlayer.Ringtone.SHORT_TWOBELL)
+            
+            // 2. TTS: "[userName]"
+            tts.speakAndWait(userName)
+            
+            // 3. 500ms pause
+            delay(500)
+            
+            // 4. TTS: "That's your phone ringing."
+            tts.speakAndWait("That's your phone ringing.")
+            
+            // 5. 500ms pause
+            delay(500)
+            
+            // 6. Announce caller (if known)
+            if (callerName != null) {
+                tts.speakAndWait("$callerName is calling.")
+                delay(500)
+            }
+            
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Error in ringtone loop: ${e.message}")
+            delay(2000)
+        }
+    }
+    
     /**
      * Stop ringtone and TTS
      */